@@ -0,0 +1,85 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * The state of a Host while a batch of new Reservation is validated against it: the
+ * Reservation of the Host plus those of the batch accepted so far. The batch is accepted
+ * in order of check-in, so its stays are kept as sorted epoch day arrays with the latest
+ * check-out of every prefix, and an overlap with the batch is one binary search.
+ */
+final class BatchSnapshot implements HostSnapshot {
+
+    /*
+    FIELDS
+     */
+    private final HostSnapshot base;
+    private final HashSet<Integer> ids = new HashSet<>();
+    private long[] checkIns = new long[16];
+    private long[] maxCheckOut = new long[16];
+    private int size;
+
+    /*
+    CONSTRUCTOR
+     */
+    BatchSnapshot(HostSnapshot base) {
+        this.base = base;
+    }
+
+    /**
+     * Adds an accepted Reservation of the batch; Reservation are accepted in order of check-in
+     *
+     * @param r - the accepted Reservation, with its id set
+     */
+    void accept(Reservation r) {
+        if (size == checkIns.length) {
+            checkIns = Arrays.copyOf(checkIns, size * 2);
+            maxCheckOut = Arrays.copyOf(maxCheckOut, size * 2);
+        }
+        long checkOut = r.getCheckOut().toEpochDay();
+        checkIns[size] = r.getCheckIn().toEpochDay();
+        maxCheckOut[size] = size == 0 ? checkOut : Math.max(maxCheckOut[size - 1], checkOut);
+        size++;
+        ids.add(r.getId());
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return ids.contains(id) || base.contains(id);
+    }
+
+    /**
+     * Checks the Reservation of the Host, ignoring excludeId, and every accepted
+     * Reservation of the batch
+     */
+    @Override
+    public boolean hasOverlap(LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        int starting = lowerBound(checkOut.toEpochDay());
+        if (starting > 0 && maxCheckOut[starting - 1] > checkIn.toEpochDay()) {
+            return true;
+        }
+        return base.hasOverlap(checkIn, checkOut, excludeId);
+    }
+
+    /**
+     * @return the number of accepted stays that start before epochDay
+     */
+    private int lowerBound(long epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (checkIns[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,322 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces file writes on a single background thread. Writes submitted within one
+ * window, bounded by time and by a number of writes, form a batch: each touched file is
+ * written once with everything submitted for it, every file of the batch is synced to
+ * disk once, replaced files are moved into place and their directories synced, and only
+ * then are the completion handles of the batch completed.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+    /*
+    FIELDS
+     */
+    private final Object lock = new Object();
+    private final Thread thread;
+    private final long windowNanos;
+    private final int maxBatch;
+    private LinkedHashMap<Path, PendingWrite> pending = new LinkedHashMap<>();
+    private Map<Path, PendingWrite> inFlight = Map.of();
+    private long windowStart;
+    private int submitted;
+    private boolean flushRequested;
+    private boolean closed;
+
+    /*
+    CONSTRUCTOR
+     */
+    public GroupCommitWriter(long windowMillis, int maxBatch) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "group-commit-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues lines to be appended to a file; the header is written first if the file is
+     * empty or does not exist
+     *
+     * @param path - file to append to
+     * @param header - first line of a new file
+     * @param lines - lines to append
+     * @return a handle completed once the lines are durably written
+     */
+    public CompletableFuture<Void> append(Path path, String header, List<String> lines) {
+        synchronized (lock) {
+            PendingWrite write = pending(path);
+            if (write.header == null && !write.replace) {
+                write.header = header;
+            }
+            write.lines.addAll(lines);
+            return write.done;
+        }
+    }
+
+    /**
+     * Queues the complete content of a file, replacing anything queued for it before
+     *
+     * @param path - file to replace
+     * @param lines - every line of the new file
+     * @return a handle completed once the file is durably replaced
+     */
+    public CompletableFuture<Void> replace(Path path, List<String> lines) {
+        synchronized (lock) {
+            PendingWrite write = pending(path);
+            write.replace = true;
+            write.header = null;
+            write.lines.clear();
+            write.lines.addAll(lines);
+            return write.done;
+        }
+    }
+
+    /**
+     * Gets the handle of the writes queued or in progress for a file
+     *
+     * @param path - file whose writes are awaited
+     * @return a handle completed once every write submitted so far for the file is written
+     */
+    public CompletableFuture<Void> whenWritten(Path path) {
+        synchronized (lock) {
+            PendingWrite write = pending.get(path);
+            if (write != null) {
+                return write.done;
+            }
+            write = inFlight.get(path);
+            return write == null ? CompletableFuture.completedFuture(null) : write.done;
+        }
+    }
+
+    /**
+     * Ends the current window early, if anything is queued
+     *
+     * @return a handle completed once everything submitted so far is written
+     */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            ArrayList<CompletableFuture<Void>> handles = new ArrayList<>();
+            inFlight.values().forEach(w -> handles.add(w.done));
+            pending.values().forEach(w -> handles.add(w.done));
+            if (!pending.isEmpty()) { // a request with nothing queued would cut the next window short
+                flushRequested = true;
+                lock.notifyAll();
+            }
+            return CompletableFuture.allOf(handles.toArray(new CompletableFuture[0]));
+        }
+    }
+
+    /**
+     * Writes everything still queued and stops the writer thread
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the queued write of a file, starting a new one and a new window if needed
+     */
+    private PendingWrite pending(Path path) {
+        if (closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+        if (pending.isEmpty()) {
+            windowStart = System.nanoTime();
+            lock.notifyAll();
+        }
+        submitted++;
+        if (submitted >= maxBatch) {
+            lock.notifyAll();
+        }
+        return pending.computeIfAbsent(path, p -> new PendingWrite());
+    }
+
+    /**
+     * Writer loop: waits for a window to fill up or expire, then writes the batch
+     */
+    private void run() {
+        while (true) {
+            Map<Path, PendingWrite> batch;
+            synchronized (lock) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    long remaining = windowStart + windowNanos - System.nanoTime();
+                    while (!closed && !flushRequested && submitted < maxBatch && remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        remaining = windowStart + windowNanos - System.nanoTime();
+                    }
+                } catch (InterruptedException ex) {
+                    closed = true;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                submitted = 0;
+                flushRequested = false;
+            }
+            write(batch);
+            synchronized (lock) {
+                inFlight = Map.of();
+            }
+        }
+    }
+
+    /**
+     * Writes each file of a batch once, syncs every file of the batch, moves replaced
+     * files into place and syncs their directories, then completes the handles of the batch
+     *
+     * @param batch - queued writes by file
+     */
+    private void write(Map<Path, PendingWrite> batch) {
+        LinkedHashMap<PendingWrite, FileChannel> written = new LinkedHashMap<>();
+        LinkedHashMap<PendingWrite, Path> replacements = new LinkedHashMap<>();
+        LinkedHashMap<Path, List<PendingWrite>> directories = new LinkedHashMap<>();
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            PendingWrite write = entry.getValue();
+            try {
+                if (write.replace) {
+                    Path temp = Paths.get(entry.getKey() + ".tmp");
+                    FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    written.put(write, channel);
+                    replacements.put(write, temp);
+                    writeLines(channel, null, write.lines);
+                } else {
+                    if (!Files.exists(entry.getKey())) {
+                        directoryOf(directories, entry.getKey()).add(write);
+                    }
+                    FileChannel channel = FileChannel.open(entry.getKey(), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    written.put(write, channel);
+                    writeLines(channel, channel.size() == 0 ? write.header : null, write.lines);
+                }
+            } catch (IOException ex) {
+                write.error = ex;
+            }
+        }
+        for (Map.Entry<PendingWrite, FileChannel> entry : written.entrySet()) {
+            try (FileChannel channel = entry.getValue()) {
+                if (entry.getKey().error == null) {
+                    channel.force(false);
+                }
+            } catch (IOException ex) {
+                entry.getKey().error = ex;
+            }
+        }
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            PendingWrite write = entry.getValue();
+            Path temp = replacements.get(write);
+            if (temp != null && write.error == null) {
+                try {
+                    Files.move(temp, entry.getKey(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    directoryOf(directories, entry.getKey()).add(write);
+                } catch (IOException ex) {
+                    write.error = ex;
+                }
+            }
+        }
+        for (Map.Entry<Path, List<PendingWrite>> entry : directories.entrySet()) {
+            try {
+                syncDirectory(entry.getKey());
+            } catch (IOException ex) {
+                entry.getValue().stream().filter(write -> write.error == null).forEach(write -> write.error = ex);
+            }
+        }
+        for (PendingWrite write : batch.values()) {
+            if (write.error == null) {
+                write.done.complete(null);
+            } else {
+                write.done.completeExceptionally(new DataException(write.error.getMessage(), write.error));
+            }
+        }
+    }
+
+    /**
+     * Gets the writes of a batch that created or replaced a file of the directory of path
+     *
+     * @param directories - writes by directory
+     * @param path - file created or replaced
+     * @return the writes whose durability also depends on the directory of path
+     */
+    private static List<PendingWrite> directoryOf(Map<Path, List<PendingWrite>> directories, Path path) {
+        return directories.computeIfAbsent(path.toAbsolutePath().getParent(), d -> new ArrayList<>());
+    }
+
+    /**
+     * Syncs a directory, so the files created in or moved into it survive a crash. Directories cannot be
+     * opened on every platform; there the move is as durable as the platform makes it.
+     *
+     * @param directory - directory whose entries changed
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Encodes and writes lines to a channel
+     */
+    private static void writeLines(FileChannel channel, String header, List<String> lines) throws IOException {
+        StringBuilder content = new StringBuilder();
+        if (header != null) {
+            content.append(header).append(System.lineSeparator());
+        }
+        lines.forEach(line -> content.append(line).append(System.lineSeparator()));
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(content.toString());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Everything queued for one file within the current window
+     */
+    private static class PendingWrite {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final List<String> lines = new ArrayList<>();
+        private boolean replace;
+        private String header;
+        private IOException error;
+    }
+}
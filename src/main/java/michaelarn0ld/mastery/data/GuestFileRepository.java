@@ -2,9 +2,15 @@ package michaelarn0ld.mastery.data;
 
 import michaelarn0ld.mastery.data.abstractions.ClientFileRepository;
 import michaelarn0ld.mastery.data.contracts.ClientRepository;
+import michaelarn0ld.mastery.data.csv.CsvRecord;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
 import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.State;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class GuestFileRepository extends ClientFileRepository<Guest> implements ClientRepository<Guest> {
 
     /*
@@ -15,22 +21,72 @@ public class GuestFileRepository extends ClientFileRepository<Guest> implements
         this.FIELDS = 6;
     }
 
+    @Override
+    protected Object idOf(Guest guest) {
+        return guest.getId();
+    }
+
+    @Override
+    protected Guest copy(Guest guest) {
+        Guest copy = new Guest(guest.getId());
+        copy.setFirstName(guest.getFirstName());
+        copy.setLastName(guest.getLastName());
+        copy.setEmail(guest.getEmail());
+        copy.setPhoneNumber(guest.getPhoneNumber());
+        copy.setState(guest.getState());
+        return copy;
+    }
+
     /**
-     * Takes a String[] and produces a Guest if it has an exactly equivalent number of
+     * Takes a CsvRecord and produces a Guest if it has an exactly equivalent number of
      * fields; each respective field of fields is expected to be convertible to the
      * appropriate Guest field type.
      *
-     * @param fields - parsing a line of csv data produces a String[] of Guest data
+     * @param fields - a line of csv data holding the Guest data
      * @return a Guest instance built from a line of the csv data
      */
-    protected Guest deserialize(String[] fields) {
+    protected Guest deserialize(CsvRecord fields) {
+        Guest guest = new Guest();
+        guest.setId(fields.getInt(0));
+        guest.setFirstName(fields.get(1));
+        guest.setLastName(fields.get(2));
+        guest.setEmail(fields.get(3));
+        guest.setPhoneNumber(fields.get(4));
+        guest.setState(fields.getEnum(5, State.class));
+        return guest;
+    }
+
+    /**
+     * Writes the fields of a Guest to a binary snapshot, in csv column order
+     *
+     * @param out - snapshot being written
+     * @param guest - Guest to write
+     */
+    @Override
+    protected void writeRecord(DataOutput out, Guest guest) throws IOException {
+        out.writeInt(guest.getId());
+        SnapshotFile.writeString(out, guest.getFirstName());
+        SnapshotFile.writeString(out, guest.getLastName());
+        SnapshotFile.writeString(out, guest.getEmail());
+        SnapshotFile.writeString(out, guest.getPhoneNumber());
+        SnapshotFile.writeEnum(out, guest.getState());
+    }
+
+    /**
+     * Reads a Guest written by writeRecord
+     *
+     * @param in - snapshot being read
+     * @return the Guest read from the snapshot
+     */
+    @Override
+    protected Guest readRecord(DataInput in) throws IOException {
         Guest guest = new Guest();
-        guest.setId(Integer.parseInt(fields[0]));
-        guest.setFirstName(fields[1]);
-        guest.setLastName(fields[2]);
-        guest.setEmail(fields[3]);
-        guest.setPhoneNumber(fields[4]);
-        guest.setState(State.valueOf(fields[5]));
+        guest.setId(in.readInt());
+        guest.setFirstName(SnapshotFile.readString(in));
+        guest.setLastName(SnapshotFile.readString(in));
+        guest.setEmail(SnapshotFile.readString(in));
+        guest.setPhoneNumber(SnapshotFile.readString(in));
+        guest.setState(SnapshotFile.readEnum(in, State.class));
         return guest;
     }
 }
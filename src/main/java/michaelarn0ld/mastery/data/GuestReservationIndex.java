@@ -0,0 +1,101 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index of the stays of each Guest across every Host file, keyed by Guest id.
+ * The list of a Guest is immutable and replaced atomically on each change, so lookups
+ * need no lock and Host changed on different threads do not lose updates.
+ */
+final class GuestReservationIndex {
+
+    /*
+    FIELDS
+     */
+    private final ConcurrentHashMap<Integer, List<ReservationRef>> byGuest = new ConcurrentHashMap<>();
+
+    /**
+     * Records the stay of a Reservation, replacing any earlier record of it
+     *
+     * @param hostId - id of the Host the Reservation belongs to
+     * @param r - the added or updated Reservation
+     */
+    void add(String hostId, Reservation r) {
+        add(ReservationRef.of(hostId, r));
+    }
+
+    /**
+     * Records a stay, replacing any earlier record of its Reservation
+     *
+     * @param ref - the stay
+     */
+    void add(ReservationRef ref) {
+        byGuest.compute(ref.getGuestId(), (guestId, refs) -> {
+            ArrayList<ReservationRef> next = new ArrayList<>();
+            if (refs != null) {
+                refs.stream()
+                        .filter(old -> !old.refersTo(ref.getHostId(), ref.getReservationId()))
+                        .forEach(next::add);
+            }
+            next.add(ref);
+            return List.copyOf(next);
+        });
+    }
+
+    /**
+     * Forgets the stay of a Reservation
+     *
+     * @param hostId - id of the Host the Reservation belongs to
+     * @param r - the replaced or deleted version of the Reservation
+     */
+    void remove(String hostId, Reservation r) {
+        remove(ReservationRef.of(hostId, r));
+    }
+
+    /**
+     * Forgets a recorded stay
+     *
+     * @param ref - the stay, as recorded
+     */
+    void remove(ReservationRef ref) {
+        byGuest.computeIfPresent(ref.getGuestId(), (guestId, refs) -> {
+            List<ReservationRef> next = refs.stream()
+                    .filter(old -> !old.refersTo(ref.getHostId(), ref.getReservationId()))
+                    .toList();
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    /**
+     * @param guestId - id of a Guest
+     * @return every recorded stay of the Guest
+     */
+    List<ReservationRef> find(int guestId) {
+        return byGuest.getOrDefault(guestId, List.of());
+    }
+
+    /**
+     * Checks whether a Guest has a stay overlapping [checkIn, checkOut) at any Host
+     *
+     * @param guestId - id of the Guest
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param excludeHostId - Host of a Reservation to ignore, e.g. the one being updated
+     * @param excludeId - id of the Reservation to ignore
+     * @return true if another stay of the Guest overlaps
+     */
+    boolean overlaps(int guestId, LocalDate checkIn, LocalDate checkOut, String excludeHostId, int excludeId) {
+        for (ReservationRef ref : find(guestId)) {
+            if (ref.getCheckIn().isBefore(checkOut) && ref.getCheckOut().isAfter(checkIn)
+                    && !ref.refersTo(excludeHostId, excludeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Coordinates the writes of one Host file between processes through two sidecar files
+ * next to it. A process holds an exclusive lock on the lock sidecar while it checks the
+ * version of the Host file and writes it. The version sidecar holds the version of the Host file, a counter
+ * raised by every write of the file; it is written after the Host file and read before it,
+ * so a version read is never newer than the content read after it. The version is kept
+ * apart from the locked file because closing any channel of a locked file may release the
+ * lock, and the version is read without the lock.
+ */
+final class HostFileLock implements AutoCloseable {
+
+    /*
+    FIELDS
+     */
+    static final String LOCK_EXTENSION = ".lock";
+    static final String VERSION_EXTENSION = ".version";
+    private static final int WIDTH = 19;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    /*
+    CONSTRUCTOR
+     */
+    private HostFileLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Locks a Host file exclusively between processes; blocks while another process holds
+     * the lock. Within a process the write lock of the Host must be held first.
+     *
+     * @param hostFile - path of the Host file
+     * @return the held lock; closing it releases the lock
+     */
+    static HostFileLock acquire(String hostFile) throws DataException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(hostFile + LOCK_EXTENSION), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            return new HostFileLock(channel, channel.lock());
+        } catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            throw new DataException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reads the version of a Host file without locking it; a cheap check of whether the
+     * file changed since a version of it was read
+     *
+     * @param hostFile - path of the Host file
+     * @return the version, 0 if the file was never written with a version, or -1 if the
+     *         version could not be read
+     */
+    static long version(String hostFile) {
+        try {
+            String text = new String(Files.readAllBytes(Paths.get(hostFile + VERSION_EXTENSION)),
+                    StandardCharsets.US_ASCII).trim();
+            return text.isEmpty() ? 0 : Long.parseLong(text);
+        } catch (NoSuchFileException ex) {
+            return 0;
+        } catch (IOException | NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Records the version of a Host file once the file is written; the version is fixed
+     * width, so it is overwritten in place and never observed empty. The lock of the Host
+     * file must be held.
+     *
+     * @param hostFile - path of the Host file
+     * @param version - the version of the file just written
+     */
+    static void writeVersion(String hostFile, long version) throws DataException {
+        Path path = Paths.get(hostFile + VERSION_EXTENSION);
+        byte[] text = String.format("%0" + WIDTH + "d", version).getBytes(StandardCharsets.US_ASCII);
+        try {
+            Files.write(path, text, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Releases the lock
+     */
+    @Override
+    public void close() throws DataException {
+        try {
+            lock.release();
+            channel.close();
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package michaelarn0ld.mastery.data;
 
 import michaelarn0ld.mastery.data.abstractions.ClientFileRepository;
-import michaelarn0ld.mastery.data.contracts.ClientRepository;
+import michaelarn0ld.mastery.data.contracts.HostRepository;
+import michaelarn0ld.mastery.data.csv.CsvRecord;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
 import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Money;
 import michaelarn0ld.mastery.models.State;
 
-import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
 
-public class HostFileRepository extends ClientFileRepository<Host> implements ClientRepository<Host> {
+public class HostFileRepository extends ClientFileRepository<Host> implements HostRepository {
 
     /*
     CONSTRUCTOR
@@ -18,25 +32,155 @@ public class HostFileRepository extends ClientFileRepository<Host> implements Cl
     }
 
     /**
-     * Takes a String[] and produces a Host if it has an exactly equivalent number of
+     * Finds the Host with the matching id
+     *
+     * @param id - id of the Host
+     * @return the Host with the id, or null if there is none
+     */
+    @Override
+    public Host findById(String id) {
+        return findByKey(id);
+    }
+
+    @Override
+    protected Object idOf(Host host) {
+        return host.getId();
+    }
+
+    @Override
+    protected Host copy(Host host) {
+        Host copy = new Host(host.getId());
+        copy.setLastName(host.getLastName());
+        copy.setEmail(host.getEmail());
+        copy.setPhoneNumber(host.getPhoneNumber());
+        copy.setStreetAddress(host.getStreetAddress());
+        copy.setCity(host.getCity());
+        copy.setState(host.getState());
+        copy.setPostalCode(host.getPostalCode());
+        copy.setStandardRateCents(host.getStandardRateCents());
+        copy.setWeekendRateCents(host.getWeekendRateCents());
+        return copy;
+    }
+
+    /**
+     * Takes a CsvRecord and produces a Host if it has an exactly equivalent number of
      * fields; each respective field of fields is expected to be convertible to the
      * appropriate Host field type.
      *
-     * @param fields - parsing a line of csv data produces a String[] of Host data
+     * @param fields - a line of csv data holding the Host data
      * @return a Host instance built from a line of the csv data
      */
-    protected Host deserialize(String[] fields) {
+    protected Host deserialize(CsvRecord fields) {
+        Host host = new Host();
+        host.setId(fields.get(0));
+        host.setLastName(fields.get(1));
+        host.setEmail(fields.get(2));
+        host.setPhoneNumber(fields.get(3));
+        host.setStreetAddress(fields.get(4));
+        host.setCity(fields.get(5));
+        host.setState(fields.getEnum(6, State.class));
+        host.setPostalCode(fields.get(7));
+        host.setStandardRateCents(fields.getCents(8));
+        host.setWeekendRateCents(fields.getCents(9));
+        return host;
+    }
+
+    /**
+     * Writes the fields of a Host to a binary snapshot, in csv column order
+     *
+     * @param out - snapshot being written
+     * @param host - Host to write
+     */
+    @Override
+    protected void writeRecord(DataOutput out, Host host) throws IOException {
+        SnapshotFile.writeString(out, host.getId());
+        SnapshotFile.writeString(out, host.getLastName());
+        SnapshotFile.writeString(out, host.getEmail());
+        SnapshotFile.writeString(out, host.getPhoneNumber());
+        SnapshotFile.writeString(out, host.getStreetAddress());
+        SnapshotFile.writeString(out, host.getCity());
+        SnapshotFile.writeEnum(out, host.getState());
+        SnapshotFile.writeString(out, host.getPostalCode());
+        out.writeLong(host.getStandardRateCents());
+        out.writeLong(host.getWeekendRateCents());
+    }
+
+    /**
+     * Reads a Host written by writeRecord
+     *
+     * @param in - snapshot being read
+     * @return the Host read from the snapshot
+     */
+    @Override
+    protected Host readRecord(DataInput in) throws IOException {
         Host host = new Host();
-        host.setId(fields[0]);
-        host.setLastName(fields[1]);
-        host.setEmail(fields[2]);
-        host.setPhoneNumber(fields[3]);
-        host.setStreetAddress(fields[4]);
-        host.setCity(fields[5]);
-        host.setState(State.valueOf(fields[6]));
-        host.setPostalCode(fields[7]);
-        host.setStandardRate(new BigDecimal(fields[8]));
-        host.setWeekendRate(new BigDecimal(fields[9]));
+        host.setId(SnapshotFile.readString(in));
+        host.setLastName(SnapshotFile.readString(in));
+        host.setEmail(SnapshotFile.readString(in));
+        host.setPhoneNumber(SnapshotFile.readString(in));
+        host.setStreetAddress(SnapshotFile.readString(in));
+        host.setCity(SnapshotFile.readString(in));
+        host.setState(SnapshotFile.readEnum(in, State.class));
+        host.setPostalCode(SnapshotFile.readString(in));
+        host.setStandardRateCents(in.readLong());
+        host.setWeekendRateCents(in.readLong());
         return host;
     }
+
+    /**
+     * Sets the standard and weekend rates of Host in the file. The file is streamed line
+     * by line to a temporary file that then atomically replaces it, so only the rates
+     * of the given Host are held in memory.
+     *
+     * @param hosts - Host with their new rates, matched on id
+     * @return the number of Host whose rates were written
+     */
+    @Override
+    public synchronized int updateRates(List<Host> hosts) throws DataException {
+        HashMap<String, Host> byId = new HashMap<>();
+        hosts.forEach(h -> byId.put(h.getId(), h));
+        Path path = Paths.get(filePath);
+        Path temp = Paths.get(filePath + ".tmp");
+        int updated = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path);
+             BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            String line = reader.readLine();
+            while (line != null) {
+                Host h = byId.get(line.substring(0, Math.max(0, line.indexOf(','))));
+                int ratesStart = ordinalIndexOf(line, FIELDS - 2);
+                if (h != null && ratesStart >= 0) {
+                    line = line.substring(0, ratesStart + 1)
+                            + Money.format(h.getStandardRateCents()) + ","
+                            + Money.format(h.getWeekendRateCents());
+                    updated++;
+                }
+                writer.write(line);
+                writer.newLine();
+                line = reader.readLine();
+            }
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+        invalidate();
+        return updated;
+    }
+
+    /**
+     * @return the position of the n-th comma of a line, or -1 if it has fewer commas
+     */
+    private static int ordinalIndexOf(String line, int n) {
+        int position = -1;
+        for (int i = 0; i < n; i++) {
+            position = line.indexOf(',', position + 1);
+            if (position < 0) {
+                return -1;
+            }
+        }
+        return position;
+    }
 }
@@ -0,0 +1,181 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
+import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.GuestValue;
+import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The in-memory state of one Host file: its live Reservation in file order, the next
+ * Reservation id to hand out and the number of records the file holds. In append-only
+ * mode the file also holds superseded versions and tombstones, so it may hold more
+ * records than there are live Reservation. The interval index and the occupancy bitmap
+ * of the stays are built on first use and then carried over incrementally to the states
+ * that follow mutations.
+ *
+ * A state is never changed once built: a mutation publishes a new state, one version
+ * later, in place of the previous one, so a reader holding a state keeps a consistent
+ * point-in-time view of the Host without any lock.
+ */
+class HostReservations implements HostSnapshot {
+
+    /*
+    FIELDS
+     */
+    private final List<Reservation> reservations;
+    private final int nextId;
+    private final int records;
+    private final long version;
+    private volatile ReservationIntervals intervals;
+    private volatile ReservationOccupancy occupancy;
+    private volatile List<ReservationValue> values;
+
+    /*
+    CONSTRUCTORS
+     */
+    HostReservations(List<Reservation> reservations, int nextId, int records) {
+        this(reservations, nextId, records, null, null, 0);
+    }
+
+    /**
+     * @param intervals - index of the reservations, or null to build it on first use
+     * @param occupancy - bitmap of the reservations, or null to build it on first use
+     * @param version - number of mutations the state follows since the Host file was read
+     */
+    HostReservations(List<Reservation> reservations, int nextId, int records, ReservationIntervals intervals,
+                     ReservationOccupancy occupancy, long version) {
+        this.reservations = List.copyOf(reservations);
+        this.nextId = nextId;
+        this.records = records;
+        this.version = version;
+        this.intervals = intervals;
+        this.occupancy = occupancy;
+    }
+
+    /*
+    GETTERS
+     */
+    List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    int getNextId() {
+        return nextId;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the live Reservation as immutable values, building them on first use; every
+     * caller of the state gets the same list, with a Guest holding only its id and no
+     * Host, since the rates of the Host are not stored with its Reservation
+     *
+     * @return the ReservationValue of the live Reservation, in file order
+     */
+    List<ReservationValue> getValues() {
+        List<ReservationValue> built = values;
+        if (built == null) {
+            built = reservations.stream()
+                    .map(r -> new ReservationValue(r.getId(), r.getCheckIn(), r.getCheckOut(), null,
+                            new GuestValue(new Guest(r.getGuest().getId())),
+                            r.isPriced() ? r.getTotalCents() : Reservation.UNPRICED))
+                    .toList();
+            values = built;
+        }
+        return built;
+    }
+
+    /**
+     * Gets the interval index of the stays, building it if it was not built yet
+     *
+     * @return the ReservationIntervals of the live Reservation
+     */
+    ReservationIntervals getIntervals() {
+        ReservationIntervals built = intervals;
+        if (built == null) {
+            built = ReservationIntervals.of(reservations);
+            intervals = built;
+        }
+        return built;
+    }
+
+    /**
+     * @return the interval index if it was built, otherwise null
+     */
+    ReservationIntervals getBuiltIntervals() {
+        return intervals;
+    }
+
+    /**
+     * Gets the occupancy bitmap of the stays, building it with a horizon starting today
+     * if it was not built yet or if half of its horizon has passed
+     *
+     * @param today - current epoch day
+     * @param days - number of nights in the horizon of a new bitmap
+     * @return the ReservationOccupancy of the live Reservation
+     */
+    ReservationOccupancy getOccupancy(long today, int days) {
+        ReservationOccupancy built = occupancy;
+        if (built == null || today - built.getBaseDay() > days / 2) {
+            built = ReservationOccupancy.of(reservations, today, days);
+            occupancy = built;
+        }
+        return built;
+    }
+
+    /**
+     * @return the occupancy bitmap if it was built, otherwise null
+     */
+    ReservationOccupancy getBuiltOccupancy() {
+        return occupancy;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        for (Reservation r : reservations) {
+            if (r.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasOverlap(LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        return getIntervals().overlaps(checkIn, checkOut, excludeId);
+    }
+
+    /**
+     * Counts the records of the file that no longer describe a live Reservation and that
+     * compaction drops; the tombstone kept as the high-water mark of the ids is not one
+     *
+     * @return the number of superseded versions and tombstones in the file
+     */
+    int getDeadRecords() {
+        return Math.max(0, records - reservations.size() - (needsHighWaterMark() ? 1 : 0));
+    }
+
+    /**
+     * Checks whether the highest id handed out was deleted. The next id is read back from
+     * the file as one more than the highest id it holds, so a rewrite of the file must
+     * keep the tombstone of that id for it not to be handed out again.
+     *
+     * @return true if the Reservation with id nextId - 1 is not live
+     */
+    boolean needsHighWaterMark() {
+        if (nextId <= 1) {
+            return false;
+        }
+        return !contains(nextId - 1);
+    }
+}
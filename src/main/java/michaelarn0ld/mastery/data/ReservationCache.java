@@ -0,0 +1,255 @@
+package michaelarn0ld.mastery.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, least recently used cache of the Reservation lists of each Host, keyed
+ * by Host id. The cache is bounded both by a number of entries and by an estimate of the
+ * bytes held by the cached Reservation, their interval index and occupancy bitmap.
+ *
+ * Lookups take no lock: entries live in a concurrent map, and each records the tick of
+ * a shared clock when it was last used, which a concurrent sorted map orders. Changes
+ * are serialized on the cache, and eviction removes the entries with the oldest ticks
+ * from the head of that order, so an eviction does not scan the entries. A tick
+ * superseded by a lookup racing with a change may linger in the order; it is dropped
+ * when it reaches the head.
+ */
+public class ReservationCache {
+
+    /*
+    FIELDS
+     */
+    static final long ENTRY_OVERHEAD_BYTES = 256;
+    static final long RESERVATION_BYTES = 144;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String> byUse = new ConcurrentSkipListMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int maxEntries;
+    private volatile long maxBytes;
+    private long bytes;
+    private long evictions;
+
+    /*
+    CONSTRUCTOR
+     */
+    public ReservationCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cached Reservation of a Host and marks the entry as most recently used
+     *
+     * @param hostId - id of the Host whose Reservation are requested
+     * @return the cached HostReservations, or null if the Host is not cached
+     */
+    HostReservations get(String hostId) {
+        Entry entry = entries.get(hostId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        long used = entry.lastUsed.get();
+        if (used != clock.get()) { // already the most recent entry otherwise
+            long tick = clock.incrementAndGet();
+            if (entry.lastUsed.compareAndSet(used, tick)) {
+                byUse.put(tick, hostId);
+                byUse.remove(used, hostId);
+            }
+        }
+        return entry.reservations;
+    }
+
+    /**
+     * Gets the cached Reservation of a Host without counting a hit or miss and without
+     * affecting recency
+     *
+     * @param hostId - id of the Host whose Reservation are requested
+     * @return the cached HostReservations, or null if the Host is not cached
+     */
+    HostReservations peek(String hostId) {
+        Entry entry = entries.get(hostId);
+        return entry == null ? null : entry.reservations;
+    }
+
+    /**
+     * Caches the Reservation of a Host, replacing any previous entry, then evicts the least
+     * recently used entries until the cache is back within its budget
+     *
+     * @param hostId - id of the Host the Reservation belong to
+     * @param reservations - the complete HostReservations of the Host
+     */
+    synchronized void put(String hostId, HostReservations reservations) {
+        long tick = clock.incrementAndGet();
+        Entry previous = entries.put(hostId, new Entry(reservations, tick));
+        byUse.put(tick, hostId);
+        if (previous != null) {
+            byUse.remove(previous.lastUsed.get(), hostId);
+            bytes -= weigh(previous.reservations);
+        }
+        bytes += weigh(reservations);
+        evict();
+    }
+
+    /**
+     * Caches the Reservation of a Host unless it is already cached; used to load entries
+     * ahead of demand, so neither hits nor misses are counted
+     *
+     * @param hostId - id of the Host the Reservation belong to
+     * @param reservations - the complete HostReservations of the Host
+     * @return true if the entry was added
+     */
+    synchronized boolean putIfAbsent(String hostId, HostReservations reservations) {
+        if (entries.containsKey(hostId)) {
+            return false;
+        }
+        put(hostId, reservations);
+        return true;
+    }
+
+    /**
+     * Copies the entries without affecting their recency
+     *
+     * @return the cached HostReservations by Host id, least recently used first
+     */
+    Map<String, HostReservations> entries() {
+        LinkedHashMap<String, HostReservations> copy = new LinkedHashMap<>();
+        byUse.forEach((tick, hostId) -> {
+            Entry entry = entries.get(hostId);
+            if (entry != null && entry.lastUsed.get() == tick) {
+                copy.put(hostId, entry.reservations);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * @param hostId - id of a Host
+     * @return true if the Reservation of the Host are cached; does not affect recency
+     */
+    public boolean contains(String hostId) {
+        return entries.containsKey(hostId);
+    }
+
+    /**
+     * Removes the entry of a Host, if it is cached
+     *
+     * @param hostId - id of the Host to remove
+     */
+    public synchronized void invalidate(String hostId) {
+        Entry previous = entries.remove(hostId);
+        if (previous != null) {
+            byUse.remove(previous.lastUsed.get(), hostId);
+            bytes -= weigh(previous.reservations);
+        }
+    }
+
+    /**
+     * Removes every entry; the counters are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+        byUse.clear();
+        bytes = 0;
+    }
+
+    /*
+    CONFIGURATION & STATISTICS
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes least recently used entries while the cache is over either budget, taking
+     * them from the head of the use order and skipping superseded ticks
+     */
+    private void evict() {
+        while ((entries.size() > maxEntries || bytes > maxBytes) && !entries.isEmpty()) {
+            Map.Entry<Long, String> eldest = byUse.pollFirstEntry();
+            if (eldest == null) { // a racing lookup has yet to record its tick
+                return;
+            }
+            Entry entry = entries.get(eldest.getValue());
+            if (entry == null || entry.lastUsed.get() != eldest.getKey()) {
+                continue;
+            }
+            entries.remove(eldest.getValue());
+            bytes -= weigh(entry.reservations);
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the heap held by cached HostReservations
+     *
+     * @param reservations - HostReservations to weigh
+     * @return the estimated size in bytes
+     */
+    private static long weigh(HostReservations reservations) {
+        return ENTRY_OVERHEAD_BYTES + RESERVATION_BYTES * reservations.getReservations().size();
+    }
+
+    /**
+     * A cached HostReservations and the clock tick of its last use
+     */
+    private static final class Entry {
+
+        /*
+        FIELDS
+         */
+        private final HostReservations reservations;
+        private final AtomicLong lastUsed;
+
+        /*
+        CONSTRUCTOR
+         */
+        Entry(HostReservations reservations, long lastUsed) {
+            this.reservations = reservations;
+            this.lastUsed = new AtomicLong(lastUsed);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calendar of the stays at every Host, keyed by the epoch day of their check-in and of
+ * their check-out. The list of a day is immutable and replaced atomically on each change,
+ * so lookups need no lock and Host changed on different threads do not lose updates.
+ *
+ * The arrivals or departures of a day are one lookup. The stays active in a range of
+ * days are those that arrive before the range ends and leave after it starts; since no
+ * stay is longer than the longest one recorded, only the arrivals from that many days
+ * before the range on are visited.
+ */
+final class ReservationDateIndex {
+
+    /*
+    FIELDS
+     */
+    private final ConcurrentSkipListMap<Long, List<ReservationRef>> arrivals = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, List<ReservationRef>> departures = new ConcurrentSkipListMap<>();
+    private final AtomicLong longestStay = new AtomicLong();
+
+    /**
+     * Records the stay of a Reservation
+     *
+     * @param hostId - id of the Host the Reservation belongs to
+     * @param r - the added or updated Reservation
+     */
+    void add(String hostId, Reservation r) {
+        add(ReservationRef.of(hostId, r));
+    }
+
+    /**
+     * Records a stay
+     *
+     * @param ref - the stay
+     */
+    void add(ReservationRef ref) {
+        long checkIn = ref.getCheckIn().toEpochDay();
+        long checkOut = ref.getCheckOut().toEpochDay();
+        put(arrivals, checkIn, ref);
+        put(departures, checkOut, ref);
+        longestStay.accumulateAndGet(checkOut - checkIn, Math::max);
+    }
+
+    /**
+     * Forgets the stay of a Reservation
+     *
+     * @param hostId - id of the Host the Reservation belongs to
+     * @param r - the replaced or deleted version of the Reservation
+     */
+    void remove(String hostId, Reservation r) {
+        drop(arrivals, r.getCheckIn().toEpochDay(), hostId, r.getId());
+        drop(departures, r.getCheckOut().toEpochDay(), hostId, r.getId());
+    }
+
+    /**
+     * Forgets a recorded stay
+     *
+     * @param ref - the stay, as recorded
+     */
+    void remove(ReservationRef ref) {
+        drop(arrivals, ref.getCheckIn().toEpochDay(), ref.getHostId(), ref.getReservationId());
+        drop(departures, ref.getCheckOut().toEpochDay(), ref.getHostId(), ref.getReservationId());
+    }
+
+    /**
+     * @param day - an epoch day
+     * @return the stays that check in on the day
+     */
+    List<ReservationRef> arrivals(long day) {
+        return arrivals.getOrDefault(day, List.of());
+    }
+
+    /**
+     * @param day - an epoch day
+     * @return the stays that check out on the day
+     */
+    List<ReservationRef> departures(long day) {
+        return departures.getOrDefault(day, List.of());
+    }
+
+    /**
+     * Finds the stays with a night in [fromDay, toDay)
+     *
+     * @param fromDay - epoch day of the first night
+     * @param toDay - epoch day the range ends
+     * @return the active stays by check-in
+     */
+    List<ReservationRef> active(long fromDay, long toDay) {
+        ArrayList<ReservationRef> active = new ArrayList<>();
+        if (toDay <= fromDay) {
+            return active;
+        }
+        long earliest = fromDay - longestStay.get() + 1;
+        for (List<ReservationRef> refs : arrivals.subMap(Math.min(earliest, fromDay), true, toDay, false).values()) {
+            for (ReservationRef ref : refs) {
+                if (ref.getCheckOut().toEpochDay() > fromDay) {
+                    active.add(ref);
+                }
+            }
+        }
+        return active;
+    }
+
+    private static void put(ConcurrentSkipListMap<Long, List<ReservationRef>> days, long day, ReservationRef ref) {
+        days.merge(day, List.of(ref), (current, added) -> {
+            ArrayList<ReservationRef> next = new ArrayList<>(current);
+            next.addAll(added);
+            return List.copyOf(next);
+        });
+    }
+
+    private static void drop(ConcurrentSkipListMap<Long, List<ReservationRef>> days, long day, String hostId,
+                             int reservationId) {
+        days.computeIfPresent(day, (key, refs) -> {
+            List<ReservationRef> next = refs.stream()
+                    .filter(ref -> !ref.refersTo(hostId, reservationId))
+                    .toList();
+            return next.isEmpty() ? null : next;
+        });
+    }
+}
@@ -1,81 +1,1681 @@
 package michaelarn0ld.mastery.data;
 
 import michaelarn0ld.mastery.data.abstractions.FileRepository;
+import michaelarn0ld.mastery.data.abstractions.ReaderMode;
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
+import michaelarn0ld.mastery.data.contracts.IoExecutor;
 import michaelarn0ld.mastery.data.contracts.ReservationRepository;
+import michaelarn0ld.mastery.data.csv.CsvRecord;
+import michaelarn0ld.mastery.data.exceptions.ConflictException;
 import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.snapshot.Fingerprint;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
 import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Money;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
-public class ReservationFileRepository implements ReservationRepository {
+/**
+ * Reservation of each Host in its own csv file. The repository is safe to share between
+ * threads: reads of a cached Host take no lock and see the immutable state last
+ * published for it, every Host file has its own read/write lock, a mutation of a Host
+ * excludes other mutations of that Host only, and a validation and the write it allows
+ * are made under one hold of the write lock. Work that
+ * spans every Host file (building the guest and date indexes, saving the snapshot,
+ * repricing) holds the directory lock exclusively; mutations hold it shared, always
+ * before the lock of their Host.
+ *
+ * With file locking enabled, several processes may share the directory: a mutation also
+ * holds a lock on the Host file between processes, and each write records a new version
+ * of the file that cached states are checked against.
+ */
+public class ReservationFileRepository implements ReservationRepository, AutoCloseable {
 
     /*
     FIELDS
      */
     private final String directory;
+    private final ReservationCache cache;
+    private final ConcurrentHashMap<String, ReentrantReadWriteLock> hostLocks = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock directoryLock = new ReentrantReadWriteLock();
+    private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> batchedWrites = new ConcurrentHashMap<>();
+    private ExecutorService compactor;
+    private ExecutorService ioPool;
+    private boolean closed; // guarded by this
+    private volatile int ioThreads = IoExecutor.DEFAULT_THREADS;
+    private volatile boolean appendOnly;
+    private volatile ReaderMode readerMode = ReaderMode.BUFFERED;
+    private volatile double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private volatile GroupCommitWriter writer;
+    private volatile boolean groupCommit;
+    private volatile long groupCommitWindowMillis = DEFAULT_GROUP_COMMIT_WINDOW_MILLIS;
+    private volatile int groupCommitMaxBatch = DEFAULT_GROUP_COMMIT_MAX_BATCH;
+    private volatile boolean snapshot;
+    private volatile int occupancyHorizonDays = DEFAULT_OCCUPANCY_HORIZON_DAYS;
+    private volatile int repricingParallelism = Runtime.getRuntime().availableProcessors();
+    private volatile boolean fileLocking;
+    private volatile ReservationIndexes indexes;
+    private volatile long indexRefreshMillis = DEFAULT_INDEX_REFRESH_MILLIS;
+    private final AtomicLong lastIndexRefresh = new AtomicLong(NEVER_REFRESHED); // System.nanoTime() of the last sweep
+    private final Object indexLock = new Object();
+    private long indexGeneration; // guarded by indexLock
     private final static String HEADER = "id,start_date,end_date,guest_id,total";
+    private final static String SNAPSHOT_FILE = "reservations" + SnapshotFile.EXTENSION;
+    private final static int DEFAULT_CACHE_ENTRIES = 1000;
+    private final static long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+    private final static double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private final static long DEFAULT_GROUP_COMMIT_WINDOW_MILLIS = 5;
+    private final static int DEFAULT_GROUP_COMMIT_MAX_BATCH = 1000;
+    private final static long DEFAULT_INDEX_REFRESH_MILLIS = 1000;
+    private final static long NEVER_REFRESHED = Long.MIN_VALUE;
+    private final static int DEFAULT_OCCUPANCY_HORIZON_DAYS = 730;
+    private final static int MAX_CONFLICT_ATTEMPTS = 3;
+    private final static Executor CLOSED = task -> {
+        throw new RejectedExecutionException("Reservation repository is closed");
+    };
 
     /*
-    CONSTRUCTOR
+    CONSTRUCTORS
      */
     public ReservationFileRepository(String directory) {
+        this(directory, DEFAULT_CACHE_ENTRIES, DEFAULT_CACHE_BYTES);
+    }
+
+    public ReservationFileRepository(String directory, int cacheMaxEntries, long cacheMaxBytes) {
         this.directory = directory;
+        this.cache = new ReservationCache(cacheMaxEntries, cacheMaxBytes);
+    }
+
+    /**
+     * Finds all Reservation associated with a given Host, as of one version of the Host;
+     * no lock is taken if the Host is cached
+     *
+     * @param h - Host whose Reservation data will be deserialized
+     * @return all Reservation associated with the Host
+     */
+    @Override
+    public List<Reservation> findByHost(Host h) {
+        List<Reservation> cached = read(h, HostReservations::getReservations);
+        ArrayList<Reservation> result = new ArrayList<>(cached.size());
+        cached.forEach(r -> result.add(copy(r, h)));
+        return result;
+    }
+
+    /**
+     * Find a Reservation with a matching id, specific to its Host; no lock is taken if
+     * the Host is cached
+     *
+     * @param h - Host whose Reservation will be searched
+     * @param id - Host specific unique identifier to match on
+     * @return a Reservation with matching Host and id
+     */
+    @Override
+    public Reservation findById(Host h, int id) {
+        return read(h, HostReservations::getReservations).stream()
+                .filter(r -> r.getId() == id)
+                .findFirst()
+                .map(r -> copy(r, h))
+                .orElse(null);
+    }
+
+    /**
+     * Finds the Reservation of a Host as immutable values, without copying: the values of
+     * a version of the Host are built once and the same list is returned to every caller
+     * until the Host changes
+     *
+     * @param h - Host whose Reservation are requested
+     * @return the ReservationValue of the Host, each with a Guest holding only its id and
+     *         without a Host, which the caller resolves with its rates
+     */
+    @Override
+    public List<ReservationValue> findValuesByHost(Host h) {
+        return read(h, HostReservations::getValues);
+    }
+
+    /**
+     * Checks the interval index of a Host for a stay overlapping [checkIn, checkOut)
+     *
+     * @param h - Host whose Reservation are checked
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param excludeId - id of a Reservation to ignore, e.g. the one being updated
+     * @return true if another Reservation of the Host overlaps the stay
+     */
+    @Override
+    public boolean hasOverlap(Host h, LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        return read(h, current -> current.getIntervals().overlaps(checkIn, checkOut, excludeId));
+    }
+
+    /**
+     * Finds every Reservation of a Guest across all Host from the guest index; the index
+     * is built from every Host file on first use and kept current by each mutation
+     *
+     * @param g - Guest whose Reservation are requested
+     * @return the Reservation of the Guest by check-in, each with a Host holding only its id
+     */
+    @Override
+    public List<Reservation> findByGuest(Guest g) {
+        return toReservations(find(index -> index.guests().find(g.getId())));
+    }
+
+    /**
+     * Finds the Reservation of every Host that check in on a date, from the date index
+     *
+     * @param date - the day of arrival
+     * @return the arriving Reservation, each with a Host and Guest holding only their ids
+     */
+    @Override
+    public List<Reservation> findArrivals(LocalDate date) {
+        return toReservations(find(index -> index.dates().arrivals(date.toEpochDay())));
+    }
+
+    /**
+     * Finds the Reservation of every Host that check out on a date, from the date index
+     *
+     * @param date - the day of departure
+     * @return the departing Reservation, each with a Host and Guest holding only their ids
+     */
+    @Override
+    public List<Reservation> findDepartures(LocalDate date) {
+        return toReservations(find(index -> index.dates().departures(date.toEpochDay())));
+    }
+
+    /**
+     * Finds the Reservation of every Host with a night in [from, to), from the date index
+     *
+     * @param from - first night of the range
+     * @param to - day the range ends
+     * @return the active Reservation by check-in, each with a Host and Guest holding only their ids
+     */
+    @Override
+    public List<Reservation> findActive(LocalDate from, LocalDate to) {
+        return toReservations(find(index -> index.dates().active(from.toEpochDay(), to.toEpochDay())));
+    }
+
+    /**
+     * Checks the guest index for a stay of a Guest, at any Host, overlapping
+     * [checkIn, checkOut)
+     *
+     * @param g - Guest whose stays are checked
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param excludeHost - Host of a Reservation to ignore, e.g. the one being updated
+     * @param excludeId - id of the Reservation to ignore
+     * @return true if another stay of the Guest overlaps
+     */
+    @Override
+    public boolean hasGuestOverlap(Guest g, LocalDate checkIn, LocalDate checkOut, Host excludeHost, int excludeId) {
+        ReservationIndexes index = indexes();
+        refreshHosts(index, index.guests().find(g.getId()));
+        return index.guests().overlaps(g.getId(), checkIn, checkOut, excludeHost.getId(), excludeId);
+    }
+
+    /**
+     * Finds the Host that have no Reservation overlapping [checkIn, checkOut), checking
+     * the occupancy bitmap of each Host, or its interval index if the stay is outside the
+     * horizon of the bitmap. Host that are not cached are read concurrently and are not
+     * cached, so a search across more Host than the cache holds does not evict the
+     * working set.
+     *
+     * @param hosts - Host to check
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @return the available Host, in the order of hosts
+     */
+    @Override
+    public List<Host> findAvailable(List<Host> hosts, LocalDate checkIn, LocalDate checkOut) {
+        long today = LocalDate.now().toEpochDay();
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        int horizonDays = getOccupancyHorizonDays();
+        HashMap<String, HostReservations> states = new HashMap<>();
+        LinkedHashMap<String, Host> missed = new LinkedHashMap<>();
+        for (Host h : hosts) {
+            HostReservations cached = cache.peek(h.getId());
+            if (cached != null && isCurrent(h, cached)) {
+                states.put(h.getId(), cached);
+            } else {
+                missed.put(h.getId(), h);
+            }
+        }
+        states.putAll(readUncached(missed.values()));
+        ArrayList<Host> available = new ArrayList<>();
+        for (Host h : hosts) {
+            HostReservations current = states.get(h.getId());
+            ReservationOccupancy occupancy = current.getOccupancy(today, horizonDays);
+            boolean free = occupancy.covers(from, to)
+                    ? occupancy.isFree(from, to)
+                    : !current.getIntervals().overlaps(checkIn, checkOut, 0);
+            if (free) {
+                available.add(h);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Adds a Reservation to the associated Host file
+     *
+     * @param r - Reservation to be written to the file
+     * @return the Reservation with the added id to the caller
+     */
+    @Override
+    public Reservation add(Reservation r) throws DataException {
+        return mutate(r.getHost(), current -> {
+            insert(r, current);
+            return r;
+        });
+    }
+
+    /**
+     * Adds a Reservation to the associated Host file if it passes a validation against the
+     * Reservation of the Host. The Host is read once and the Reservation is written from
+     * the same state it was validated against, while the write lock of the Host is held.
+     *
+     * @param r - Reservation to be written to the file; its id is set if it is added
+     * @param validation - checks r against the state of the Host, returning any errors
+     * @return the errors of the validation, empty if the Reservation was added
+     */
+    @Override
+    public List<String> addIfValid(Reservation r, Function<HostSnapshot, List<String>> validation)
+            throws DataException {
+        return mutate(r.getHost(), current -> {
+            List<String> errors = validation.apply(current);
+            if (errors.isEmpty()) {
+                insert(r, current);
+            }
+            return errors;
+        });
+    }
+
+    /**
+     * Adds a batch of Reservation to one Host file, each if it passes a validation. The
+     * Reservation are validated in order of check-in against the Reservation of the Host
+     * plus those of the batch accepted before them, so the batch cannot overlap itself.
+     * The Host is read once and the accepted Reservation are written at once.
+     *
+     * @param h - Host the Reservation belong to
+     * @param batch - Reservation with a check-in and check-out; the id of each added one is set
+     * @param validation - checks a Reservation against the state of the Host, returning any errors
+     * @return the errors of each Reservation, in the order of batch, empty for those added
+     */
+    @Override
+    public List<List<String>> addAllIfValid(Host h, List<Reservation> batch,
+                                            BiFunction<HostSnapshot, Reservation, List<String>> validation)
+            throws DataException {
+        return mutate(h, current -> insertAll(h, current, batch, validation));
+    }
+
+    /**
+     * Validates and writes a batch of new Reservation of a Host, as addAllIfValid describes
+     *
+     * @param h - Host the Reservation belong to
+     * @param current - state of the Host before the mutation
+     * @param batch - Reservation with a check-in and check-out; the id of each added one is set
+     * @param validation - checks a Reservation against the state of the Host, returning any errors
+     * @return the errors of each Reservation, in the order of batch, empty for those added
+     */
+    private List<List<String>> insertAll(Host h, HostReservations current, List<Reservation> batch,
+                                         BiFunction<HostSnapshot, Reservation, List<String>> validation)
+            throws DataException {
+        BatchSnapshot snapshot = new BatchSnapshot(current);
+        ArrayList<List<String>> errors = new ArrayList<>(Collections.nCopies(batch.size(), List.of()));
+        ArrayList<Reservation> all = new ArrayList<>(current.getReservations());
+        ArrayList<Reservation> added = new ArrayList<>();
+        int nextId = current.getNextId();
+        Integer[] order = new Integer[batch.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> batch.get(i).getCheckIn()));
+        for (int i : order) {
+            Reservation r = batch.get(i);
+            List<String> rejected = validation.apply(snapshot, r);
+            if (!rejected.isEmpty()) {
+                errors.set(i, rejected);
+                continue;
+            }
+            r.setId(nextId++);
+            Reservation stored = copy(r, h);
+            snapshot.accept(stored);
+            all.add(stored);
+            added.add(stored);
+        }
+        if (!added.isEmpty()) {
+            commitAll(h, current, all, added);
+        }
+        return errors;
+    }
+
+    /**
+     * Updates an existing Reservation associated with a Host
+     *
+     * @param r - Reservation to be updated
+     * @return true if the update is successful
+     */
+    @Override
+    public boolean update(Reservation r) throws DataException {
+        return mutate(r.getHost(), current -> replace(r, current));
+    }
+
+    /**
+     * Updates an existing Reservation associated with a Host if it passes a validation
+     * against the Reservation of the Host, reading and writing the Host once as addIfValid
+     * does. The validation is expected to reject an id the Host does not have.
+     *
+     * @param r - Reservation to be updated
+     * @param validation - checks r against the state of the Host, returning any errors
+     * @return the errors of the validation, empty if the Reservation was updated
+     */
+    @Override
+    public List<String> updateIfValid(Reservation r, Function<HostSnapshot, List<String>> validation)
+            throws DataException {
+        return mutate(r.getHost(), current -> {
+            List<String> errors = validation.apply(current);
+            if (errors.isEmpty() && !replace(r, current)) {
+                throw new DataException("Reservation " + r.getId() + " not found for host " + r.getHost().getId());
+            }
+            return errors;
+        });
+    }
+
+    /**
+     * Deletes an existing Reservation associated with a Host
+     *
+     * @param r - Reservation to be deleted
+     * @return true if delete is successful
+     */
+    @Override
+    public boolean delete(Reservation r) throws DataException {
+        return mutate(r.getHost(), current -> {
+            ArrayList<Reservation> all = new ArrayList<>(current.getReservations());
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getId() == r.getId()) {
+                    all.remove(i);
+                    commit(r.getHost(), current, all, tombstone(r.getId()));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Lists the ids of every Host that has a file in the reservation directory
+     *
+     * @return the Host ids, in directory order
+     */
+    public List<String> findHostIds() {
+        ArrayList<String> hostIds = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*.csv")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                hostIds.add(name.substring(0, name.length() - ".csv".length()));
+            }
+        } catch (IOException ex) {
+        }
+        return hostIds;
+    }
+
+    /**
+     * Reads a Host file into the cache ahead of demand, unless a current state of the Host
+     * is already cached. As on a miss of a read, a cached state changed by another process
+     * is dropped, and the file is read under the read lock of the Host once any batched
+     * write of it is done; unlike a read, the cache statistics are not touched.
+     *
+     * @param hostId - id of the Host whose file is read
+     * @return true if the file was read and cached
+     */
+    public boolean preload(String hostId) {
+        Host h = new Host(hostId);
+        HostReservations cached = cache.peek(hostId);
+        if (cached != null && isCurrent(h, cached)) {
+            return false;
+        }
+        Lock lock = lockOf(hostId).readLock();
+        lock.lock();
+        try {
+            cached = cache.peek(hostId);
+            if (cached != null && isCurrent(h, cached)) {
+                return false;
+            }
+            cache.put(hostId, read(h));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the Host files recorded in the directory snapshot whose csv file has not
+     * changed since the snapshot was taken, up to the capacity of the cache; other Host
+     * files are left to be read from csv.
+     *
+     * @return the number of Host cached from the snapshot
+     */
+    public int loadSnapshot() {
+        if (!isSnapshot()) {
+            return 0;
+        }
+        Integer restored = SnapshotFile.read(getSnapshotPath(), in -> {
+            int hosts = in.readInt();
+            int cached = 0;
+            for (int i = 0; i < hosts; i++) {
+                HostReservationFileRepository file = new HostReservationFileRepository(new Host(in.readUTF()));
+                Fingerprint fingerprint = Fingerprint.read(in);
+                int nextId = in.readInt();
+                int records = in.readInt();
+                int count = in.readInt();
+                ArrayList<Reservation> reservations = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    reservations.add(file.readRecord(in));
+                }
+                if (cached < cache.getMaxEntries()
+                        && restore(file, fingerprint, new HostReservations(reservations, nextId, records))) {
+                    cached++;
+                }
+            }
+            return cached;
+        });
+        return restored == null ? 0 : restored;
+    }
+
+    /**
+     * Writes every cached Host to the directory snapshot, together with the fingerprint
+     * of its csv file. Batched writes are flushed first, so the snapshot never records
+     * state that is not on disk.
+     *
+     * @return true if the snapshot was written
+     */
+    public boolean saveSnapshot() {
+        if (!snapshot) {
+            return false;
+        }
+        directoryLock.writeLock().lock();
+        try {
+            return writeSnapshot();
+        } finally {
+            directoryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the snapshot while the directory lock is held exclusively, so no Host file
+     * changes in between
+     *
+     * @return true if the snapshot was written
+     */
+    private boolean writeSnapshot() {
+        GroupCommitWriter pendingWriter = writer;
+        if (pendingWriter != null && pendingWriter.flush().handle((ignored, ex) -> ex).join() != null) {
+            return false;
+        }
+        LinkedHashMap<String, HostReservations> entries = new LinkedHashMap<>();
+        LinkedHashMap<String, Fingerprint> fingerprints = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, HostReservations> entry : cache.entries().entrySet()) {
+                HostReservationFileRepository file = new HostReservationFileRepository(new Host(entry.getKey()));
+                Fingerprint fingerprint = Fingerprint.of(Paths.get(file.getFilePath()));
+                if (fingerprint != null) {
+                    entries.put(entry.getKey(), entry.getValue());
+                    fingerprints.put(entry.getKey(), fingerprint);
+                }
+            }
+            SnapshotFile.write(getSnapshotPath(), out -> {
+                out.writeInt(entries.size());
+                for (Map.Entry<String, HostReservations> entry : entries.entrySet()) {
+                    HostReservations state = entry.getValue();
+                    HostReservationFileRepository file = new HostReservationFileRepository(new Host(entry.getKey()));
+                    out.writeUTF(entry.getKey());
+                    fingerprints.get(entry.getKey()).write(out);
+                    out.writeInt(state.getNextId());
+                    out.writeInt(state.getRecords());
+                    out.writeInt(state.getReservations().size());
+                    for (Reservation r : state.getReservations()) {
+                        file.writeRecord(out, r);
+                    }
+                }
+            });
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the cache of per Host Reservation lists, e.g. to read its statistics
+     *
+     * @return the ReservationCache used by this repository
+     */
+    public ReservationCache getCache() {
+        return cache;
+    }
+
+    /*
+    CONFIGURATION
+     */
+    public void setCacheMaxEntries(int maxEntries) {
+        cache.setMaxEntries(maxEntries);
+    }
+
+    public void setCacheMaxBytes(long maxBytes) {
+        cache.setMaxBytes(maxBytes);
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * With snapshots enabled, saveSnapshot records the cached Host in one binary file in
+     * the reservation directory, and loadSnapshot caches them again without parsing the
+     * csv files that did not change in between. The snapshot is saved on close.
+     *
+     * @param snapshot - true to maintain a snapshot of the cached Host
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return the path of the directory snapshot
+     */
+    public Path getSnapshotPath() {
+        return Paths.get(directory, SNAPSHOT_FILE);
+    }
+
+    public int getRepricingParallelism() {
+        return repricingParallelism;
+    }
+
+    /**
+     * @param repricingParallelism - number of Host files repriced at once
+     */
+    public void setRepricingParallelism(int repricingParallelism) {
+        this.repricingParallelism = repricingParallelism;
+    }
+
+    public int getOccupancyHorizonDays() {
+        return occupancyHorizonDays;
+    }
+
+    /**
+     * @param occupancyHorizonDays - number of nights, from today, covered by the occupancy
+     *                             bitmap of each Host
+     */
+    public void setOccupancyHorizonDays(int occupancyHorizonDays) {
+        this.occupancyHorizonDays = occupancyHorizonDays;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * Takes effect when the pool is next started, i.e. before the first async call or
+     * after close
+     *
+     * @param ioThreads - number of async calls whose file I/O runs at once
+     */
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    /**
+     * Gets the pool the async variants run on, starting it on first use. Reads of cached
+     * Host complete on it without I/O; reads of other Host and mutations wait on their
+     * Host file there, up to ioThreads of them at once.
+     *
+     * @return the I/O pool of this repository, or, once it is closed, an Executor that
+     *         rejects every call, so async calls fail with a DataException
+     */
+    @Override
+    public synchronized Executor ioExecutor() {
+        if (closed) {
+            return CLOSED;
+        }
+        if (ioPool == null) {
+            ioPool = IoExecutor.newPool(ioThreads, "reservation-io");
+        }
+        return ioPool;
+    }
+
+    public boolean isFileLocking() {
+        return fileLocking;
+    }
+
+    /**
+     * With file locking enabled, processes sharing the reservation directory do not lose
+     * each other's writes. A mutation validates against its state without locking the
+     * Host file, then holds an exclusive FileChannel lock on a sidecar of the file while it
+     * checks that the file is still the version its state was read from and writes it; a
+     * stale state is dropped and the mutation runs again, up to a few times before a
+     * ConflictException is thrown. Cached states are checked against the version sidecar
+     * before use, so a Host file is only read again once another process changed it, and
+     * the guest and date indexes patch in each Host file whose version changed. Writes are synchronous while file locking is
+     * enabled, since a write must be on disk before the lock is released.
+     *
+     * @param fileLocking - true to coordinate writes with other processes
+     */
+    public void setFileLocking(boolean fileLocking) {
+        this.fileLocking = fileLocking;
+    }
+
+    /**
+     * @param readerMode - how Host files are read
+     */
+    public void setReaderMode(ReaderMode readerMode) {
+        this.readerMode = readerMode;
+    }
+
+    /**
+     * In append-only mode a mutation appends a single record to the Host file instead of
+     * rewriting it: adds and updates append the new version of the Reservation and deletes
+     * append a tombstone. Files are compacted in the background once the share of dead
+     * records reaches the compaction threshold.
+     *
+     * @param appendOnly - true to append mutations, false to rewrite the Host file
+     */
+    public void setAppendOnly(boolean appendOnly) {
+        this.appendOnly = appendOnly;
+    }
+
+    /**
+     * @param compactionThreshold - share of dead records, between 0 and 1, at which an
+     *                            append-only Host file is rewritten
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * With group commit enabled, mutations update the cache immediately and their file
+     * writes are handed to a single background writer that coalesces the writes made
+     * within a window into one write and one sync per Host file. A mutation releases the
+     * locks of its Host before it waits for its write, so concurrent mutations share a
+     * batch, and it returns only once its write is durable, or throws if it failed.
+     *
+     * @param groupCommit - true to batch file writes on a background thread
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * @param windowMillis - longest time a write waits for other writes to batch with
+     */
+    public void setGroupCommitWindowMillis(long windowMillis) {
+        this.groupCommitWindowMillis = windowMillis;
+    }
+
+    /**
+     * @param maxBatch - number of writes that ends a group commit window early
+     */
+    public void setGroupCommitMaxBatch(int maxBatch) {
+        this.groupCommitMaxBatch = maxBatch;
+    }
+
+    public long getIndexRefreshMillis() {
+        return indexRefreshMillis;
+    }
+
+    /**
+     * With file locking, the guest and date indexes patch in every Host file changed by
+     * another process, including new ones, at most once per interval; the Host of the
+     * stays a query returns are checked on every query
+     *
+     * @param indexRefreshMillis - least time between two sweeps of the directory, 0 to
+     *                           sweep on every query
+     */
+    public void setIndexRefreshMillis(long indexRefreshMillis) {
+        this.indexRefreshMillis = indexRefreshMillis;
+    }
+
+    /**
+     * Gets the completion handle of the mutations made so far to a Host file
+     *
+     * @param h - Host whose writes are awaited
+     * @return a handle completed once the Host file is durably written; it completes
+     *         exceptionally with a DataException if the write failed
+     */
+    public CompletableFuture<Void> whenWritten(Host h) {
+        GroupCommitWriter pendingWriter = writer;
+        if (pendingWriter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return pendingWriter.whenWritten(Paths.get(new HostReservationFileRepository(h).getFilePath()));
+    }
+
+    /**
+     * Writes any batched mutations, stops the background writer and the I/O pool and
+     * saves the snapshot if snapshots are enabled. Async calls already submitted still
+     * run; later ones are rejected.
+     */
+    @Override
+    public void close() {
+        directoryLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                closed = true;
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+                if (ioPool != null) {
+                    ioPool.shutdown();
+                    ioPool = null;
+                }
+            }
+            saveSnapshot();
+        } finally {
+            directoryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the total of every Reservation of Host files that checks in on or after a
+     * date, as priced from the current rates of its Host. Each file is streamed line by line, and
+     * at most repricingParallelism files are processed at once, so memory does not grow
+     * with the size or number of files. The directory lock is held exclusively while it
+     * runs, and each file is repriced under the write lock of its Host, so neither
+     * mutations nor reads of a file being repriced can interleave.
+     *
+     * @param hosts - Host with their current rates
+     * @param from - first check-in date to reprice
+     * @param pricing - prices a Reservation, holding the Host with its current rates
+     * @return the number of records whose total was rewritten
+     */
+    @Override
+    public int reprice(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing) throws DataException {
+        if (hosts.isEmpty()) {
+            return 0;
+        }
+        directoryLock.writeLock().lock();
+        try {
+            return repriceAll(hosts, from, pricing);
+        } finally {
+            directoryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reprices Host files in parallel while the directory lock is held exclusively
+     *
+     * @param hosts - Host with their current rates
+     * @param from - first check-in date to reprice
+     * @param pricing - prices a Reservation, holding the Host with its current rates
+     * @return the number of records whose total was rewritten
+     */
+    private int repriceAll(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing)
+            throws DataException {
+        GroupCommitWriter pendingWriter = writer;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(repricingParallelism, hosts.size()), task -> {
+            Thread thread = new Thread(task, "reservation-repricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ArrayList<Future<Integer>> repriced = new ArrayList<>(hosts.size());
+            for (Host h : hosts) {
+                repriced.add(pool.submit(() -> {
+                    Lock lock = lockOf(h.getId()).writeLock();
+                    lock.lock();
+                    HostReservationFileRepository file = new HostReservationFileRepository(h);
+                    try (HostFileLock fileLock = lockFile(file)) {
+                        if (pendingWriter != null) {
+                            pendingWriter.whenWritten(Paths.get(file.getFilePath())).exceptionally(ex -> null).join();
+                        }
+                        int count = file.reprice(from, pricing);
+                        if (count > 0 && fileLock != null) {
+                            HostFileLock.writeVersion(file.getFilePath(), HostFileLock.version(file.getFilePath()) + 1);
+                        }
+                        cache.invalidate(h.getId()); // cached Reservation still refer to the previous Host
+                        ReservationIndexes built = indexes;
+                        if (count > 0 && built != null) { // the totals changed in place
+                            HostReservations state = file.read(versionOf(file.getFilePath()));
+                            built.index(h.getId(), state.getVersion(), state.getReservations(), true);
+                        }
+                        return count;
+                    } finally {
+                        lock.unlock();
+                    }
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> count : repriced) {
+                total += count.get();
+            }
+            return total;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof DataException dataException
+                    ? dataException
+                    : new DataException(cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataException(ex.getMessage(), ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Rewrites a Host file so that it only holds its live Reservation, if it holds any
+     * superseded versions or tombstones.
+     *
+     * @param h - Host whose file is compacted
+     */
+    public void compact(Host h) throws DataException {
+        mutate(h, current -> {
+            if (current.getDeadRecords() > 0) {
+                HostReservationFileRepository file = new HostReservationFileRepository(h);
+                List<Reservation> records = rewriteRecords(current.getReservations(), current.getNextId());
+                writeChecked(file, current, () -> file.replaceAll(records));
+                cache.put(h.getId(), new HostReservations(current.getReservations(), current.getNextId(),
+                        records.size(), current.getBuiltIntervals(), current.getBuiltOccupancy(),
+                        current.getVersion() + 1));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Gets the read/write lock of a Host file, creating it on first use
+     *
+     * @param hostId - id of the Host
+     * @return the lock guarding the file and cached state of the Host
+     */
+    private ReentrantReadWriteLock lockOf(String hostId) {
+        return hostLocks.computeIfAbsent(hostId, id -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Reads the published state of a Host. A cached state is read without any lock: it
+     * is immutable and a mutation publishes its successor in its place, so the reader
+     * sees one consistent version of the Host while writers continue. Only a miss, or a
+     * Host changed by another process, takes the read lock of the Host, so the file is not
+     * read while it is being written.
+     *
+     * @param h - Host whose Reservation are read
+     * @param reader - gets the result from the state of the Host
+     * @return the result of reader
+     */
+    private <T> T read(Host h, Function<HostReservations, T> reader) {
+        HostReservations published = cache.get(h.getId());
+        if (published != null && isCurrent(h, published)) {
+            return reader.apply(published);
+        }
+        Lock lock = lockOf(h.getId()).readLock();
+        lock.lock();
+        try {
+            published = cache.peek(h.getId());
+            if (published == null || !isCurrent(h, published)) {
+                published = read(h);
+                cache.put(h.getId(), published);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return reader.apply(published);
+    }
+
+    /**
+     * Runs a mutation of a Host under the shared directory lock and the write lock of the
+     * Host, against the state of the Host loaded under the same locks. A mutation that
+     * needs an index not built yet is run again once the index is built without the
+     * locks, since building it requires the directory lock exclusively. With file
+     * locking, the Host file is locked between processes only while it is written, and a
+     * mutation whose state turns out stale at commit is run again against the current
+     * file. With group commit,
+     * the mutation waits for its batched write once the locks are released.
+     *
+     * @param h - Host whose Reservation are changed
+     * @param mutation - validates and writes the change
+     * @return the result of mutation
+     */
+    private <T> T mutate(Host h, Mutation<T> mutation) throws DataException {
+        int conflicts = 0;
+        while (true) {
+            Supplier<?> build = null;
+            boolean applied = false;
+            T result = null;
+            CompletableFuture<Void> written = null;
+            Lock lock = lockOf(h.getId()).writeLock();
+            directoryLock.readLock().lock();
+            lock.lock();
+            try {
+                batchedWrites.remove(h.getId());
+                result = mutation.apply(load(h));
+                CompletableFuture<Void> batched = batchedWrites.remove(h.getId());
+                if (batched != null) {
+                    written = invalidateOnFailure(h, batched);
+                }
+                applied = true;
+            } catch (IndexNotBuilt ex) {
+                build = ex.build;
+            } catch (ConflictException ex) {
+                if (++conflicts == MAX_CONFLICT_ATTEMPTS) {
+                    throw ex;
+                }
+            } finally {
+                lock.unlock();
+                directoryLock.readLock().unlock();
+            }
+            if (build != null) {
+                build.get();
+            }
+            if (!applied) {
+                continue;
+            }
+            if (written != null) {
+                awaitWrite(written);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Waits for a batched write of a mutation to become durable
+     *
+     * @param written - handle of the write
+     */
+    private static void awaitWrite(CompletableFuture<Void> written) throws DataException {
+        try {
+            written.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof DataException dataException
+                    ? dataException
+                    : new DataException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Locks a Host file between processes if file locking is enabled; the write lock of
+     * the Host must be held
+     *
+     * @param file - repository of the Host file
+     * @return the held HostFileLock, or null if file locking is disabled
+     */
+    private HostFileLock lockFile(HostReservationFileRepository file) throws DataException {
+        return fileLocking ? HostFileLock.acquire(file.getFilePath()) : null;
+    }
+
+    /**
+     * @param hostFile - path of a Host file
+     * @return the version of the file if file locking is enabled, otherwise 0
+     */
+    private long versionOf(String hostFile) {
+        return fileLocking ? HostFileLock.version(hostFile) : 0;
+    }
+
+    /**
+     * Checks that a cached state is still the version of its Host file on disk; the cheap
+     * check reads the version sidecar only. A state found stale is dropped together with
+     * the guest and date indexes are patched once the file is read again.
+     *
+     * @param h - Host of the state
+     * @param state - cached state of the Host
+     * @return true if file locking is disabled or the file has not changed
+     */
+    private boolean isCurrent(Host h, HostReservations state) {
+        if (!fileLocking || HostFileLock.version(new HostReservationFileRepository(h).getFilePath())
+                == state.getVersion()) {
+            return true;
+        }
+        cache.invalidate(h.getId());
+        return false;
+    }
+
+    /**
+     * Writes a Host file under its lock between processes, once it checked that the file
+     * is still the version the mutation was validated against, then records the version
+     * written. The state of a mutation is loaded and validated without the lock, so a
+     * stale state only surfaces here, as a ConflictException the mutation is retried on.
+     *
+     * @param file - repository of the Host file
+     * @param current - state of the Host the mutation was validated against
+     * @param write - writes the file
+     */
+    private void writeChecked(HostReservationFileRepository file, HostReservations current, FileWrite write)
+            throws DataException {
+        try (HostFileLock fileLock = lockFile(file)) {
+            checkVersion(file, current);
+            write.run();
+            recordVersion(file, current.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Checks, before writing a Host file under its lock, that the file is still the version
+     * the mutation was validated against
+     *
+     * @param file - repository of the Host file
+     * @param current - state of the Host the mutation was validated against
+     */
+    private void checkVersion(HostReservationFileRepository file, HostReservations current)
+            throws ConflictException {
+        if (fileLocking && HostFileLock.version(file.getFilePath()) != current.getVersion()) {
+            isCurrent(file.h, current);
+            throw new ConflictException("Reservations of host " + file.h.getId() + " were changed by another process");
+        }
+    }
+
+    /**
+     * Records the version of a Host file just written under its lock
+     *
+     * @param file - repository of the Host file
+     * @param version - version of the state written
+     */
+    private void recordVersion(HostReservationFileRepository file, long version) throws DataException {
+        if (fileLocking) {
+            HostFileLock.writeVersion(file.getFilePath(), version);
+        }
+    }
+
+    /**
+     * Gets the Reservation of a Host from the cache, reading and caching the Host file on
+     * a miss or once another process changed the file.
+     *
+     * @param h - Host whose Reservation are requested
+     * @return the HostReservations of the Host
+     */
+    private HostReservations load(Host h) {
+        HostReservations cached = cache.get(h.getId());
+        if (cached == null || !isCurrent(h, cached)) {
+            cached = read(h);
+            cache.put(h.getId(), cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Reads a Host file, once any batched write of it is done; its version is read first.
+     * If the file is newer than the stays the indexes hold of the Host, e.g. once another
+     * process changed it, the stays of the Host are replaced in the indexes. The read lock
+     * of the Host, or the directory lock exclusively, must be held.
+     *
+     * @param h - Host whose file is read
+     * @return the HostReservations of the file
+     */
+    private HostReservations read(Host h) {
+        HostReservationFileRepository file = new HostReservationFileRepository(h);
+        GroupCommitWriter pendingWriter = getWriter();
+        if (pendingWriter != null) {
+            pendingWriter.whenWritten(Paths.get(file.getFilePath())).exceptionally(ex -> null).join();
+        }
+        HostReservations state = file.read(versionOf(file.getFilePath()));
+        ReservationIndexes built = indexes;
+        if (built != null) {
+            built.index(h.getId(), state.getVersion(), state.getReservations(), false);
+        }
+        return state;
     }
 
     /**
-     * Finds all Reservation associated with a given Host
+     * Queries the guest and date indexes; with file locking, a query whose stays belong to
+     * a Host file changed by another process is run again once that file is patched in
      *
-     * @param h - Host whose Reservation data will be deserialized
-     * @return all Reservation associated with the Host
+     * @param query - finds stays in the indexes
+     * @return the stays found
      */
-    @Override
-    public List<Reservation> findByHost(Host h) {
-        return new HostReservationFileRepository(h).findAll();
+    private List<ReservationRef> find(Function<ReservationIndexes, List<ReservationRef>> query) {
+        ReservationIndexes index = indexes();
+        List<ReservationRef> found = query.apply(index);
+        return refreshHosts(index, found) ? query.apply(index) : found;
     }
 
     /**
-     * Find a Reservation with a matching id, specific to its Host
+     * Gets the guest and date indexes, building them on first use from every Host file; a
+     * build that overlapped an invalidation is discarded and run again. With file locking,
+     * the Host files changed by another process since their stays were recorded are
+     * patched in first, at most once per index refresh interval.
      *
-     * @param h - Host whose Reservation will be searched
-     * @param id - Host specific unique identifier to match on
-     * @return a Reservation with matching Host and id
+     * @return the ReservationIndexes of every Host file
      */
-    @Override
-    public Reservation findById(Host h, int id) {
-        return new HostReservationFileRepository(h).findAll().stream()
-                .filter(r -> r.getId() == id)
-                .findFirst()
-                .orElse(null);
+    private ReservationIndexes indexes() {
+        ReservationIndexes index = indexes;
+        if (index != null) {
+            refresh(index);
+            return index;
+        }
+        if (directoryLock.getReadHoldCount() > 0) {
+            throw new IndexNotBuilt(this::indexes);
+        }
+        directoryLock.writeLock().lock();
+        try {
+            while (true) {
+                long generation;
+                synchronized (indexLock) {
+                    if (indexes != null) {
+                        return indexes;
+                    }
+                    generation = indexGeneration;
+                }
+                ReservationIndexes built = new ReservationIndexes();
+                forEachHost((hostId, state) ->
+                        built.index(hostId, state.getVersion(), state.getReservations(), false));
+                synchronized (indexLock) {
+                    if (generation == indexGeneration) {
+                        indexes = built;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            directoryLock.writeLock().unlock();
+        }
+        ReservationIndexes built = indexes;
+        refresh(built);
+        return built;
     }
 
     /**
-     * See line 100
+     * With file locking, reads every Host file whose version differs from the version its
+     * stays were recorded from, including files created by another process, so the read
+     * patches them into the indexes. Listing the directory and reading every version
+     * sidecar is not done per query: the sweep runs at most once per index refresh
+     * interval, by one thread at a time, and never inside a mutation, which holds the
+     * write lock of its Host. Queries check the Host of the stays they return themselves.
+     *
+     * @param built - the indexes
      */
-    @Override
-    public Reservation add(Reservation r) throws DataException {
-        return new HostReservationFileRepository(r.getHost()).add(r);
+    private void refresh(ReservationIndexes built) {
+        if (!fileLocking || directoryLock.getReadHoldCount() > 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastIndexRefresh.get();
+        if (last != NEVER_REFRESHED && now - last < TimeUnit.MILLISECONDS.toNanos(indexRefreshMillis)) {
+            return;
+        }
+        if (!lastIndexRefresh.compareAndSet(last, now)) {
+            return; // another thread is sweeping
+        }
+        for (String hostId : findHostIds()) {
+            refreshHost(built, hostId);
+        }
     }
 
     /**
-     * See line 114
+     * With file locking, patches in the Host files of stays found in the indexes whose
+     * version changed since the stays were recorded
+     *
+     * @param built - the indexes the stays were found in
+     * @param found - stays found
+     * @return true if a Host file was read again, so the stays found may be stale
      */
-    @Override
-    public boolean update(Reservation r) throws DataException {
-        return new HostReservationFileRepository(r.getHost()).update(r);
+    private boolean refreshHosts(ReservationIndexes built, List<ReservationRef> found) {
+        if (!fileLocking) {
+            return false;
+        }
+        boolean read = false;
+        for (String hostId : found.stream().map(ReservationRef::getHostId).distinct().toList()) {
+            read |= refreshHost(built, hostId);
+        }
+        return read;
     }
 
     /**
-     * See line 133
+     * Reads a Host file if its version differs from the version its stays were recorded
+     * from, so the read patches it into the indexes. A Host whose lock is held by a writer
+     * of this process is skipped: its mutation patches the indexes itself, and a change
+     * made to it by another process is picked up on a later use.
+     *
+     * @param built - the indexes
+     * @param hostId - id of the Host
+     * @return true if the Host file was read
      */
-    @Override
-    public boolean delete(Reservation r) throws DataException {
-        return new HostReservationFileRepository(r.getHost()).delete(r);
+    private boolean refreshHost(ReservationIndexes built, String hostId) {
+        Host h = new Host(hostId);
+        long version = HostFileLock.version(new HostReservationFileRepository(h).getFilePath());
+        if (version < 0 || version == built.version(hostId)) {
+            return false;
+        }
+        Lock lock = lockOf(hostId).readLock();
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            read(h);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the guest and date indexes; both are rebuilt from the files on next use. An
+     * index being built while they are dropped is not published, since it may have been
+     * built from the state that made them stale, and is built again instead.
+     */
+    private void invalidateIndexes() {
+        synchronized (indexLock) {
+            indexGeneration++;
+            indexes = null;
+        }
+    }
+
+    /**
+     * Reads Host files under the read lock of each Host without caching them. The files
+     * are read on the I/O pool, and the calling thread reads any file no pool thread has
+     * started on, so the call completes even while the pool is busy or shut down.
+     *
+     * @param hosts - Host whose files are read
+     * @return the HostReservations of each Host by id
+     */
+    private Map<String, HostReservations> readUncached(Collection<Host> hosts) {
+        ArrayList<FutureTask<HostReservations>> reads = new ArrayList<>(hosts.size());
+        for (Host h : hosts) {
+            reads.add(new FutureTask<>(() -> {
+                Lock lock = lockOf(h.getId()).readLock();
+                lock.lock();
+                try {
+                    return read(h);
+                } finally {
+                    lock.unlock();
+                }
+            }));
+        }
+        if (reads.size() > 1) {
+            Executor executor = ioExecutor();
+            for (FutureTask<HostReservations> read : reads.subList(1, reads.size())) {
+                try {
+                    executor.execute(read);
+                } catch (RejectedExecutionException ex) {
+                    break; // read below on the calling thread
+                }
+            }
+        }
+        HashMap<String, HostReservations> states = new HashMap<>();
+        int i = 0;
+        for (Host h : hosts) {
+            FutureTask<HostReservations> read = reads.get(i++);
+            read.run(); // does nothing if a pool thread started it
+            try {
+                states.put(h.getId(), read.get());
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Visits the state of every Host, cached, or read from its file if it is not cached;
+     * files read here are not cached, so building the indexes does not evict the working
+     * set. Called with the directory lock held exclusively, so no Host file changes in this
+     * process while it runs.
+     *
+     * @param action - called with the Host id and its state
+     */
+    private void forEachHost(BiConsumer<String, HostReservations> action) {
+        Map<String, HostReservations> cached = cache.entries();
+        for (String hostId : findHostIds()) {
+            HostReservations state = cached.get(hostId);
+            if (state == null) {
+                state = read(new Host(hostId));
+            }
+            action.accept(hostId, state);
+        }
+    }
+
+    /**
+     * @param refs - stays from an index
+     * @return a Reservation of each stay by check-in, with a Host and Guest holding only their ids
+     */
+    private static List<Reservation> toReservations(List<ReservationRef> refs) {
+        ArrayList<Reservation> result = new ArrayList<>(refs.size());
+        for (ReservationRef ref : refs) {
+            result.add(ref.toReservation());
+        }
+        result.sort(Comparator.comparing(Reservation::getCheckIn));
+        return result;
+    }
+
+    /**
+     * Caches the state of a Host read from the snapshot if the Host is not cached yet and
+     * its csv file, once any batched write of it is done, still has the fingerprint the
+     * snapshot recorded.
+     *
+     * @param file - repository of the Host file
+     * @param fingerprint - fingerprint of the Host file when the snapshot was taken
+     * @param state - state of the Host recorded in the snapshot
+     * @return true if the state was cached
+     */
+    private boolean restore(HostReservationFileRepository file, Fingerprint fingerprint,
+                            HostReservations state) throws IOException {
+        String hostId = file.h.getId();
+        Lock lock = lockOf(hostId).writeLock();
+        lock.lock();
+        try {
+            if (cache.contains(hostId)) {
+                return false;
+            }
+            Path path = Paths.get(file.getFilePath());
+            GroupCommitWriter pendingWriter = writer;
+            if (pendingWriter != null) {
+                pendingWriter.whenWritten(path).exceptionally(ex -> null).join();
+            }
+            long version = versionOf(file.getFilePath());
+            return fingerprint.matches(Fingerprint.of(path), path) && cache.putIfAbsent(hostId, new HostReservations(
+                    state.getReservations(), state.getNextId(), state.getRecords(), null, null, version));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the group commit writer, starting it on first use if group commit is enabled
+     *
+     * @return the GroupCommitWriter, or null if writes are synchronous, as they are with
+     *         file locking
+     */
+    private synchronized GroupCommitWriter getWriter() {
+        if (groupCommit && !fileLocking && writer == null) {
+            writer = new GroupCommitWriter(groupCommitWindowMillis, groupCommitMaxBatch);
+        }
+        return writer;
+    }
+
+    /**
+     * Drops the cached state of a Host, and the guest and date indexes, if a batched write
+     * of its file fails, so the next read sees what is actually on disk. It is called once
+     * the mutation cached its new state, so a write that already failed still drops it.
+     *
+     * @param h - Host whose file was written
+     * @param written - completion handle of the write
+     * @return a handle completed once the write is done and, if it failed, the state dropped
+     */
+    private CompletableFuture<Void> invalidateOnFailure(Host h, CompletableFuture<Void> written) {
+        return written.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                cache.invalidate(h.getId());
+                invalidateIndexes();
+            }
+        });
+    }
+
+    /**
+     * Writes a mutation to the Host file and, once the write succeeded, to the cache. In
+     * append-only mode only the changed record is appended, otherwise the file is rewritten.
+     *
+     * @param h - Host whose Reservation are written
+     * @param current - state of the Host before the mutation
+     * @param reservations - every live Reservation of the Host after the mutation
+     * @param changed - the added or updated Reservation, or the tombstone of a deleted one
+     */
+    private void commit(Host h, HostReservations current, List<Reservation> reservations, Reservation changed)
+            throws DataException {
+        HostReservationFileRepository file = new HostReservationFileRepository(h);
+        int nextId = Math.max(current.getNextId(), changed.getId() + 1);
+        boolean deleted = changed.getCheckIn() == null;
+        ReservationIntervals intervals = current.getBuiltIntervals();
+        if (intervals != null) {
+            intervals = deleted ? intervals.without(changed.getId()) : intervals.with(changed);
+        }
+        ReservationOccupancy occupancy = current.getBuiltOccupancy();
+        if (occupancy != null) {
+            Reservation previous = current.getReservations().stream()
+                    .filter(r -> r.getId() == changed.getId())
+                    .findFirst()
+                    .orElse(null);
+            occupancy = occupancy.apply(previous, deleted ? null : changed, reservations);
+        }
+        if (appendOnly) {
+            writeChecked(file, current, () -> file.append(List.of(changed)));
+            HostReservations next = new HostReservations(reservations, nextId, current.getRecords() + 1,
+                    intervals, occupancy, current.getVersion() + 1);
+            cache.put(h.getId(), next);
+            scheduleCompaction(h, next);
+        } else {
+            List<Reservation> records = rewriteRecords(reservations, nextId);
+            writeChecked(file, current, () -> file.writeAll(records));
+            cache.put(h.getId(), new HostReservations(reservations, nextId, records.size(),
+                    intervals, occupancy, current.getVersion() + 1));
+        }
+        ReservationIndexes built = indexes;
+        if (built != null) {
+            built.apply(h.getId(), current.getVersion() + 1, changed);
+        }
+    }
+
+    /**
+     * Writes new Reservation to a Host with one write of its file. The interval index and
+     * occupancy bitmap are built again on first use rather than derived once per Reservation.
+     *
+     * @param h - Host whose Reservation are written
+     * @param current - state of the Host before the mutation
+     * @param reservations - every live Reservation of the Host after the mutation
+     * @param added - the added Reservation, with their ids in increasing order
+     */
+    private void commitAll(Host h, HostReservations current, List<Reservation> reservations,
+                           List<Reservation> added) throws DataException {
+        HostReservationFileRepository file = new HostReservationFileRepository(h);
+        int nextId = Math.max(current.getNextId(), added.get(added.size() - 1).getId() + 1);
+        if (appendOnly) {
+            writeChecked(file, current, () -> file.append(added));
+            HostReservations next = new HostReservations(reservations, nextId, current.getRecords() + added.size(),
+                    null, null, current.getVersion() + 1);
+            cache.put(h.getId(), next);
+            scheduleCompaction(h, next);
+        } else {
+            List<Reservation> records = rewriteRecords(reservations, nextId);
+            writeChecked(file, current, () -> file.writeAll(records));
+            cache.put(h.getId(), new HostReservations(reservations, nextId, records.size(), null, null,
+                    current.getVersion() + 1));
+        }
+        ReservationIndexes built = indexes;
+        if (built != null) {
+            built.applyAll(h.getId(), current.getVersion() + 1, added);
+        }
+    }
+
+    /**
+     * Writes a new Reservation to a Host, handing out its id
+     *
+     * @param r - Reservation to be added; its id is set
+     * @param current - state of the Host before the mutation
+     */
+    private void insert(Reservation r, HostReservations current) throws DataException {
+        r.setId(current.getNextId());
+        Reservation stored = copy(r, r.getHost());
+        ArrayList<Reservation> all = new ArrayList<>(current.getReservations());
+        all.add(stored);
+        commit(r.getHost(), current, all, stored);
+    }
+
+    /**
+     * Writes a new version of an existing Reservation of a Host
+     *
+     * @param r - Reservation to be updated
+     * @param current - state of the Host before the mutation
+     * @return true if the Host had a Reservation with the id of r
+     */
+    private boolean replace(Reservation r, HostReservations current) throws DataException {
+        ArrayList<Reservation> all = new ArrayList<>(current.getReservations());
+        for (int i = 0; i < all.size(); i++) {
+            if (all.get(i).getId() == r.getId()) {
+                Reservation stored = copy(r, r.getHost());
+                all.set(i, stored);
+                commit(r.getHost(), current, all, stored);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues a background compaction of a Host file once its share of dead records
+     * reaches the compaction threshold; a Host is queued at most once at a time.
+     *
+     * @param h - Host whose file may be compacted
+     * @param state - state of the Host just written
+     */
+    private void scheduleCompaction(Host h, HostReservations state) {
+        int deadRecords = state.getDeadRecords();
+        if (deadRecords == 0 || deadRecords < compactionThreshold * state.getRecords()
+                || !pendingCompactions.add(h.getId())) {
+            return;
+        }
+        getCompactor().execute(() -> {
+            pendingCompactions.remove(h.getId());
+            try {
+                compact(h);
+            } catch (DataException ex) {
+                // the file is still valid; the next mutation schedules another attempt
+            }
+        });
+    }
+
+    /**
+     * Gets the background compactor, starting it on first use
+     *
+     * @return the single thread ExecutorService compacting Host files
+     */
+    private synchronized ExecutorService getCompactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "reservation-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    /**
+     * Copies a Reservation so instances held by the cache are never shared with callers;
+     * the Guest is reduced to its id, as it is when read from the file.
+     *
+     * @param r - Reservation to copy
+     * @param h - Host to attach to the copy
+     * @return a new Reservation with the same data
+     */
+    private static Reservation copy(Reservation r, Host h) {
+        Reservation copy = new Reservation();
+        copy.setId(r.getId());
+        copy.setCheckIn(r.getCheckIn());
+        copy.setCheckOut(r.getCheckOut());
+        copy.setHost(h);
+        copy.setGuest(new Guest(r.getGuest().getId()));
+        copy.setTotalCents(r.isPriced() ? r.getTotalCents() : Reservation.UNPRICED);
+        return copy;
+    }
+
+    /**
+     * Gets the records a rewrite of a Host file consists of: its live Reservation,
+     * followed by the tombstone of the highest id handed out if that Reservation was
+     * deleted, so the id is not handed out again once the file is read back
+     *
+     * @param reservations - every live Reservation of the Host
+     * @param nextId - next id the Host hands out
+     * @return the records to write, in order
+     */
+    private static List<Reservation> rewriteRecords(List<Reservation> reservations, int nextId) {
+        if (nextId <= 1 || reservations.stream().anyMatch(r -> r.getId() == nextId - 1)) {
+            return reservations;
+        }
+        ArrayList<Reservation> records = new ArrayList<>(reservations.size() + 1);
+        records.addAll(reservations);
+        records.add(tombstone(nextId - 1));
+        return records;
+    }
+
+    /**
+     * Creates the record that marks a Reservation id as deleted in an append-only file
+     *
+     * @param id - id of the deleted Reservation
+     * @return a Reservation with only an id
+     */
+    private static Reservation tombstone(int id) {
+        Reservation tombstone = new Reservation();
+        tombstone.setId(id);
+        return tombstone;
+    }
+
+    /**
+     * A change to the Reservation of one Host, given the state of the Host before it
+     */
+    @FunctionalInterface
+    private interface Mutation<T> {
+        T apply(HostReservations current) throws DataException;
+    }
+
+    /**
+     * A write of a Host file
+     */
+    @FunctionalInterface
+    private interface FileWrite {
+        void run() throws DataException;
+    }
+
+    /**
+     * Thrown when a mutation needs the guest or date index before it is built; the
+     * mutation releases its locks, builds the index and runs again
+     */
+    private static class IndexNotBuilt extends RuntimeException {
+
+        /*
+        FIELDS
+         */
+        private final Supplier<?> build;
+
+        /*
+        CONSTRUCTOR
+         */
+        IndexNotBuilt(Supplier<?> build) {
+            super(null, null, false, false);
+            this.build = build;
+        }
     }
 
     /**
@@ -95,76 +1695,70 @@ public class ReservationFileRepository implements ReservationRepository {
             this.h = h;
             this.filePath = getFilePath(h);
             this.FIELDS = 5;
+            setReaderMode(ReservationFileRepository.this.readerMode);
         }
 
         /**
-         * Adds a Reservation to the associated Host file
-         *
-         * @param r - Reservation to be written to the file
-         * @return the Reservation with the added id to the caller
-         */
-        public Reservation add(Reservation r) throws DataException {
-            List<Reservation> all = findByHost(r.getHost());
-            r.setId(getNextId(all));
-            all.add(r);
-            writeAll(all);
-            return r;
-        }
-
-        /**
-         * Updates an existing Reservation associated with a Host
+         * Takes a CsvRecord and produces a Reservation if it has an exactly equivalent
+         * number of fields; each respective field of fields is expected to be convertible
+         * to the appropriate Guest field type. A record without dates is a tombstone.
          *
-         * @param r - Reservation to be updated
-         * @return true if the update is successful
+         * @param fields - a line of csv data holding the Reservation data
+         * @return a Reservation instance built from a line of the csv data
          */
-        public boolean update(Reservation r) throws DataException {
-            List<Reservation> all = findByHost(r.getHost());
-            for (int i = 0; i < all.size(); i++) {
-                if (all.get(i).getId() == r.getId()) {
-                    all.set(i, r);
-                    writeAll(all);
-                    return true;
-                }
+        @Override
+        protected Reservation deserialize(CsvRecord fields) {
+            if (fields.isEmpty(1)) {
+                return tombstone(fields.getInt(0));
             }
-            return false;
+            Reservation r = new Reservation();
+            r.setId(fields.getInt(0));
+            r.setCheckIn(fields.getDate(1));
+            r.setCheckOut(fields.getDate(2));
+            r.setHost(h);
+            Guest g = new Guest();
+            g.setId(fields.getInt(3));
+            r.setGuest(g);
+            if (!fields.isEmpty(4)) {
+                r.setTotalCents(fields.getCents(4));
+            }
+            return r;
         }
 
         /**
-         * Deletes an existing Reservation associated with a Host
+         * Writes a Reservation, or a tombstone without dates, to a binary snapshot
          *
-         * @param r - Reservation to be deleted
-         * @return true if delete is successful
+         * @param out - snapshot being written
+         * @param r - Reservation to write
          */
-        public boolean delete(Reservation r) throws DataException {
-            List<Reservation> all = findByHost(r.getHost());
-            for (int i = 0; i < all.size(); i++) {
-                if (all.get(i).getId() == r.getId()) {
-                    all.remove(i);
-                    writeAll(all);
-                    return true;
-                }
-            }
-            return false;
+        @Override
+        protected void writeRecord(DataOutput out, Reservation r) throws IOException {
+            out.writeInt(r.getId());
+            SnapshotFile.writeDate(out, r.getCheckIn());
+            SnapshotFile.writeDate(out, r.getCheckOut());
+            out.writeInt(r.getGuest() == null ? 0 : r.getGuest().getId());
+            out.writeLong(r.getCheckIn() == null || !r.isPriced() ? Reservation.UNPRICED : r.getTotalCents());
         }
 
         /**
-         * Takes a String[] and produces a Reservation if it has an exactly equivalent
-         * number of fields; each respective field of fields is expected to be convertible
-         * to the appropriate Guest field type.
+         * Reads a Reservation written by writeRecord
          *
-         * @param fields - parsing csv line produces a String[] of Reservation data
-         * @return a Reservation instance built from a line of the csv data
+         * @param in - snapshot being read
+         * @return the Reservation, or tombstone, read from the snapshot
          */
         @Override
-        protected Reservation deserialize(String[] fields) {
-            Reservation r = new Reservation();
-            r.setId(Integer.parseInt(fields[0]));
-            r.setCheckIn(LocalDate.parse(fields[1]));
-            r.setCheckOut(LocalDate.parse(fields[2]));
-            r.setHost(h);
-            Guest g = new Guest();
-            g.setId(Integer.parseInt(fields[3]));
-            r.setGuest(g);
+        protected Reservation readRecord(DataInput in) throws IOException {
+            int id = in.readInt();
+            Reservation r = tombstone(id);
+            r.setCheckIn(SnapshotFile.readDate(in));
+            r.setCheckOut(SnapshotFile.readDate(in));
+            int guestId = in.readInt();
+            long totalCents = in.readLong();
+            if (r.getCheckIn() != null) {
+                r.setHost(h);
+                r.setGuest(new Guest(guestId));
+                r.setTotalCents(totalCents);
+            }
             return r;
         }
 
@@ -175,21 +1769,166 @@ public class ReservationFileRepository implements ReservationRepository {
          * @return String to be written to the data file
          */
         private String serialize(Reservation r) {
+            if (r.getCheckIn() == null) {
+                return r.getId() + ",,,,";
+            }
             return String.format("%s,%s,%s,%s,%s",
                     r.getId(),
                     r.getCheckIn(),
                     r.getCheckOut(),
                     r.getGuest().getId(),
-                    r.getTotal());
+                    Money.format(r.getTotalCents()));
+        }
+
+        /**
+         * Reads every record of the Host file; later records of an id replace earlier
+         * ones and tombstones remove the id, so only the latest version of each live
+         * Reservation is kept, in the position of its first record.
+         *
+         * @param version - version of the file, read before the file
+         * @return the HostReservations of the file
+         */
+        private HostReservations read(long version) {
+            List<Reservation> records = findAll();
+            LinkedHashMap<Integer, Reservation> live = new LinkedHashMap<>();
+            int maxId = 0;
+            for (Reservation r : records) {
+                maxId = Math.max(maxId, r.getId());
+                if (r.getCheckIn() == null) {
+                    live.remove(r.getId());
+                } else {
+                    live.put(r.getId(), r);
+                }
+            }
+            return new HostReservations(new ArrayList<>(live.values()), maxId + 1, records.size(), null, null,
+                    version);
+        }
+
+        /**
+         * Streams the Host file to a temporary file, rewriting the total of each record
+         * that checks in on or after a date as priced from the current rates of the Host,
+         * then atomically replaces the file if any total was rewritten
+         *
+         * @param from - first check-in date to reprice
+         * @param pricing - prices a Reservation, holding the Host with its current rates
+         * @return the number of records whose total was rewritten
+         */
+        private int reprice(LocalDate from, ToLongFunction<Reservation> pricing) throws DataException {
+            Path path = Paths.get(filePath);
+            if (!Files.exists(path)) {
+                return 0;
+            }
+            Path temp = Paths.get(filePath + ".tmp");
+            Reservation stay = new Reservation();
+            stay.setHost(h);
+            int repriced = 0;
+            try (BufferedReader reader = Files.newBufferedReader(path);
+                 BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                String line = reader.readLine();
+                if (line != null) { // header
+                    writer.write(line);
+                    writer.newLine();
+                    line = reader.readLine();
+                }
+                while (line != null) {
+                    String[] fields = line.split(",", -1);
+                    if (fields.length == FIELDS && !fields[1].isEmpty() && fields[1].compareTo(from.toString()) >= 0) {
+                        stay.setCheckIn(LocalDate.parse(fields[1]));
+                        stay.setCheckOut(LocalDate.parse(fields[2]));
+                        String total = Money.format(pricing.applyAsLong(stay));
+                        if (!total.equals(fields[4])) {
+                            line = line.substring(0, line.lastIndexOf(',') + 1) + total;
+                            repriced++;
+                        }
+                    }
+                    writer.write(line);
+                    writer.newLine();
+                    line = reader.readLine();
+                }
+            } catch (IOException | RuntimeException ex) {
+                throw new DataException(ex.getMessage(), ex);
+            }
+            try {
+                if (repriced == 0) {
+                    Files.delete(temp);
+                } else {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException ex) {
+                throw new DataException(ex.getMessage(), ex);
+            }
+            return repriced;
+        }
+
+        /**
+         * Appends serialized records to the Host file, creating the file with its
+         * header if it does not exist yet
+         *
+         * @param records - Reservation, or tombstones, to append in order
+         */
+        private void append(List<Reservation> records) throws DataException {
+            Path path = Paths.get(filePath);
+            ArrayList<String> lines = new ArrayList<>(records.size());
+            records.forEach(r -> lines.add(serialize(r)));
+            GroupCommitWriter batched = getWriter();
+            if (batched != null) {
+                batchedWrites.put(h.getId(), batched.append(path, HEADER, lines));
+                return;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (Files.size(path) == 0) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            } catch (IOException ex) {
+                throw new DataException(ex.getMessage(), ex);
+            }
+        }
+
+        /**
+         * Writes the Reservation to a temporary file that then atomically replaces the
+         * Host file, so readers never observe a partially written file
+         *
+         * @param reservations - Reservation instances, or tombstones, to be serialized and parsed
+         */
+        private void replaceAll(List<Reservation> reservations) throws DataException {
+            Path path = Paths.get(filePath);
+            GroupCommitWriter batched = getWriter();
+            if (batched != null) {
+                batchedWrites.put(h.getId(), batched.replace(path, lines(reservations)));
+                return;
+            }
+            Path temp = Paths.get(filePath + ".tmp");
+            try (PrintWriter writer = new PrintWriter(temp.toFile(), StandardCharsets.UTF_8)) {
+                writer.println(HEADER);
+                reservations.forEach(r -> writer.println(serialize(r)));
+            } catch (IOException ex) {
+                throw new DataException(ex.getMessage(), ex);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                throw new DataException(ex.getMessage(), ex);
+            }
         }
 
         /**
-         * Overwrites the existing host file with fresh serialized Reservation instances
+         * Overwrites the existing host file with fresh serialized Reservation instances; the
+         * file is replaced atomically when other processes may read it
          *
-         * @param reservations - Reservation instances to be serialized and parsed
+         * @param reservations - Reservation instances, or tombstones, to be serialized and parsed
          */
         private void writeAll(List<Reservation> reservations) throws DataException {
-            try (PrintWriter writer = new PrintWriter(filePath)) {
+            if (getWriter() != null || fileLocking) {
+                replaceAll(reservations);
+                return;
+            }
+            try (PrintWriter writer = new PrintWriter(filePath, StandardCharsets.UTF_8)) {
                 writer.println(HEADER);
                 reservations.forEach(r -> writer.println(serialize(r)));
             } catch (IOException ex) {
@@ -198,18 +1937,20 @@ public class ReservationFileRepository implements ReservationRepository {
         }
 
         /**
-         * Returns a unique id to be attached to a Reservation that is specific to a
-         * Host; Differing Host files may have the same Reservation id.
+         * Serializes the complete content of a Host file
          *
-         * @param reservations - List<Reservation> which is used to get the largest
-         *                     current id
-         * @return - the previous maximum id incremented by 1
+         * @param reservations - Reservation instances to be serialized
+         * @return the header followed by one line per Reservation
          */
-        private int getNextId(List<Reservation> reservations) {
-            return reservations.stream()
-                    .map(Reservation::getId)
-                    .reduce(Integer::max)
-                    .orElse(0) + 1;
+        private List<String> lines(List<Reservation> reservations) {
+            ArrayList<String> lines = new ArrayList<>(reservations.size() + 1);
+            lines.add(HEADER);
+            reservations.forEach(r -> lines.add(serialize(r)));
+            return lines;
+        }
+
+        private String getFilePath() {
+            return filePath;
         }
 
         /**
@@ -224,4 +1965,4 @@ public class ReservationFileRepository implements ReservationRepository {
         }
 
     }
-}
\ No newline at end of file
+}
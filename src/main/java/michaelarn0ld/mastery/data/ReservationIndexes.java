@@ -0,0 +1,140 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The guest and date indexes of every Host file, with the stays recorded of each Host and
+ * the version of its file they were recorded from. A Host file changed elsewhere is
+ * patched in by replacing the stays of that Host alone, so no change requires the indexes
+ * to be rebuilt from every file. Changes of a Host are serialized on its record, so
+ * patches of different Host run concurrently.
+ */
+final class ReservationIndexes {
+
+    /*
+    FIELDS
+     */
+    static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    private final GuestReservationIndex guests = new GuestReservationIndex();
+    private final ReservationDateIndex dates = new ReservationDateIndex();
+    private final ConcurrentHashMap<String, IndexedHost> hosts = new ConcurrentHashMap<>();
+
+    /*
+    GETTERS
+     */
+    GuestReservationIndex guests() {
+        return guests;
+    }
+
+    ReservationDateIndex dates() {
+        return dates;
+    }
+
+    /**
+     * @param hostId - id of a Host
+     * @return the version of the Host file the stays of the Host were recorded from, or
+     *         NOT_INDEXED if the Host is not recorded
+     */
+    long version(String hostId) {
+        IndexedHost indexed = hosts.get(hostId);
+        return indexed == null ? NOT_INDEXED : indexed.version;
+    }
+
+    /**
+     * Records the stays of a Host as of a version of its file, replacing every stay
+     * recorded of the Host, unless a version at least as new is already recorded
+     *
+     * @param hostId - id of the Host
+     * @param version - version of the Host file the Reservation were read from
+     * @param reservations - every live Reservation of the Host
+     * @param force - true to replace a record of the same version, e.g. once the file was
+     *              rewritten in place without a new version
+     */
+    void index(String hostId, long version, List<Reservation> reservations, boolean force) {
+        hosts.compute(hostId, (id, indexed) -> {
+            if (indexed != null && (force ? indexed.version > version : indexed.version >= version)) {
+                return indexed;
+            }
+            if (indexed != null) {
+                indexed.refs.forEach(this::forget);
+            }
+            ArrayList<ReservationRef> refs = new ArrayList<>(reservations.size());
+            for (Reservation r : reservations) {
+                refs.add(record(ReservationRef.of(hostId, r)));
+            }
+            return new IndexedHost(version, List.copyOf(refs));
+        });
+    }
+
+    /**
+     * Records a change written to a Host file by this process
+     *
+     * @param hostId - id of the Host
+     * @param version - version of the Host file written
+     * @param changed - the added or updated Reservation, or the tombstone of a deleted one
+     */
+    void apply(String hostId, long version, Reservation changed) {
+        applyAll(hostId, version, List.of(changed));
+    }
+
+    /**
+     * Records changes written to a Host file by this process with one write
+     *
+     * @param hostId - id of the Host
+     * @param version - version of the Host file written
+     * @param changed - the added or updated Reservation, or tombstones of deleted ones
+     */
+    void applyAll(String hostId, long version, List<Reservation> changed) {
+        hosts.compute(hostId, (id, indexed) -> {
+            ArrayList<ReservationRef> refs = new ArrayList<>(indexed == null ? List.of() : indexed.refs);
+            for (Reservation r : changed) {
+                for (int i = 0; i < refs.size(); i++) {
+                    if (refs.get(i).refersTo(hostId, r.getId())) {
+                        forget(refs.remove(i));
+                        break;
+                    }
+                }
+                if (r.getCheckIn() != null) {
+                    refs.add(record(ReservationRef.of(hostId, r)));
+                }
+            }
+            return new IndexedHost(version, List.copyOf(refs));
+        });
+    }
+
+    private ReservationRef record(ReservationRef ref) {
+        guests.add(ref);
+        dates.add(ref);
+        return ref;
+    }
+
+    private void forget(ReservationRef ref) {
+        guests.remove(ref);
+        dates.remove(ref);
+    }
+
+    /**
+     * The stays recorded of a Host and the version of its file they were recorded from
+     */
+    private static final class IndexedHost {
+
+        /*
+        FIELDS
+         */
+        private final long version;
+        private final List<ReservationRef> refs;
+
+        /*
+        CONSTRUCTOR
+         */
+        IndexedHost(long version, List<ReservationRef> refs) {
+            this.version = version;
+            this.refs = refs;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable index of the stays of one Host as [check-in, check-out) epoch day intervals,
+ * sorted by check-in. Alongside the sorted intervals it keeps, for every prefix, the
+ * latest check-out and the latest check-out of any other interval, so an overlap query
+ * is one binary search: the intervals that start before the queried check-out form a
+ * prefix, and one of them overlaps iff its latest check-out, ignoring the excluded id,
+ * is after the queried check-in.
+ */
+final class ReservationIntervals {
+
+    /*
+    FIELDS
+     */
+    static final ReservationIntervals EMPTY = new ReservationIntervals(new int[0], new int[0], new int[0]);
+
+    private final int[] checkIns;
+    private final int[] checkOuts;
+    private final int[] ids;
+    private final int[] maxCheckOut;
+    private final int[] maxPosition;
+    private final int[] secondCheckOut;
+
+    /*
+    CONSTRUCTOR
+     */
+    private ReservationIntervals(int[] checkIns, int[] checkOuts, int[] ids) {
+        this.checkIns = checkIns;
+        this.checkOuts = checkOuts;
+        this.ids = ids;
+        int n = ids.length;
+        this.maxCheckOut = new int[n];
+        this.maxPosition = new int[n];
+        this.secondCheckOut = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || checkOuts[i] > maxCheckOut[i - 1]) {
+                maxCheckOut[i] = checkOuts[i];
+                maxPosition[i] = i;
+                secondCheckOut[i] = i == 0 ? Integer.MIN_VALUE : maxCheckOut[i - 1];
+            } else {
+                maxCheckOut[i] = maxCheckOut[i - 1];
+                maxPosition[i] = maxPosition[i - 1];
+                secondCheckOut[i] = Math.max(secondCheckOut[i - 1], checkOuts[i]);
+            }
+        }
+    }
+
+    /**
+     * Builds the index of the Reservation of a Host
+     *
+     * @param reservations - live Reservation of the Host, in any order
+     * @return the ReservationIntervals of the Reservation
+     */
+    static ReservationIntervals of(List<Reservation> reservations) {
+        int n = reservations.size();
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (long) epochDay(reservations.get(i).getCheckIn()) << 32 | i;
+        }
+        Arrays.sort(sorted);
+        int[] checkIns = new int[n];
+        int[] checkOuts = new int[n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            Reservation r = reservations.get((int) sorted[i]);
+            checkIns[i] = epochDay(r.getCheckIn());
+            checkOuts[i] = epochDay(r.getCheckOut());
+            ids[i] = r.getId();
+        }
+        return new ReservationIntervals(checkIns, checkOuts, ids);
+    }
+
+    /**
+     * Checks whether [checkIn, checkOut) overlaps the stay of any Reservation but one
+     *
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param excludeId - id of a Reservation to ignore, e.g. the one being updated
+     * @return true if another Reservation overlaps the stay
+     */
+    boolean overlaps(LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        int starting = lowerBound(epochDay(checkOut));
+        if (starting == 0) {
+            return false;
+        }
+        int last = starting - 1;
+        int latest = ids[maxPosition[last]] == excludeId ? secondCheckOut[last] : maxCheckOut[last];
+        return latest > epochDay(checkIn);
+    }
+
+    /**
+     * Derives the index after a Reservation is added or updated
+     *
+     * @param r - the added or updated Reservation
+     * @return a new index holding r in place of any earlier interval with its id
+     */
+    ReservationIntervals with(Reservation r) {
+        ReservationIntervals base = without(r.getId());
+        int checkIn = epochDay(r.getCheckIn());
+        int position = base.lowerBound(checkIn);
+        return new ReservationIntervals(
+                insert(base.checkIns, position, checkIn),
+                insert(base.checkOuts, position, epochDay(r.getCheckOut())),
+                insert(base.ids, position, r.getId()));
+    }
+
+    /**
+     * Derives the index after a Reservation is deleted
+     *
+     * @param id - id of the deleted Reservation
+     * @return a new index without the interval of id, or this index if it has none
+     */
+    ReservationIntervals without(int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return new ReservationIntervals(remove(checkIns, i), remove(checkOuts, i), remove(ids, i));
+            }
+        }
+        return this;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the number of intervals that start before epochDay
+     */
+    private int lowerBound(int epochDay) {
+        int low = 0;
+        int high = checkIns.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (checkIns[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] insert(int[] values, int position, int value) {
+        int[] copy = new int[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, position);
+        copy[position] = value;
+        System.arraycopy(values, position, copy, position + 1, values.length - position);
+        return copy;
+    }
+
+    private static int[] remove(int[] values, int position) {
+        int[] copy = new int[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, position);
+        System.arraycopy(values, position + 1, copy, position, values.length - position - 1);
+        return copy;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+}
@@ -0,0 +1,115 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable occupancy bitmap of one Host over a horizon of nights: bit i is set when the
+ * night of epoch day baseDay + i is booked. A stay within the horizon is free when no bit
+ * of its nights is set.
+ */
+final class ReservationOccupancy {
+
+    /*
+    FIELDS
+     */
+    private final long baseDay;
+    private final int days;
+    private final BitSet nights;
+
+    /*
+    CONSTRUCTOR
+     */
+    private ReservationOccupancy(long baseDay, int days, BitSet nights) {
+        this.baseDay = baseDay;
+        this.days = days;
+        this.nights = nights;
+    }
+
+    /**
+     * Builds the bitmap of the Reservation of a Host
+     *
+     * @param reservations - live Reservation of the Host
+     * @param baseDay - epoch day of the first night of the horizon
+     * @param days - number of nights in the horizon
+     * @return the ReservationOccupancy of the Reservation
+     */
+    static ReservationOccupancy of(List<Reservation> reservations, long baseDay, int days) {
+        ReservationOccupancy occupancy = new ReservationOccupancy(baseDay, days, new BitSet(days));
+        reservations.forEach(occupancy::book);
+        return occupancy;
+    }
+
+    long getBaseDay() {
+        return baseDay;
+    }
+
+    /**
+     * @return true if every night of [fromDay, toDay) is within the horizon
+     */
+    boolean covers(long fromDay, long toDay) {
+        return fromDay >= baseDay && toDay <= baseDay + days;
+    }
+
+    /**
+     * Checks a stay that the horizon covers
+     *
+     * @param fromDay - epoch day of the first night
+     * @param toDay - epoch day the stay ends
+     * @return true if none of the nights is booked
+     */
+    boolean isFree(long fromDay, long toDay) {
+        int booked = nights.nextSetBit((int) (fromDay - baseDay));
+        return booked < 0 || booked >= toDay - baseDay;
+    }
+
+    /**
+     * Derives the bitmap after a mutation: the nights of the previous version are
+     * released, then booked again where another live Reservation still covers them, and
+     * the nights of the new version are booked
+     *
+     * @param previous - the replaced or deleted Reservation, or null after an add
+     * @param changed - the added or updated Reservation, or null after a delete
+     * @param live - every live Reservation of the Host after the mutation
+     * @return a new ReservationOccupancy
+     */
+    ReservationOccupancy apply(Reservation previous, Reservation changed, List<Reservation> live) {
+        ReservationOccupancy next = new ReservationOccupancy(baseDay, days, (BitSet) nights.clone());
+        if (previous != null) {
+            long from = previous.getCheckIn().toEpochDay();
+            long to = previous.getCheckOut().toEpochDay();
+            next.release(from, to);
+            for (Reservation r : live) {
+                if (r.getCheckIn().toEpochDay() < to && r.getCheckOut().toEpochDay() > from) {
+                    next.book(r);
+                }
+            }
+        }
+        if (changed != null) {
+            next.book(changed);
+        }
+        return next;
+    }
+
+    /**
+     * Sets the bits of the nights of a Reservation within the horizon; only called
+     * before the bitmap is published
+     */
+    private void book(Reservation r) {
+        long from = Math.max(r.getCheckIn().toEpochDay(), baseDay);
+        long to = Math.min(r.getCheckOut().toEpochDay(), baseDay + days);
+        if (from < to) {
+            nights.set((int) (from - baseDay), (int) (to - baseDay));
+        }
+    }
+
+    private void release(long fromDay, long toDay) {
+        long from = Math.max(fromDay, baseDay);
+        long to = Math.min(toDay, baseDay + days);
+        if (from < to) {
+            nights.clear((int) (from - baseDay), (int) (to - baseDay));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * Where a stay is recorded: the Host file and the Reservation id within it, with the
+ * Guest and dates of the stay
+ */
+final class ReservationRef {
+
+    /*
+    FIELDS
+     */
+    private final String hostId;
+    private final int reservationId;
+    private final int guestId;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final long totalCents;
+
+    /*
+    CONSTRUCTOR
+     */
+    ReservationRef(String hostId, int reservationId, int guestId, LocalDate checkIn, LocalDate checkOut) {
+        this(hostId, reservationId, guestId, checkIn, checkOut, Reservation.UNPRICED);
+    }
+
+    ReservationRef(String hostId, int reservationId, int guestId, LocalDate checkIn, LocalDate checkOut,
+                   long totalCents) {
+        this.hostId = hostId;
+        this.reservationId = reservationId;
+        this.guestId = guestId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * @param hostId - id of the Host the Reservation belongs to
+     * @param r - a live Reservation
+     * @return the ReservationRef of r
+     */
+    static ReservationRef of(String hostId, Reservation r) {
+        return new ReservationRef(hostId, r.getId(), r.getGuest().getId(), r.getCheckIn(), r.getCheckOut(),
+                r.isPriced() ? r.getTotalCents() : Reservation.UNPRICED);
+    }
+
+    /*
+    GETTERS
+     */
+    String getHostId() {
+        return hostId;
+    }
+
+    int getReservationId() {
+        return reservationId;
+    }
+
+    int getGuestId() {
+        return guestId;
+    }
+
+    LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    boolean refersTo(String hostId, int reservationId) {
+        return this.reservationId == reservationId && this.hostId.equals(hostId);
+    }
+
+    /**
+     * @return a Reservation of the stay, with a Host and Guest holding only their ids
+     */
+    Reservation toReservation() {
+        Reservation r = new Reservation();
+        r.setId(reservationId);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkOut);
+        r.setHost(new Host(hostId));
+        r.setGuest(new Guest(guestId));
+        r.setTotalCents(totalCents);
+        return r;
+    }
+}
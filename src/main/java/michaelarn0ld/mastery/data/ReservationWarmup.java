@@ -0,0 +1,144 @@
+package michaelarn0ld.mastery.data;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the Host files of a ReservationFileRepository into its cache in parallel, in the
+ * background, so the application can serve requests while the load is running. At most
+ * as many Host files as the cache holds entries are loaded. With snapshots enabled, Host
+ * files that did not change since the last snapshot are restored from it, and the
+ * snapshot is saved again once any Host file had to be parsed.
+ */
+public class ReservationWarmup {
+
+    /*
+    FIELDS
+     */
+    private final ReservationFileRepository repository;
+    private final int threads;
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger parsed = new AtomicInteger();
+    private volatile int total = -1;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile Throwable failure;
+    private CompletableFuture<Void> done;
+
+    /*
+    CONSTRUCTOR
+     */
+    public ReservationWarmup(ReservationFileRepository repository, int threads) {
+        this.repository = repository;
+        this.threads = threads;
+    }
+
+    /**
+     * Starts loading every Host file on a pool of daemon threads; calling it again
+     * returns the load already started
+     *
+     * @return a handle completed once every Host file is loaded
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (done != null) {
+            return done;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "reservation-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startNanos = System.nanoTime();
+        done = CompletableFuture.supplyAsync(() -> {
+                    repository.loadSnapshot();
+                    return repository.findHostIds();
+                }, executor)
+                .thenCompose(hostIds -> {
+                    List<String> toLoad = hostIds.subList(0,
+                            Math.min(hostIds.size(), repository.getCache().getMaxEntries()));
+                    total = toLoad.size();
+                    return CompletableFuture.allOf(toLoad.stream()
+                            .map(hostId -> CompletableFuture.runAsync(() -> {
+                                if (repository.preload(hostId)) {
+                                    parsed.incrementAndGet();
+                                }
+                                loaded.incrementAndGet();
+                            }, executor))
+                            .toArray(CompletableFuture[]::new));
+                })
+                .thenRun(() -> {
+                    if (parsed.get() > 0) {
+                        repository.saveSnapshot();
+                    }
+                })
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    }
+                    endNanos = System.nanoTime();
+                    executor.shutdown();
+                });
+        return done;
+    }
+
+    /*
+    PROGRESS
+     */
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    /**
+     * @return the number of Host files parsed from csv rather than restored from the
+     *         snapshot or already cached
+     */
+    public int getParsed() {
+        return parsed.get();
+    }
+
+    /**
+     * @return the number of Host files to load, or -1 while they are still being listed
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public synchronized boolean isStarted() {
+        return done != null;
+    }
+
+    public synchronized boolean isDone() {
+        return done != null && done.isDone();
+    }
+
+    /**
+     * @return true once the load has stopped on a failure; Host files loaded before it
+     *         stay cached
+     */
+    public synchronized boolean isFailed() {
+        return done != null && done.isCompletedExceptionally();
+    }
+
+    /**
+     * @return what the load failed on, or null while it is running or if it succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return the time spent loading so far, or in total once the load is done
+     */
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = isDone() ? endNanos : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+}
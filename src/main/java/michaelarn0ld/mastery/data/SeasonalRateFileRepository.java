@@ -0,0 +1,156 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.abstractions.FileRepository;
+import michaelarn0ld.mastery.data.contracts.SeasonalRateRepository;
+import michaelarn0ld.mastery.data.csv.CsvRecord;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
+import michaelarn0ld.mastery.models.Money;
+import michaelarn0ld.mastery.models.SeasonalRate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the seasonal rates of every Host in one csv file, in the order they take
+ * precedence. The file is read once and rewritten whole, through a temporary file that
+ * atomically replaces it, whenever the rates of a Host change.
+ */
+public class SeasonalRateFileRepository extends FileRepository<SeasonalRateFileRepository.Row>
+        implements SeasonalRateRepository {
+
+    /*
+    FIELDS
+     */
+    private static final String HEADER = "host_id,start,end,rate";
+
+    private volatile Map<String, List<SeasonalRate>> byHost;
+
+    /*
+    CONSTRUCTOR
+     */
+    public SeasonalRateFileRepository(String filePath) {
+        super(filePath);
+        this.FIELDS = 4;
+    }
+
+    /**
+     * @param hostId - id of a Host
+     * @return the seasonal rates of the Host, later rates taking precedence where they overlap
+     */
+    @Override
+    public List<SeasonalRate> findByHost(String hostId) {
+        return load().getOrDefault(hostId, List.of());
+    }
+
+    /**
+     * Replaces the seasonal rates of a Host in the file
+     *
+     * @param hostId - id of the Host the rates apply to
+     * @param rates - the seasonal rates, later rates taking precedence where they overlap
+     */
+    @Override
+    public synchronized void setSeasonalRates(String hostId, List<SeasonalRate> rates) throws DataException {
+        LinkedHashMap<String, List<SeasonalRate>> all = new LinkedHashMap<>(load());
+        if (rates.isEmpty()) {
+            all.remove(hostId);
+        } else {
+            all.put(hostId, List.copyOf(rates));
+        }
+        Path path = Paths.get(filePath);
+        Path temp = Paths.get(filePath + ".tmp");
+        try (PrintWriter writer = new PrintWriter(temp.toFile(), StandardCharsets.UTF_8)) {
+            writer.println(HEADER);
+            all.forEach((id, hostRates) -> hostRates.forEach(rate -> writer.printf("%s,%s,%s,%s%n",
+                    id, rate.getStart(), rate.getEnd(), Money.format(rate.getRateCents()))));
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new DataException(ex.getMessage(), ex);
+        }
+        byHost = all;
+    }
+
+    /**
+     * Reads the file on first use
+     *
+     * @return the seasonal rates of each Host
+     */
+    private Map<String, List<SeasonalRate>> load() {
+        Map<String, List<SeasonalRate>> loaded = byHost;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (byHost == null) {
+                LinkedHashMap<String, List<SeasonalRate>> all = new LinkedHashMap<>();
+                for (Row row : findAll()) {
+                    all.computeIfAbsent(row.hostId, id -> new ArrayList<>()).add(row.rate);
+                }
+                all.replaceAll((id, rates) -> List.copyOf(rates));
+                byHost = all;
+            }
+            return byHost;
+        }
+    }
+
+    /**
+     * Takes a CsvRecord and produces a Row if it has an exactly equivalent number of
+     * fields
+     *
+     * @param fields - a line of csv data holding a seasonal rate
+     * @return a Row built from a line of the csv data
+     */
+    @Override
+    protected Row deserialize(CsvRecord fields) {
+        return new Row(fields.get(0), new SeasonalRate(fields.getDate(1), fields.getDate(2), fields.getCents(3)));
+    }
+
+    @Override
+    protected void writeRecord(DataOutput out, Row row) throws IOException {
+        SnapshotFile.writeString(out, row.hostId);
+        SnapshotFile.writeDate(out, row.rate.getStart());
+        SnapshotFile.writeDate(out, row.rate.getEnd());
+        out.writeLong(row.rate.getRateCents());
+    }
+
+    @Override
+    protected Row readRecord(DataInput in) throws IOException {
+        return new Row(SnapshotFile.readString(in),
+                new SeasonalRate(SnapshotFile.readDate(in), SnapshotFile.readDate(in), in.readLong()));
+    }
+
+    /**
+     * A line of the file: a seasonal rate and the Host it applies to
+     */
+    static final class Row {
+
+        /*
+        FIELDS
+         */
+        private final String hostId;
+        private final SeasonalRate rate;
+
+        /*
+        CONSTRUCTOR
+         */
+        Row(String hostId, SeasonalRate rate) {
+            this.hostId = hostId;
+            this.rate = rate;
+        }
+    }
+}
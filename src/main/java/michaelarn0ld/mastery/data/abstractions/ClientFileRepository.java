@@ -1,27 +1,87 @@
 package michaelarn0ld.mastery.data.abstractions;
 
+import michaelarn0ld.mastery.data.snapshot.Fingerprint;
 import michaelarn0ld.mastery.models.Client;
 import michaelarn0ld.mastery.models.State;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public abstract class ClientFileRepository<T extends Client> extends FileRepository<T> {
 
+    /*
+    FIELDS
+     */
+    private volatile Loaded<T> loaded = new Loaded<>(List.of(), Map.of(), Map.of(), new EnumMap<>(State.class),
+            null, -1);
+    private volatile long version; // raised by every rewrite of the file through this repository
+
     public ClientFileRepository(String filePath) {
         super(filePath);
     }
 
     /**
-     * Finds the Client with the matching email
+     * Finds all Client from the in-memory copy of the file; the file is only parsed
+     * again when it has changed since the last load. Every Client returned is a copy, so
+     * changing it does not change what other callers find.
+     *
+     * @return all Client parsed from the file
+     */
+    @Override
+    public List<T> findAll() {
+        List<T> clients = refresh().clients;
+        ArrayList<T> copies = new ArrayList<>(clients.size());
+        clients.forEach(c -> copies.add(copy(c)));
+        return copies;
+    }
+
+    /**
+     * Finds the Client with the matching email; emails are compared case-insensitively
      *
      * @param email - unique identifier
      * @return a Client with a unique, matching email
      */
     public T findByEmail(String email) {
-        return findAll().stream()
-                .filter(c -> c.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
+        if (email == null) {
+            return null;
+        }
+        return copyOf(refresh().emailIndex.get(normalizeEmail(email)));
+    }
+
+    /**
+     * Finds the Client with the matching id
+     *
+     * @param id - id of the Client, as returned by idOf
+     * @return the Client with the id, or null if there is none
+     */
+    protected T findByKey(Object id) {
+        if (id == null) {
+            return null;
+        }
+        return copyOf(refresh().idIndex.get(id));
+    }
+
+    /**
+     * @param client - a Client of the file
+     * @return the id of the Client, unique within the file
+     */
+    protected abstract Object idOf(T client);
+
+    /**
+     * @param client - a Client of the in-memory copy of the file
+     * @return a new Client with the same data, handed to callers in place of client
+     */
+    protected abstract T copy(T client);
+
+    private T copyOf(T client) {
+        return client == null ? null : copy(client);
     }
 
     /**
@@ -31,8 +91,168 @@ public abstract class ClientFileRepository<T extends Client> extends FileReposit
      * @return a List<Client> who have a matching State
      */
     public List<T> findByState(State s) {
-        return findAll().stream()
-                .filter(c -> c.getState() == s)
-                .toList();
+        return findByState(s, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds one page of the Client with a matching State, in file order; the Client
+     * returned are copies
+     *
+     * @param s - State to match on
+     * @param offset - number of matching Client to skip
+     * @param limit - maximum number of Client to return
+     * @return a List<Client> of at most limit Client who have a matching State
+     */
+    public List<T> findByState(State s, int offset, int limit) {
+        Loaded<T> current = refresh(); // rows and positions of the same load
+        List<T> rows = current.clients;
+        int[] positions = current.stateIndex.get(s);
+        if (positions == null || offset < 0 || offset >= positions.length || limit <= 0) {
+            return List.of();
+        }
+        int end = (int) Math.min(positions.length, (long) offset + limit);
+        ArrayList<T> page = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            page.add(copy(rows.get(positions[i])));
+        }
+        return page;
+    }
+
+    /**
+     * Gets the current load of the file, reloading the Client data and rebuilding the
+     * email, id and State indexes if the file was rewritten through this repository or its
+     * fingerprint changed since the last load. A current load is checked without any lock;
+     * the fingerprint checksums a file modified within the last few seconds, so a rewrite
+     * of the same size within the granularity of the modification time is still seen.
+     *
+     * @return the current Loaded
+     */
+    private Loaded<T> refresh() {
+        Path path = Paths.get(filePath);
+        Loaded<T> current = loaded;
+        if (isCurrent(current, path)) {
+            return current;
+        }
+        synchronized (this) {
+            current = loaded;
+            if (isCurrent(current, path)) {
+                return current;
+            }
+            long loadedVersion = version;
+            Fingerprint fingerprint;
+            try {
+                fingerprint = Fingerprint.of(path); // taken before the read, so a later change is seen
+            } catch (IOException ex) {
+                fingerprint = null;
+            }
+            List<T> all = super.findAll();
+            HashMap<String, T> index = new HashMap<>();
+            HashMap<Object, T> ids = new HashMap<>();
+            for (T c : all) {
+                if (c.getEmail() != null) {
+                    index.putIfAbsent(normalizeEmail(c.getEmail()), c);
+                }
+                ids.putIfAbsent(idOf(c), c);
+            }
+            current = new Loaded<>(all, index, ids, indexByState(all), fingerprint, loadedVersion);
+            loaded = current;
+            return current;
+        }
+    }
+
+    /**
+     * @param current - a load of the file
+     * @param path - the file
+     * @return true if the file was neither rewritten through this repository nor changed
+     *         otherwise since the load
+     */
+    private boolean isCurrent(Loaded<T> current, Path path) {
+        if (current.fingerprint == null || current.version != version) {
+            return false;
+        }
+        try {
+            return current.fingerprint.matches(Fingerprint.of(path), path);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the in-memory copy of the file, so the next lookup parses it again; called
+     * after the file was rewritten through this repository, whose fingerprint may look
+     * unchanged
+     */
+    protected synchronized void invalidate() {
+        version++;
+    }
+
+    /**
+     * Groups the positions of the Client in the List by their State
+     *
+     * @param all - Client in file order
+     * @return a Map of each State to the ascending positions of its Client
+     */
+    private static <T extends Client> Map<State, int[]> indexByState(List<T> all) {
+        int[] counts = new int[State.values().length];
+        for (T c : all) {
+            if (c.getState() != null) {
+                counts[c.getState().ordinal()]++;
+            }
+        }
+        EnumMap<State, int[]> index = new EnumMap<>(State.class);
+        for (State s : State.values()) {
+            if (counts[s.ordinal()] > 0) {
+                index.put(s, new int[counts[s.ordinal()]]);
+            }
+        }
+        int[] filled = new int[counts.length];
+        for (int i = 0; i < all.size(); i++) {
+            State s = all.get(i).getState();
+            if (s != null) {
+                index.get(s)[filled[s.ordinal()]++] = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The Client of one load of the file together with their indexes and the fingerprint
+     * and version of the file they were loaded from, published as a whole so a reader
+     * never pairs the rows of one load with the indexes of another
+     */
+    private static final class Loaded<T> {
+
+        /*
+        FIELDS
+         */
+        private final List<T> clients;
+        private final Map<String, T> emailIndex;
+        private final Map<Object, T> idIndex;
+        private final Map<State, int[]> stateIndex;
+        private final Fingerprint fingerprint;
+        private final long version;
+
+        /*
+        CONSTRUCTOR
+         */
+        private Loaded(List<T> clients, Map<String, T> emailIndex, Map<Object, T> idIndex,
+                       Map<State, int[]> stateIndex, Fingerprint fingerprint, long version) {
+            this.clients = clients;
+            this.emailIndex = emailIndex;
+            this.idIndex = idIndex;
+            this.stateIndex = stateIndex;
+            this.fingerprint = fingerprint;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Produces the key used by the email index
+     *
+     * @param email - email to normalize
+     * @return the trimmed, lower case email
+     */
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
-}
\ No newline at end of file
+}
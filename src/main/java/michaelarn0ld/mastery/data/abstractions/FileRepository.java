@@ -1,16 +1,45 @@
 package michaelarn0ld.mastery.data.abstractions;
 
 
-import java.io.BufferedReader;
+import michaelarn0ld.mastery.data.csv.CharCsvRecord;
+import michaelarn0ld.mastery.data.csv.CsvRecord;
+import michaelarn0ld.mastery.data.csv.MappedCsvRecord;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.snapshot.Fingerprint;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public abstract class FileRepository<T> {
 
     protected int FIELDS;
     protected String filePath;
+    private ReaderMode readerMode = ReaderMode.BUFFERED;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean snapshot;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_PARALLEL_RANGE_BYTES = 256 * 1024;
+    private static final MethodHandle UNMAP = findUnmap();
 
     public FileRepository(){};
     public FileRepository(String filePath) {
@@ -23,19 +52,379 @@ public abstract class FileRepository<T> {
      * @return all deserialized T instances parsed from the file
      */
     public List<T> findAll() {
+        if (snapshot) {
+            return findAllSnapshot();
+        }
+        return parse();
+    }
+
+    /**
+     * Parses the csv file with the configured reader
+     *
+     * @return all deserialized T instances parsed from the file
+     */
+    private List<T> parse() {
+        if (readerMode == ReaderMode.BUFFERED) {
+            return findAllBuffered();
+        }
+        return findAllMapped();
+    }
+
+    /**
+     * Loads the binary snapshot kept next to the csv file if it was taken from the file
+     * as it is now, by its Fingerprint. Otherwise the file is parsed and the snapshot is
+     * written again for the next load.
+     *
+     * @return all T instances of the file
+     */
+    private List<T> findAllSnapshot() {
+        Fingerprint fingerprint;
+        try {
+            fingerprint = Fingerprint.of(Paths.get(filePath));
+        } catch (IOException ex) {
+            return parse();
+        }
+        if (fingerprint == null) {
+            return new ArrayList<>();
+        }
+        Path snapshotPath = getSnapshotPath();
+        boolean[] racy = {false};
+        List<T> loaded = SnapshotFile.read(snapshotPath, in -> {
+            Fingerprint taken = Fingerprint.read(in);
+            if (!taken.matches(fingerprint, Paths.get(filePath))) {
+                return null;
+            }
+            racy[0] = taken.hasChecksum();
+            int count = in.readInt();
+            ArrayList<T> all = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                all.add(readRecord(in));
+            }
+            return all;
+        });
+        if (loaded != null) {
+            // a snapshot taken while the file was racy is taken again once it has settled,
+            // so later loads no longer read the file to checksum it
+            if (racy[0] && !fingerprint.hasChecksum()) {
+                writeSnapshot(snapshotPath, fingerprint, loaded);
+            }
+            return loaded;
+        }
+        // the file is fingerprinted before it is parsed, so a concurrent change can only
+        // make the snapshot look stale, never make stale content look current
+        List<T> all = parse();
+        writeSnapshot(snapshotPath, fingerprint, all);
+        return all;
+    }
+
+    /**
+     * Writes the snapshot of the file; a failure is ignored as the csv file stays the
+     * source of truth and the next load parses it again
+     *
+     * @param snapshotPath - where the snapshot is kept
+     * @param fingerprint - fingerprint of the file the records were read from
+     * @param all - all T instances of the file
+     */
+    private void writeSnapshot(Path snapshotPath, Fingerprint fingerprint, List<T> all) {
+        try {
+            SnapshotFile.write(snapshotPath, out -> {
+                fingerprint.write(out);
+                out.writeInt(all.size());
+                for (T item : all) {
+                    writeRecord(out, item);
+                }
+            });
+        } catch (IOException ex) {
+            // the csv file stays the source of truth; the next load parses it again
+        }
+    }
+
+    public ReaderMode getReaderMode() {
+        return readerMode;
+    }
+
+    public void setReaderMode(ReaderMode readerMode) {
+        this.readerMode = readerMode;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot - true to load from, and maintain, a binary snapshot of the file
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return the path of the binary snapshot kept next to the csv file
+     */
+    public Path getSnapshotPath() {
+        return Paths.get(filePath + SnapshotFile.EXTENSION);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism - number of ranges the PARALLEL reader splits a file into
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads the file in blocks into a reused char[] and tokenizes each line in place,
+     * so apart from the decoded characters nothing is allocated per line. The file is
+     * decoded as UTF-8, as the mapped readers do. Lines end at \n, \r or \r\n, as with
+     * BufferedReader.readLine().
+     *
+     * @return all deserialized T instances parsed from the file
+     * @throws IllegalStateException carrying a DataException if a line cannot be
+     *         deserialized
+     */
+    private List<T> findAllBuffered() {
         ArrayList<T> all = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            reader.readLine(); // read header
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                String[] fields = line.split(",", -1);
-                if (fields.length == FIELDS) {
-                    all.add(deserialize(fields));
+        CharCsvRecord record = new CharCsvRecord();
+        char[] buffer = new char[BUFFER_SIZE];
+        int length = 0;
+        int start = 0;
+        int scan = 0;
+        boolean header = true;
+        boolean skipLineFeed = false;
+        boolean eof = false;
+        int line = 1;
+        try (Reader reader = new FileReader(filePath, StandardCharsets.UTF_8)) {
+            while (true) {
+                if (skipLineFeed && start < length) {
+                    if (buffer[start] == '\n') {
+                        start++;
+                        scan = start;
+                    }
+                    skipLineFeed = false;
+                }
+                int end = scan;
+                while (end < length && buffer[end] != '\n' && buffer[end] != '\r') {
+                    end++;
+                }
+                if (end == length && !eof) {
+                    // the line continues past the buffer: keep its start and read more
+                    System.arraycopy(buffer, start, buffer, 0, length - start);
+                    length -= start;
+                    scan = length;
+                    start = 0;
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int read = reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        length += read;
+                    }
+                    continue;
+                }
+                if (end == length && start == length) {
+                    break;
                 }
+                if (header) {
+                    header = false;
+                } else {
+                    record.setLine(buffer, start, end);
+                    if (record.size() == FIELDS) {
+                        try {
+                            all.add(deserialize(record));
+                        } catch (RuntimeException ex) {
+                            throw malformed("line " + line, ex);
+                        }
+                    }
+                }
+                line++;
+                skipLineFeed = end < length && buffer[end] == '\r';
+                start = Math.min(end + 1, length);
+                scan = start;
             }
         } catch (IOException ex) {
         }
         return all;
     }
 
-    protected abstract T deserialize(String[] fields);
-}
\ No newline at end of file
+    /**
+     * Memory-maps the file and scans its bytes in place; each line is handed to
+     * deserialize as field slices of the mapping. In PARALLEL mode the lines are split
+     * at line boundaries into ranges that are parsed concurrently on the common
+     * ForkJoinPool, then merged in file order. Produces the same T as the buffered
+     * reader for files with \n or \r\n line endings. The mapping is released as soon
+     * as the file is parsed rather than when the buffer is collected, so the file is not
+     * held open, which would e.g. keep it from being replaced on some platforms.
+     *
+     * @return all deserialized T instances parsed from the file
+     * @throws IllegalStateException carrying a DataException if a line cannot be
+     *         deserialized
+     */
+    private List<T> findAllMapped() {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return findAllBuffered(); // a single mapping is limited to 2GB
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            return new ArrayList<>();
+        }
+        try {
+            int limit = buffer.limit();
+            int start = nextLine(buffer, 0, limit); // skip header
+            int ranges = readerMode == ReaderMode.PARALLEL
+                    ? Math.min(parallelism, (limit - start) / MIN_PARALLEL_RANGE_BYTES)
+                    : 1;
+            if (ranges <= 1) {
+                ArrayList<T> all = new ArrayList<>();
+                parseRange(buffer, start, limit, all);
+                return all;
+            }
+            return parseRanges(buffer, start, limit, ranges);
+        } finally {
+            unmap(buffer); // every range has finished, and nothing parsed refers to the mapping
+        }
+    }
+
+    /**
+     * Releases a mapping of the file once nothing reads it anymore. The JDK only releases
+     * a mapping when its buffer is collected, unless the unsupported cleaner of the
+     * runtime is available; without it the mapping is left to the collector.
+     *
+     * @param buffer - mapping to release; it must not be read afterwards
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable ex) {
+            // the mapping is released when the buffer is collected
+        }
+    }
+
+    /**
+     * @return a handle on Unsafe.invokeCleaner(ByteBuffer), or null if the runtime does
+     *         not provide it
+     */
+    private static MethodHandle findUnmap() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits [start, limit) into ranges of about the same size that each begin at the
+     * start of a line, parses them concurrently and concatenates the results in order.
+     * A range that fails does not stop the others; once all of them have finished, the
+     * failure of the first failing range is thrown.
+     *
+     * @return all deserialized T instances parsed from the ranges
+     */
+    private List<T> parseRanges(MappedByteBuffer buffer, int start, int limit, int ranges) {
+        ArrayList<ForkJoinTask<List<T>>> tasks = new ArrayList<>(ranges);
+        RuntimeException[] failures = new RuntimeException[ranges];
+        long length = limit - start;
+        int rangeStart = start;
+        for (int i = 1; i <= ranges && rangeStart < limit; i++) {
+            int rangeEnd = i == ranges
+                    ? limit
+                    : nextLine(buffer, Math.max(rangeStart, (int) (start + length * i / ranges)), limit);
+            int from = rangeStart;
+            int range = i - 1;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                ArrayList<T> part = new ArrayList<>();
+                try {
+                    parseRange(buffer, from, rangeEnd, part);
+                } catch (RuntimeException ex) {
+                    failures[range] = ex; // kept as thrown, rather than as join() rethrows it
+                }
+                return part;
+            }));
+            rangeStart = rangeEnd;
+        }
+        // every range is waited for before any result is read, so a failing range never
+        // leaves the others reading a mapping the caller is about to release
+        tasks.forEach(ForkJoinTask::quietlyJoin);
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        ArrayList<T> all = new ArrayList<>();
+        tasks.forEach(task -> all.addAll(task.join()));
+        return all;
+    }
+
+    /**
+     * Parses every line that starts in [start, limit) of the mapping
+     *
+     * @param all - List the deserialized T are added to
+     */
+    private void parseRange(MappedByteBuffer buffer, int start, int limit, List<T> all) {
+        MappedCsvRecord record = new MappedCsvRecord(buffer);
+        while (start < limit) {
+            int next = nextLine(buffer, start, limit);
+            int end = next;
+            if (end > start && buffer.get(end - 1) == '\n') {
+                end--;
+            }
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            record.setLine(start, end);
+            if (record.size() == FIELDS) {
+                try {
+                    all.add(deserialize(record));
+                } catch (RuntimeException ex) {
+                    throw malformed("line at byte " + start, ex);
+                }
+            }
+            start = next;
+        }
+    }
+
+    /**
+     * @param where - position of the line in the file
+     * @param ex - failure of deserialize on the line
+     * @return the failure to throw from the read, carrying a DataException that names
+     *         the line
+     */
+    private IllegalStateException malformed(String where, RuntimeException ex) {
+        return new IllegalStateException(new DataException("Malformed " + where + " of " + filePath, ex));
+    }
+
+    /**
+     * Finds the start of the line following position start
+     *
+     * @return the position after the next \n, or limit if there is none
+     */
+    private static int nextLine(MappedByteBuffer buffer, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    protected abstract T deserialize(CsvRecord fields);
+
+    protected abstract void writeRecord(DataOutput out, T item) throws IOException;
+
+    protected abstract T readRecord(DataInput in) throws IOException;
+}
@@ -0,0 +1,12 @@
+package michaelarn0ld.mastery.data.abstractions;
+
+/**
+ * How a FileRepository reads its csv file: BUFFERED decodes it through a Reader, MAPPED
+ * memory-maps it and scans the bytes in place, and PARALLEL memory-maps it and parses
+ * ranges of lines concurrently. Every mode decodes the file as UTF-8.
+ */
+public enum ReaderMode {
+    BUFFERED,
+    MAPPED,
+    PARALLEL
+}
@@ -3,9 +3,31 @@ package michaelarn0ld.mastery.data.contracts;
 import michaelarn0ld.mastery.models.State;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface ClientRepository<T> {
     List<T> findAll();
     List<T> findByState(State s);
+    List<T> findByState(State s, int offset, int limit);
     T findByEmail(String email);
+
+    /*
+    The async variants run the blocking call on ioExecutor() and complete with its result.
+     */
+    default Executor ioExecutor() {
+        return IoExecutor.shared();
+    }
+
+    default CompletableFuture<List<T>> findAllAsync() {
+        return IoExecutor.call(this::findAll, ioExecutor());
+    }
+
+    default CompletableFuture<List<T>> findByStateAsync(State s) {
+        return IoExecutor.call(() -> findByState(s), ioExecutor());
+    }
+
+    default CompletableFuture<T> findByEmailAsync(String email) {
+        return IoExecutor.call(() -> findByEmail(email), ioExecutor());
+    }
 }
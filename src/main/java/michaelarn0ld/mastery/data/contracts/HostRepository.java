@@ -0,0 +1,11 @@
+package michaelarn0ld.mastery.data.contracts;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.Host;
+
+import java.util.List;
+
+public interface HostRepository extends ClientRepository<Host> {
+    Host findById(String id);
+    int updateRates(List<Host> hosts) throws DataException;
+}
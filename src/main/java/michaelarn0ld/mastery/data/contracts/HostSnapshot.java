@@ -0,0 +1,26 @@
+package michaelarn0ld.mastery.data.contracts;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of the Reservation of one Host at the version a mutation is validated
+ * against and then written from
+ */
+public interface HostSnapshot {
+
+    /**
+     * @param id - id of a Reservation
+     * @return true if the Host has a Reservation with the id
+     */
+    boolean contains(int id);
+
+    /**
+     * Checks whether [checkIn, checkOut) overlaps the stay of any Reservation of the Host but one
+     *
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param excludeId - id of a Reservation to ignore, e.g. the one being updated
+     * @return true if another Reservation overlaps the stay
+     */
+    boolean hasOverlap(LocalDate checkIn, LocalDate checkOut, int excludeId);
+}
@@ -0,0 +1,89 @@
+package michaelarn0ld.mastery.data.contracts;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the blocking file calls of the repositories off the caller's thread, so callers
+ * that fan out across many Host overlap their disk reads and writes instead of waiting on
+ * each in turn. The pools are sized for threads that mostly wait on the disk, not for the
+ * number of cores, and their threads are daemons so a pool never keeps the application
+ * running.
+ */
+public final class IoExecutor {
+
+    /*
+    FIELDS
+     */
+    public static final int DEFAULT_THREADS = Math.max(32, 4 * Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService SHARED = newPool(DEFAULT_THREADS, "repository-io");
+
+    /*
+    CONSTRUCTOR
+     */
+    private IoExecutor() {
+    }
+
+    /**
+     * A blocking repository call that may fail with a DataException
+     */
+    @FunctionalInterface
+    public interface IoCall<T> {
+        T call() throws DataException;
+    }
+
+    /**
+     * @return the pool shared by repositories that do not provide their own
+     */
+    public static Executor shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates a pool of daemon threads for blocking file calls
+     *
+     * @param threads - number of calls run at once
+     * @param name - name of the pool's threads
+     * @return the pool; the caller shuts it down
+     */
+    public static ExecutorService newPool(int threads, String name) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a blocking call on an executor
+     *
+     * @param call - the call to run
+     * @param executor - where to run it
+     * @return a handle completed with the result of the call, or exceptionally with the
+     *         DataException or RuntimeException it threw; a call the executor rejects,
+     *         e.g. once it is shut down, completes exceptionally with a DataException
+     */
+    public static <T> CompletableFuture<T> call(IoCall<T> call, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (DataException | RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(new DataException("I/O executor is shut down", ex));
+        }
+        return future;
+    }
+}
@@ -1,15 +1,96 @@
 package michaelarn0ld.mastery.data.contracts;
 
 import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.Host;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 public interface ReservationRepository {
     List<Reservation> findByHost(Host h);
     Reservation findById(Host h, int id);
+    List<ReservationValue> findValuesByHost(Host h);
+    boolean hasOverlap(Host h, LocalDate checkIn, LocalDate checkOut, int excludeId);
+    List<Host> findAvailable(List<Host> hosts, LocalDate checkIn, LocalDate checkOut);
+    List<Reservation> findByGuest(Guest g);
+    boolean hasGuestOverlap(Guest g, LocalDate checkIn, LocalDate checkOut, Host excludeHost, int excludeId);
+    List<Reservation> findArrivals(LocalDate date);
+    List<Reservation> findDepartures(LocalDate date);
+    List<Reservation> findActive(LocalDate from, LocalDate to);
     Reservation add(Reservation r) throws DataException;
+    List<String> addIfValid(Reservation r, Function<HostSnapshot, List<String>> validation) throws DataException;
+    List<List<String>> addAllIfValid(Host h, List<Reservation> batch,
+                                     BiFunction<HostSnapshot, Reservation, List<String>> validation)
+            throws DataException;
     boolean update(Reservation r) throws DataException;
+    List<String> updateIfValid(Reservation r, Function<HostSnapshot, List<String>> validation) throws DataException;
     boolean delete(Reservation r) throws DataException;
+    int reprice(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing) throws DataException;
+
+    default int reprice(List<Host> hosts, LocalDate from) throws DataException {
+        return reprice(hosts, from, Reservation::getTotalCents);
+    }
+
+    /*
+    The async variants run the blocking call on ioExecutor() and complete with its result,
+    or exceptionally with the DataException it threw.
+     */
+    default Executor ioExecutor() {
+        return IoExecutor.shared();
+    }
+
+    default CompletableFuture<List<Reservation>> findByHostAsync(Host h) {
+        return IoExecutor.call(() -> findByHost(h), ioExecutor());
+    }
+
+    default CompletableFuture<Reservation> findByIdAsync(Host h, int id) {
+        return IoExecutor.call(() -> findById(h, id), ioExecutor());
+    }
+
+    default CompletableFuture<List<ReservationValue>> findValuesByHostAsync(Host h) {
+        return IoExecutor.call(() -> findValuesByHost(h), ioExecutor());
+    }
+
+    default CompletableFuture<Boolean> hasOverlapAsync(Host h, LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        return IoExecutor.call(() -> hasOverlap(h, checkIn, checkOut, excludeId), ioExecutor());
+    }
+
+    default CompletableFuture<List<Host>> findAvailableAsync(List<Host> hosts, LocalDate checkIn, LocalDate checkOut) {
+        return IoExecutor.call(() -> findAvailable(hosts, checkIn, checkOut), ioExecutor());
+    }
+
+    default CompletableFuture<Reservation> addAsync(Reservation r) {
+        return IoExecutor.call(() -> add(r), ioExecutor());
+    }
+
+    default CompletableFuture<List<String>> addIfValidAsync(Reservation r,
+                                                            Function<HostSnapshot, List<String>> validation) {
+        return IoExecutor.call(() -> addIfValid(r, validation), ioExecutor());
+    }
+
+    default CompletableFuture<List<List<String>>> addAllIfValidAsync(
+            Host h, List<Reservation> batch, BiFunction<HostSnapshot, Reservation, List<String>> validation) {
+        return IoExecutor.call(() -> addAllIfValid(h, batch, validation), ioExecutor());
+    }
+
+    default CompletableFuture<Boolean> updateAsync(Reservation r) {
+        return IoExecutor.call(() -> update(r), ioExecutor());
+    }
+
+    default CompletableFuture<List<String>> updateIfValidAsync(Reservation r,
+                                                               Function<HostSnapshot, List<String>> validation) {
+        return IoExecutor.call(() -> updateIfValid(r, validation), ioExecutor());
+    }
+
+    default CompletableFuture<Boolean> deleteAsync(Reservation r) {
+        return IoExecutor.call(() -> delete(r), ioExecutor());
+    }
 }
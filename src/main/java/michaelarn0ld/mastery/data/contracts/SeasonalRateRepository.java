@@ -0,0 +1,11 @@
+package michaelarn0ld.mastery.data.contracts;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.SeasonalRate;
+
+import java.util.List;
+
+public interface SeasonalRateRepository {
+    List<SeasonalRate> findByHost(String hostId);
+    void setSeasonalRates(String hostId, List<SeasonalRate> rates) throws DataException;
+}
@@ -0,0 +1,35 @@
+package michaelarn0ld.mastery.data.csv;
+
+/**
+ * CsvRecord over a range of a reused char[] buffer. Field boundaries are written into
+ * the reused offset arrays of the record, so scanning a line allocates nothing.
+ */
+public class CharCsvRecord extends CsvRecord {
+
+    /*
+    FIELDS
+     */
+    private char[] buffer;
+
+    /**
+     * Points the record at one line of a buffer
+     *
+     * @param buffer - characters read from the file
+     * @param start - position of the first character of the line
+     * @param end - position after the last character of the line, excluding line terminators
+     */
+    public void setLine(char[] buffer, int start, int end) {
+        this.buffer = buffer;
+        tokenize(start, end);
+    }
+
+    @Override
+    public String get(int field) {
+        return new String(buffer, starts[field], ends[field] - starts[field]);
+    }
+
+    @Override
+    protected char charAt(int index) {
+        return buffer[index];
+    }
+}
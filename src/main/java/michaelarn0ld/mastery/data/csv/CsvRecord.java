@@ -0,0 +1,258 @@
+package michaelarn0ld.mastery.data.csv;
+
+import michaelarn0ld.mastery.models.Money;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One line of csv data, exposed as field slices of an underlying buffer. A record is
+ * reused for every line of a file, so callers must copy out whatever they keep; the
+ * typed getters parse straight from the buffer without materializing the field as a
+ * String, and behave like their Integer.parseInt, LocalDate.parse, new BigDecimal and
+ * Enum.valueOf counterparts, including the exceptions they throw.
+ */
+public abstract class CsvRecord {
+
+    /*
+    FIELDS
+     */
+    protected int[] starts = new int[16];
+    protected int[] ends = new int[16];
+    protected int count;
+
+    /**
+     * @return the number of fields of the current line
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Materializes a field as a String
+     *
+     * @param field - zero based position of the field
+     * @return the content of the field
+     */
+    public abstract String get(int field);
+
+    /**
+     * @param field - zero based position of the field
+     * @return true if the field holds no characters
+     */
+    public boolean isEmpty(int field) {
+        return ends[field] == starts[field];
+    }
+
+    /**
+     * Parses a field as a decimal int
+     *
+     * @param field - zero based position of the field
+     * @return the parsed int
+     */
+    public int getInt(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (start < end && (charAt(start) == '-' || charAt(start) == '+')) {
+            negative = charAt(start) == '-';
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return Integer.parseInt(get(field));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(get(field));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(get(field));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as an ISO local date (yyyy-MM-dd)
+     *
+     * @param field - zero based position of the field
+     * @return the parsed LocalDate
+     */
+    public LocalDate getDate(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 10 || charAt(start + 4) != '-' || charAt(start + 7) != '-') {
+            return LocalDate.parse(get(field));
+        }
+        int year = digits(start, start + 4);
+        int month = digits(start + 5, start + 7);
+        int day = digits(start + 8, start + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(get(field));
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException ex) {
+            return LocalDate.parse(get(field));
+        }
+    }
+
+    /**
+     * Parses a field as a plain decimal number such as 368.75
+     *
+     * @param field - zero based position of the field
+     * @return the parsed BigDecimal, with the scale written in the field
+     */
+    public BigDecimal getDecimal(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (start < end && (charAt(start) == '-' || charAt(start) == '+')) {
+            negative = charAt(start) == '-';
+            start++;
+        }
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = 0;
+        boolean point = false;
+        for (int i = start; i < end; i++) {
+            char c = charAt(i);
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digitCount++;
+                if (point) {
+                    scale++;
+                }
+            } else {
+                return new BigDecimal(get(field));
+            }
+        }
+        if (digitCount == 0 || digitCount > 18) {
+            return new BigDecimal(get(field));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Parses a field as an amount of money such as 368.75
+     *
+     * @param field - zero based position of the field
+     * @return the amount in cents, rounded half up as Money.ofDecimal does
+     */
+    public long getCents(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (start < end && (charAt(start) == '-' || charAt(start) == '+')) {
+            negative = charAt(start) == '-';
+            start++;
+        }
+        long units = 0;
+        int digitCount = 0;
+        int decimals = -1;
+        for (int i = start; i < end; i++) {
+            char c = charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9' && decimals < Money.SCALE) {
+                units = units * 10 + (c - '0');
+                digitCount++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return Money.ofDecimal(getDecimal(field)); // exponents and sub-cent digits
+            }
+        }
+        if (digitCount == 0 || digitCount > 16) {
+            return Money.ofDecimal(getDecimal(field));
+        }
+        for (int i = Math.max(decimals, 0); i < Money.SCALE; i++) {
+            units *= 10;
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Parses a field as the name of an enum constant
+     *
+     * @param field - zero based position of the field
+     * @param type - enum class to match the field against
+     * @return the enum constant with the name held by the field
+     */
+    public <E extends Enum<E>> E getEnum(int field, Class<E> type) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        for (E constant : type.getEnumConstants()) {
+            String name = constant.name();
+            if (name.length() == length && matches(start, name)) {
+                return constant;
+            }
+        }
+        return Enum.valueOf(type, get(field));
+    }
+
+    /**
+     * Reads one character of the underlying buffer
+     *
+     * @param index - absolute position in the buffer
+     * @return the character at index
+     */
+    protected abstract char charAt(int index);
+
+    /**
+     * Splits the range [start, end) of the buffer into comma separated fields
+     *
+     * @param start - position of the first character of the line
+     * @param end - position after the last character of the line
+     */
+    protected void tokenize(int start, int end) {
+        count = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (charAt(i) == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    private void addField(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private int digits(int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private boolean matches(int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+package michaelarn0ld.mastery.data.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CsvRecord over the bytes of a (memory-mapped) ByteBuffer of UTF-8 text. Fields are
+ * scanned in place; only get(int) copies bytes out, decoding them as UTF-8. The bytes of
+ * a multi-byte character are never ASCII, so they can neither be taken for a delimiter
+ * nor for a digit, and the typed getters fall back to the decoded String for them.
+ */
+public class MappedCsvRecord extends CsvRecord {
+
+    /*
+    FIELDS
+     */
+    private final ByteBuffer buffer;
+    private byte[] scratch = new byte[64];
+
+    /*
+    CONSTRUCTOR
+     */
+    public MappedCsvRecord(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Points the record at one line of the buffer
+     *
+     * @param start - position of the first byte of the line
+     * @param end - position after the last byte of the line, excluding line terminators
+     */
+    public void setLine(int start, int end) {
+        tokenize(start, end);
+    }
+
+    @Override
+    public String get(int field) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(start + i);
+            scratch[i] = b;
+            ascii &= b >= 0;
+        }
+        return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads one byte of the buffer; only ASCII bytes are compared by the scanning and
+     * typed getters, so a byte of a multi-byte character stands for itself
+     */
+    @Override
+    protected char charAt(int index) {
+        return (char) (buffer.get(index) & 0xFF);
+    }
+}
@@ -0,0 +1,11 @@
+package michaelarn0ld.mastery.data.exceptions;
+
+/**
+ * Thrown when a file was changed by another process since this process read it; nothing
+ * was written, and the operation can be retried against the current file.
+ */
+public class ConflictException extends DataException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
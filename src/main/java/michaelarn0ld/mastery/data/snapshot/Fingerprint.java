@@ -0,0 +1,137 @@
+package michaelarn0ld.mastery.data.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the content of a source file by its size and modification time; a snapshot
+ * is only used while the fingerprint of its source still matches. Checking a fingerprint
+ * only reads the attributes of the file, unless the file was modified so recently when
+ * the fingerprint was taken that a later change could keep the same modification time:
+ * the fingerprint of such a racy file also holds a CRC32 checksum of its content, and
+ * only then is the file read to match it.
+ */
+public final class Fingerprint {
+
+    /*
+    FIELDS
+     */
+    private static final long NO_CHECKSUM = -1;
+    private static final long RACY_MILLIS = 2000; // coarsest modification time granularity in use
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long size;
+    private final long modified;
+    private final long checksum;
+
+    /*
+    CONSTRUCTOR
+     */
+    public Fingerprint(long size, long modified, long checksum) {
+        this.size = size;
+        this.modified = modified;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Computes the fingerprint of a file from its attributes, checksumming its content
+     * only if it was modified within the last few seconds
+     *
+     * @param path - file to fingerprint
+     * @return the Fingerprint of the file, or null if the file does not exist
+     */
+    public static Fingerprint of(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        long modified = attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+        boolean racy = System.currentTimeMillis() - modifiedMillis < RACY_MILLIS;
+        return new Fingerprint(attributes.size(), modified, racy ? checksum(path) : NO_CHECKSUM);
+    }
+
+    /**
+     * Checks whether a file still has the content this fingerprint was taken from
+     *
+     * @param current - fingerprint of the file now, as computed by of(Path)
+     * @param path - the file, read only if this fingerprint holds a checksum that
+     *             current does not
+     * @return true if size and modification time match and, if this fingerprint holds a
+     *         checksum, the content does too
+     */
+    public boolean matches(Fingerprint current, Path path) throws IOException {
+        if (current == null || size != current.size || modified != current.modified) {
+            return false;
+        }
+        if (checksum == NO_CHECKSUM) {
+            return true;
+        }
+        return checksum == (current.checksum == NO_CHECKSUM ? checksum(path) : current.checksum);
+    }
+
+    /**
+     * @return true if the file was racy when this fingerprint was taken, so matching it
+     *         reads the file
+     */
+    public boolean hasChecksum() {
+        return checksum != NO_CHECKSUM;
+    }
+
+    /**
+     * @param path - file to checksum
+     * @return the CRC32 of the content of the file
+     */
+    private static long checksum(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            return crc.getValue();
+        }
+    }
+
+    public static Fingerprint read(DataInput in) throws IOException {
+        return new Fingerprint(in.readLong(), in.readLong(), in.readLong());
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(size);
+        out.writeLong(modified);
+        out.writeLong(checksum);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint other = (Fingerprint) o;
+        return size == other.size && modified == other.modified && checksum == other.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, modified, checksum);
+    }
+}
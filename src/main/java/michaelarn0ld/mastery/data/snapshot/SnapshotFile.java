@@ -0,0 +1,120 @@
+package michaelarn0ld.mastery.data.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * Reads and writes binary snapshot files: a magic number and a format version followed
+ * by a body of length-prefixed fields written through DataOutput. Snapshots are only a
+ * cache of the csv files, so any problem reading one is reported as a missing snapshot.
+ */
+public final class SnapshotFile {
+
+    public static final int MAGIC = 0x4D53_4E50;
+    public static final int VERSION = 3;
+    public static final String EXTENSION = ".snap";
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes the body of a snapshot
+     */
+    public interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads the body of a snapshot
+     */
+    public interface BodyReader<R> {
+        R read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file that then atomically replaces the snapshot
+     *
+     * @param path - snapshot file
+     * @param body - writes the content after the header
+     */
+    public static void write(Path path, BodyWriter body) throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            body.write(out);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by the current format version
+     *
+     * @param path - snapshot file
+     * @param body - reads the content after the header
+     * @return what body read, or null if there is no readable snapshot of this version
+     */
+    public static <R> R read(Path path, BodyReader<R> body) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            return body.read(in);
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /*
+    FIELD ENCODING
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes a LocalDate as its epoch day
+     */
+    public static void writeDate(DataOutput out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochDay());
+        }
+    }
+
+    public static LocalDate readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    /**
+     * Writes an enum constant by name, so snapshots survive reordering the constants
+     */
+    public static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        writeString(out, value == null ? null : value.name());
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type) throws IOException {
+        String name = readString(in);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
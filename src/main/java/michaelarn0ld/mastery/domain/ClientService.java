@@ -33,6 +33,18 @@ public class ClientService<T extends Client> {
         return repository.findByState(s);
     }
 
+    /**
+     * Fetches one page of the T from the repository with a matching State
+     *
+     * @param s - State to match on
+     * @param offset - number of matching T to skip
+     * @param limit - maximum number of T to return
+     * @return a List<T> of at most limit T that match on State
+     */
+    public List<T> findByState(State s, int offset, int limit) {
+        return repository.findByState(s, offset, limit);
+    }
+
     /**
      * Fetch a T with a matching email from the repository
      *
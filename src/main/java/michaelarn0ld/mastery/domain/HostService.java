@@ -0,0 +1,114 @@
+package michaelarn0ld.mastery.domain;
+
+import michaelarn0ld.mastery.data.contracts.HostRepository;
+import michaelarn0ld.mastery.data.contracts.ReservationRepository;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.Host;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class HostService extends ClientService<Host> {
+
+    /*
+    FIELDS
+     */
+    private final HostRepository repository;
+    private final ReservationRepository reservationRepository;
+    private PriceCalendar priceCalendar = new PriceCalendar();
+
+    public final static String HOST_NULL_ERROR = "HOST MUST NOT BE NULL";
+    public final static String RATE_NEGATIVE_ERROR = "RATES MUST NOT BE NEGATIVE";
+
+    /*
+    CONSTRUCTOR
+     */
+    public HostService(HostRepository repository, ReservationRepository reservationRepository) {
+        super(repository);
+        this.repository = repository;
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Changes the standard and weekend rates of a Host and reprices its Reservation that
+     * check in from today on
+     *
+     * @param h - Host with its new rates
+     * @return a Result<Host> indicating whether the rates were changed
+     */
+    public Result<Host> updateRates(Host h) throws DataException {
+        Result<List<Host>> updated = updateRates(List.of(h));
+        Result<Host> result = new Result<>();
+        updated.getErrors().forEach(result::addError);
+        if (result.isSuccess()) {
+            result.setPayload(h);
+        }
+        return result;
+    }
+
+    /**
+     * Changes the standard and weekend rates of many Host with one rewrite of the Host
+     * file. The Reservation of each Host that check in from today on are repriced from the
+     * price calendar first, with the Host files processed in parallel, so a failed
+     * repricing leaves the previous rates in place; if the rates then fail to be written,
+     * the Reservation are repriced back at the previous rates. Nothing is written if any
+     * Host is invalid.
+     *
+     * @param hosts - Host with their new rates
+     * @return a Result<List<Host>> indicating whether the rates were changed
+     */
+    public Result<List<Host>> updateRates(List<Host> hosts) throws DataException {
+        Result<List<Host>> result = new Result<>();
+        HashMap<String, Host> known = new HashMap<>();
+        repository.findAll().forEach(h -> known.put(h.getId(), h));
+        for (Host h : hosts) {
+            if (h == null) {
+                result.addError(HOST_NULL_ERROR);
+            } else if (!known.containsKey(h.getId())) {
+                result.addError(ReservationService.HOST_NOT_FOUND_ERROR);
+            } else if (h.getStandardRateCents() < 0 || h.getWeekendRateCents() < 0) {
+                result.addError(RATE_NEGATIVE_ERROR);
+            }
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
+        // the previous rates are copied before anything changes, as the Host found may be
+        // the very instances the repository updates with the new rates
+        List<Host> previous = new ArrayList<>(hosts.size());
+        for (Host h : hosts) {
+            Host rates = new Host(h.getId());
+            rates.setStandardRateCents(known.get(h.getId()).getStandardRateCents());
+            rates.setWeekendRateCents(known.get(h.getId()).getWeekendRateCents());
+            previous.add(rates);
+        }
+        LocalDate from = LocalDate.now();
+        reservationRepository.reprice(hosts, from, priceCalendar::quote);
+        try {
+            repository.updateRates(hosts);
+        } catch (DataException ex) {
+            try {
+                reservationRepository.reprice(previous, from, priceCalendar::quote);
+            } catch (DataException rollback) {
+                ex.addSuppressed(rollback);
+            }
+            throw ex;
+        }
+        result.setPayload(hosts);
+        return result;
+    }
+
+    public PriceCalendar getPriceCalendar() {
+        return priceCalendar;
+    }
+
+    /**
+     * @param priceCalendar - the calendar Reservation are booked from, so repriced
+     *                      totals keep their seasonal rates
+     */
+    public void setPriceCalendar(PriceCalendar priceCalendar) {
+        this.priceCalendar = priceCalendar;
+    }
+}
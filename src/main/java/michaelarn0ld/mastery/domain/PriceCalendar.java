@@ -0,0 +1,338 @@
+package michaelarn0ld.mastery.domain;
+
+import michaelarn0ld.mastery.data.contracts.SeasonalRateRepository;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.DateRange;
+import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Money;
+import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.SeasonalRate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quotes stays from per Host calendars of cumulative nightly prices. For a rolling
+ * horizon of days starting today, a calendar holds the sum of the nightly prices before
+ * each day, taking the standard and weekend rates of the Host and its seasonal rates into
+ * account, so the price of any stay within the horizon is one subtraction. Nights outside
+ * the horizon are priced one at a time.
+ *
+ * Seasonal rates are read from, and written through to, the SeasonalRateRepository if
+ * one is set, so the rates survive a restart; without one they are kept in memory only.
+ *
+ * Calendars are built on first use and are immutable once published: a seasonal rate
+ * change derives a new calendar that keeps the sums before the first affected day, a
+ * new day shifts the sums instead of rebuilding them, and a change of the standard or
+ * weekend rate of the Host is detected on the next quote and rebuilds the calendar.
+ */
+public class PriceCalendar {
+
+    /*
+    FIELDS
+     */
+    public final static int DEFAULT_HORIZON_DAYS = 730;
+
+    private final int horizonDays;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, HostCalendar> calendars = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<SeasonalRate>> seasonalRates = new ConcurrentHashMap<>();
+    private SeasonalRateRepository repository;
+
+    /*
+    CONSTRUCTORS
+     */
+    public PriceCalendar() {
+        this(DEFAULT_HORIZON_DAYS);
+    }
+
+    public PriceCalendar(int horizonDays) {
+        this(horizonDays, Clock.systemDefaultZone());
+    }
+
+    public PriceCalendar(int horizonDays, Clock clock) {
+        this.horizonDays = horizonDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Quotes one stay at a Host
+     *
+     * @param h - Host whose rates apply
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @return the price of the stay in cents, 0 if check-out is not after check-in
+     */
+    public long quote(Host h, LocalDate checkIn, LocalDate checkOut) {
+        return calendar(h).quote(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * Quotes many stays at a Host against the same calendar
+     *
+     * @param h - Host whose rates apply
+     * @param ranges - stays to quote
+     * @return the price in cents of each stay, in the order of ranges
+     */
+    public long[] quote(Host h, List<DateRange> ranges) {
+        HostCalendar calendar = calendar(h);
+        long[] quotes = new long[ranges.size()];
+        for (int i = 0; i < quotes.length; i++) {
+            DateRange range = ranges.get(i);
+            quotes[i] = calendar.quote(range.getCheckIn().toEpochDay(), range.getCheckOut().toEpochDay());
+        }
+        return quotes;
+    }
+
+    /**
+     * Quotes the stay of a Reservation; this is the total it is booked at
+     *
+     * @param r - Reservation with its Host and dates
+     * @return the price of the stay in cents
+     */
+    public long quote(Reservation r) {
+        return quote(r.getHost(), r.getCheckIn(), r.getCheckOut());
+    }
+
+    public SeasonalRateRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * @param repository - where the seasonal rates of every Host are kept
+     */
+    public void setRepository(SeasonalRateRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param hostId - id of a Host
+     * @return the seasonal rates of the Host, later rates taking precedence where they overlap
+     */
+    public List<SeasonalRate> getSeasonalRates(String hostId) {
+        if (repository == null) {
+            return seasonalRates.getOrDefault(hostId, List.of());
+        }
+        return seasonalRates.computeIfAbsent(hostId, repository::findByHost);
+    }
+
+    /**
+     * Adds a seasonal rate to a Host; where it overlaps earlier seasonal rates it takes
+     * precedence. Only the sums from the start of the season on are recomputed.
+     *
+     * @param hostId - id of the Host the rate applies to
+     * @param rate - the seasonal rate
+     */
+    public synchronized void addSeasonalRate(String hostId, SeasonalRate rate) throws DataException {
+        ArrayList<SeasonalRate> all = new ArrayList<>(getSeasonalRates(hostId));
+        all.add(rate);
+        store(hostId, all);
+        refreshFrom(hostId, rate.getStart().toEpochDay());
+    }
+
+    /**
+     * Replaces the seasonal rates of a Host. Only the sums from the start of the earliest
+     * season, old or new, on are recomputed.
+     *
+     * @param hostId - id of the Host the rates apply to
+     * @param rates - the seasonal rates, later rates taking precedence where they overlap
+     */
+    public synchronized void setSeasonalRates(String hostId, List<SeasonalRate> rates) throws DataException {
+        List<SeasonalRate> previous = getSeasonalRates(hostId);
+        store(hostId, rates);
+        long from = Long.MAX_VALUE;
+        for (SeasonalRate rate : concat(previous, rates)) {
+            from = Math.min(from, rate.getStart().toEpochDay());
+        }
+        refreshFrom(hostId, from);
+    }
+
+    /**
+     * Writes the seasonal rates of a Host to the repository, if any, then publishes them
+     * to quotes
+     */
+    private void store(String hostId, List<SeasonalRate> rates) throws DataException {
+        if (repository != null) {
+            repository.setSeasonalRates(hostId, rates);
+        }
+        seasonalRates.put(hostId, List.copyOf(rates));
+    }
+
+    /**
+     * Drops the calendar of a Host; it is built again on the next quote
+     *
+     * @param hostId - id of the Host
+     */
+    public void invalidate(String hostId) {
+        calendars.remove(hostId);
+    }
+
+    /**
+     * Gets the calendar of a Host, building it, rolling it forward to today or rebuilding
+     * it after a change of the Host rates as needed
+     */
+    private HostCalendar calendar(Host h) {
+        long today = LocalDate.now(clock).toEpochDay();
+        HostCalendar current = calendars.get(h.getId());
+        if (current != null && current.isCurrent(h, today)) {
+            return current;
+        }
+        return calendars.compute(h.getId(), (id, calendar) -> {
+            List<SeasonalRate> rates = getSeasonalRates(id);
+            if (calendar == null || !calendar.hasRatesOf(h)) {
+                return HostCalendar.build(today, horizonDays, h.getStandardRateCents(), h.getWeekendRateCents(), rates);
+            }
+            return calendar.startDay == today ? calendar : calendar.roll(today, rates);
+        });
+    }
+
+    /**
+     * Recomputes the sums of a built calendar from a day on, after its seasonal rates changed
+     */
+    private void refreshFrom(String hostId, long fromDay) {
+        calendars.computeIfPresent(hostId, (id, calendar) -> calendar.rebuildFrom(fromDay, getSeasonalRates(id)));
+    }
+
+    private static List<SeasonalRate> concat(List<SeasonalRate> first, List<SeasonalRate> second) {
+        ArrayList<SeasonalRate> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    /**
+     * Immutable cumulative nightly prices of one Host: prefix[i] is the price of the
+     * nights from startDay up to, but not including, startDay + i.
+     */
+    private static final class HostCalendar {
+
+        private final long startDay;
+        private final long standardCents;
+        private final long weekendCents;
+        private final List<SeasonalRate> rates;
+        private final long[] prefix;
+
+        private HostCalendar(long startDay, long standardCents, long weekendCents, List<SeasonalRate> rates,
+                             long[] prefix) {
+            this.startDay = startDay;
+            this.standardCents = standardCents;
+            this.weekendCents = weekendCents;
+            this.rates = rates;
+            this.prefix = prefix;
+        }
+
+        static HostCalendar build(long startDay, int days, long standardCents, long weekendCents,
+                                  List<SeasonalRate> rates) {
+            HostCalendar calendar = new HostCalendar(startDay, standardCents, weekendCents, rates, new long[days + 1]);
+            calendar.fill(0);
+            return calendar;
+        }
+
+        boolean hasRatesOf(Host h) {
+            return standardCents == h.getStandardRateCents() && weekendCents == h.getWeekendRateCents();
+        }
+
+        boolean isCurrent(Host h, long today) {
+            return startDay == today && hasRatesOf(h);
+        }
+
+        /**
+         * Derives the calendar for new seasonal rates, keeping the sums before fromDay
+         */
+        HostCalendar rebuildFrom(long fromDay, List<SeasonalRate> newRates) {
+            HostCalendar rebuilt = new HostCalendar(startDay, standardCents, weekendCents, newRates, prefix.clone());
+            rebuilt.fill((int) Math.max(0, Math.min(fromDay - startDay, days())));
+            return rebuilt;
+        }
+
+        /**
+         * Derives the calendar of a later start day: the sums both horizons share are
+         * shifted and only the days new to the horizon are computed
+         */
+        HostCalendar roll(long today, List<SeasonalRate> newRates) {
+            long shift = today - startDay;
+            if (shift <= 0 || shift >= days()) {
+                return build(today, days(), standardCents, weekendCents, newRates);
+            }
+            long[] shifted = new long[prefix.length];
+            int kept = days() - (int) shift;
+            for (int i = 0; i <= kept; i++) {
+                shifted[i] = prefix[i + (int) shift] - prefix[(int) shift];
+            }
+            HostCalendar rolled = new HostCalendar(today, standardCents, weekendCents, newRates, shifted);
+            rolled.fill(kept);
+            return rolled;
+        }
+
+        /**
+         * Prices the nights [fromDay, toDay): from the sums within the horizon, one night
+         * at a time outside of it
+         */
+        long quote(long fromDay, long toDay) {
+            if (toDay <= fromDay) {
+                return 0;
+            }
+            long endDay = startDay + days();
+            long total = 0;
+            long inside = Math.max(fromDay, startDay);
+            long insideEnd = Math.min(toDay, endDay);
+            if (inside < insideEnd) {
+                total = prefix[(int) (insideEnd - startDay)] - prefix[(int) (inside - startDay)];
+            }
+            if (fromDay < startDay) {
+                total = Money.plus(total, sum(nightly(fromDay, Math.min(toDay, startDay))));
+            }
+            if (toDay > endDay) {
+                total = Money.plus(total, sum(nightly(Math.max(fromDay, endDay), toDay)));
+            }
+            return total;
+        }
+
+        /**
+         * Computes the sums from day index from to the end of the horizon; only called
+         * before the calendar is published
+         */
+        private void fill(int from) {
+            long[] nightly = nightly(startDay + from, startDay + days());
+            for (int i = from; i < days(); i++) {
+                prefix[i + 1] = Money.plus(prefix[i], nightly[i - from]);
+            }
+        }
+
+        /**
+         * Prices each night of [fromDay, toDay): the weekend or standard rate, replaced
+         * by the last seasonal rate covering the night
+         */
+        private long[] nightly(long fromDay, long toDay) {
+            long[] nightly = new long[(int) (toDay - fromDay)];
+            int weekday = (int) Math.floorMod(fromDay + 3, 7); // epoch day 0 is a Thursday; Monday = 0
+            for (int i = 0; i < nightly.length; i++) {
+                nightly[i] = weekday >= 5 ? weekendCents : standardCents;
+                weekday = weekday == 6 ? 0 : weekday + 1;
+            }
+            for (SeasonalRate rate : rates) {
+                long start = Math.max(fromDay, rate.getStart().toEpochDay());
+                long end = Math.min(toDay, rate.getEnd().toEpochDay());
+                if (start < end) {
+                    Arrays.fill(nightly, (int) (start - fromDay), (int) (end - fromDay), rate.getRateCents());
+                }
+            }
+            return nightly;
+        }
+
+        private int days() {
+            return prefix.length - 1;
+        }
+
+        private static long sum(long[] values) {
+            long total = 0;
+            for (long value : values) {
+                total = Money.plus(total, value);
+            }
+            return total;
+        }
+    }
+}
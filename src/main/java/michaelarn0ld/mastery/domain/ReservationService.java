@@ -1,23 +1,48 @@
 package michaelarn0ld.mastery.domain;
 
 import michaelarn0ld.mastery.data.contracts.ClientRepository;
+import michaelarn0ld.mastery.data.contracts.HostRepository;
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
 import michaelarn0ld.mastery.data.contracts.ReservationRepository;
+import michaelarn0ld.mastery.data.exceptions.ConflictException;
 import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.DateRange;
 import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.GuestValue;
 import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.HostQuote;
+import michaelarn0ld.mastery.models.HostValue;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 public class ReservationService {
 
     private final ReservationRepository repository;
-    private final ClientRepository<Host> hostRepository;
+    private final HostRepository hostRepository;
     private final Map<Integer, Guest> guestMap;
+    private final Map<Integer, GuestValue> guestValues;
+    private final Map<String, ResolvedStays> resolvedStays = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ResolvedStays> eldest) {
+                    return size() > MAX_RESOLVED_HOSTS;
+                }
+            });
+    private final HashMap<Integer, List<Reservation>> pendingStays = new HashMap<>();
+    private PriceCalendar priceCalendar = new PriceCalendar();
+    private boolean guestOverlapCheck;
 
     public final static String RESERVATION_NULL_ERROR = "CANNOT ADD NULL RESERVATION";
     public final static String CHECKIN_NULL_ERROR = "RESERVATION MUST HAVE CHECK-IN";
@@ -28,14 +53,20 @@ public class ReservationService {
     public final static String RESERVATION_NOT_FOUND_ERROR = "RESERVATION NOT FOUND";
     public final static String OVERLAPPING_RESERVATION_ERROR = "RESERVATIONS CANNOT OVERLAP";
     public final static String CHECKIN_AFTER_CHECKOUT_ERROR = "RESERVATIONS CHECK-IN MUST BE AT LEAST 1 DAY BEFORE CHECK-OUT";
+    public final static String GUEST_OVERLAPPING_RESERVATION_ERROR = "GUEST ALREADY HAS A RESERVATION FOR THESE DATES";
     public final static String GUEST_NOT_FOUND_ERROR = "GUEST NOT FOUND.";
     public final static String HOST_NOT_FOUND_ERROR = "HOST NOT FOUND.";
+    public final static String WRITE_FAILED_ERROR = "RESERVATION COULD NOT BE SAVED";
+    public final static String CONFLICT_ERROR = "HOST WAS CHANGED BY ANOTHER USER, PLEASE TRY AGAIN";
+    private final static int MAX_RESOLVED_HOSTS = 1000; // as many Host as the repository caches by default
 
-    public ReservationService(ReservationRepository repository, ClientRepository<Guest> guestRepository, ClientRepository<Host> hostRepository) {
+    public ReservationService(ReservationRepository repository, ClientRepository<Guest> guestRepository, HostRepository hostRepository) {
         this.repository = repository;
         this.hostRepository = hostRepository;
         guestMap = guestRepository.findAll().stream()
                 .collect(Collectors.toMap(Guest::getId, g -> g));
+        guestValues = guestMap.values().stream()
+                .collect(Collectors.toUnmodifiableMap(Guest::getId, GuestValue::new));
     }
 
     /**
@@ -45,11 +76,56 @@ public class ReservationService {
      * @return - List<Reservation> associated with a Host
      */
     public List<Reservation> findByHost(Host h) {
-        List<Reservation> result = repository.findByHost(h);
-        result.forEach(
-                r -> r.setGuest(guestMap.get(r.getGuest().getId()))
-        );
-        return result;
+        return toReservations(h, repository.findValuesByHost(h));
+    }
+
+    /**
+     * Finds all Reservation for a given Host without blocking on the Host file
+     *
+     * @param h - Host to find the Reservation data
+     * @return a handle completed with the Reservation of findByHost
+     */
+    public CompletableFuture<List<Reservation>> findByHostAsync(Host h) {
+        return repository.findValuesByHostAsync(h).thenApply(stored -> toReservations(h, stored));
+    }
+
+    /**
+     * Finds all Reservation for a given Host as immutable values, with their Guest and Host
+     * resolved when the values are built. The resolved list is kept until the Reservation
+     * or the Host change, so repeated calls from any thread share one list.
+     *
+     * @param h - Host to find the Reservation data
+     * @return - List<ReservationValue> associated with a Host
+     */
+    public List<ReservationValue> findStaysByHost(Host h) {
+        return resolveStays(h, repository.findValuesByHost(h));
+    }
+
+    /**
+     * Finds all Reservation for a given Host as immutable values without blocking on the
+     * Host file
+     *
+     * @param h - Host to find the Reservation data
+     * @return a handle completed with the values of findStaysByHost
+     */
+    public CompletableFuture<List<ReservationValue>> findStaysByHostAsync(Host h) {
+        return repository.findValuesByHostAsync(h).thenApply(stored -> resolveStays(h, stored));
+    }
+
+    /**
+     * Finds the Reservation of many Host as immutable values. The Host files are read
+     * concurrently on the I/O pool of the repository, so the fan-out waits on the disk
+     * about one read per pool thread rather than one read per Host.
+     *
+     * @param hosts - Host to find the Reservation data
+     * @return a handle completed with the values of each Host, in the order of hosts
+     */
+    public CompletableFuture<List<List<ReservationValue>>> findStaysByHostsAsync(List<Host> hosts) {
+        List<CompletableFuture<List<ReservationValue>>> reads = hosts.stream()
+                .map(this::findStaysByHostAsync)
+                .toList();
+        return CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> reads.stream().map(CompletableFuture::join).toList());
     }
 
     /**
@@ -60,15 +136,184 @@ public class ReservationService {
      * @return a Reservation with a matching Host and id
      */
     public Reservation findById(Host h, int id) {
-        Reservation result = repository.findById(h, id);
-        if (result != null) {
-            result.setGuest(guestMap.get(result.getGuest().getId()));
+        Reservation found = repository.findById(h, id);
+        if (found == null) {
+            return null;
+        }
+        Reservation r = new Reservation(found.getId(), found.getCheckIn(), found.getCheckOut(), found.getHost(),
+                guestMap.get(found.getGuest().getId()));
+        r.setTotalCents(found.isPriced() ? found.getTotalCents() : Reservation.UNPRICED);
+        return r;
+    }
+
+    /**
+     * Finds all Reservation of a Guest, at every Host
+     *
+     * @param g - Guest to find the Reservation data
+     * @return - List<Reservation> of the Guest by check-in, with Guest and Host resolved
+     */
+    public List<Reservation> findByGuest(Guest g) {
+        return resolve(repository.findByGuest(g));
+    }
+
+    /**
+     * Finds the Reservation of every Host that check in on a date
+     *
+     * @param date - the day of arrival
+     * @return - List<Reservation> by check-in, with Guest and Host resolved
+     */
+    public List<Reservation> findArrivals(LocalDate date) {
+        return resolve(repository.findArrivals(date));
+    }
+
+    /**
+     * Finds the Reservation of every Host that check out on a date
+     *
+     * @param date - the day of departure
+     * @return - List<Reservation> by check-in, with Guest and Host resolved
+     */
+    public List<Reservation> findDepartures(LocalDate date) {
+        return resolve(repository.findDepartures(date));
+    }
+
+    /**
+     * Finds the Reservation of every Host with a night in [from, to), e.g. the guests in
+     * house on a night, or over a week
+     *
+     * @param from - first night of the range
+     * @param to - day the range ends
+     * @return - List<Reservation> by check-in, with Guest and Host resolved
+     */
+    public List<Reservation> findActive(LocalDate from, LocalDate to) {
+        return resolve(repository.findActive(from, to));
+    }
+
+    /**
+     * With the guest overlap check enabled, a Reservation is also rejected when its Guest
+     * is already staying at another Host, or in another Reservation, on any of its nights
+     *
+     * @param guestOverlapCheck - true to validate stays of the Guest across Host
+     */
+    public void setGuestOverlapCheck(boolean guestOverlapCheck) {
+        this.guestOverlapCheck = guestOverlapCheck;
+    }
+
+    /**
+     * Quotes many stays at a Host from its price calendar, with seasonal rates applied
+     *
+     * @param h - Host whose rates apply
+     * @param ranges - stays to quote
+     * @return the price in cents of each stay, in the order of ranges
+     */
+    public long[] quote(Host h, List<DateRange> ranges) {
+        return priceCalendar.quote(h, ranges);
+    }
+
+    /**
+     * Finds the Host that are free for a whole stay, with the price each quotes for it
+     *
+     * @param hosts - Host to search, e.g. the Host of a State
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @return a Result<List<HostQuote>> of the available Host, or the errors of the stay
+     */
+    public Result<List<HostQuote>> findAvailable(List<Host> hosts, LocalDate checkIn, LocalDate checkOut) {
+        Result<List<HostQuote>> result = validateStay(checkIn, checkOut);
+        if (!result.isSuccess()) {
+            return result;
         }
+        ArrayList<HostQuote> quotes = new ArrayList<>();
+        for (Host h : repository.findAvailable(hosts, checkIn, checkOut)) {
+            quotes.add(new HostQuote(h, priceCalendar.quote(h, checkIn, checkOut)));
+        }
+        result.setPayload(quotes);
         return result;
     }
 
     /**
-     * Add a Reservation, if it meets the validation criteria
+     * Finds the Host that are free for a whole stay, with the price each quotes for it,
+     * checking every Host concurrently on the I/O pool of the repository
+     *
+     * @param hosts - Host to search, e.g. the Host of a State
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @return a handle completed with the Result of findAvailable
+     */
+    public CompletableFuture<Result<List<HostQuote>>> findAvailableAsync(List<Host> hosts, LocalDate checkIn,
+                                                                        LocalDate checkOut) {
+        Result<List<HostQuote>> result = validateStay(checkIn, checkOut);
+        if (!result.isSuccess()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        List<CompletableFuture<List<Host>>> checks = hosts.stream()
+                .map(h -> repository.findAvailableAsync(List.of(h), checkIn, checkOut))
+                .toList();
+        return CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    ArrayList<HostQuote> quotes = new ArrayList<>();
+                    for (CompletableFuture<List<Host>> check : checks) {
+                        for (Host h : check.join()) {
+                            quotes.add(new HostQuote(h, priceCalendar.quote(h, checkIn, checkOut)));
+                        }
+                    }
+                    result.setPayload(quotes);
+                    return result;
+                });
+    }
+
+    /**
+     * Checks the dates of a stay searched for
+     *
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @return a Result containing any errors
+     */
+    private Result<List<HostQuote>> validateStay(LocalDate checkIn, LocalDate checkOut) {
+        Result<List<HostQuote>> result = new Result<>();
+        if (checkIn == null) {
+            result.addError(CHECKIN_NULL_ERROR);
+        }
+        if (checkOut == null) {
+            result.addError(CHECKOUT_NULL_ERROR);
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
+        if (checkIn.compareTo(checkOut) >= 0) {
+            result.addError(CHECKIN_AFTER_CHECKOUT_ERROR);
+        }
+        if (checkIn.compareTo(LocalDate.now()) < 0) {
+            result.addError(CHECKIN_IN_PAST_ERROR);
+        }
+        return result;
+    }
+
+    /**
+     * Prices a Reservation from the price calendar, with seasonal rates applied, so the
+     * total shown before it is booked is the total it is booked at. Reservation without
+     * a Host or dates are left unpriced.
+     *
+     * @param r - Reservation to price
+     */
+    public void price(Reservation r) {
+        if (r != null && r.getHost() != null && r.getCheckIn() != null && r.getCheckOut() != null) {
+            r.setTotalCents(priceCalendar.quote(r));
+        }
+    }
+
+    public PriceCalendar getPriceCalendar() {
+        return priceCalendar;
+    }
+
+    public void setPriceCalendar(PriceCalendar priceCalendar) {
+        this.priceCalendar = priceCalendar;
+    }
+
+    /**
+     * Add a Reservation, if it meets the validation criteria. The checks that need no
+     * Reservation data run first; the overlap checks then run against the state of the
+     * Host the Reservation is written from, so each add reads and writes the Host once.
+     * The Reservation is booked at the total quoted by the price calendar.
      *
      * @param r - Reservation to be added
      * @return a Result<Reservation> indicating whether the add was successful
@@ -78,12 +323,147 @@ public class ReservationService {
         if (!result.isSuccess()) {
             return result;
         }
-        result.setPayload(repository.add(r));
+        price(r);
+        try {
+            repository.addIfValid(r, snapshot -> validateSchedule(snapshot, r, false)).forEach(result::addError);
+        } catch (ConflictException ex) {
+            result.addError(CONFLICT_ERROR);
+        } finally {
+            releaseStays(List.of(r));
+        }
+        if (result.isSuccess()) {
+            result.setPayload(r);
+        }
         return result;
     }
 
     /**
-     * Updates a Reservation, if it exists and the provided updates pass validation
+     * Adds a Reservation as add does, without blocking on the Host file. The checks that
+     * need no Reservation data run on the calling thread.
+     *
+     * @param r - Reservation to be added
+     * @return a handle completed with the Result of add, or exceptionally with the
+     *         DataException add would throw
+     */
+    public CompletableFuture<Result<Reservation>> addAsync(Reservation r) {
+        Result<Reservation> result = validate(r);
+        if (!result.isSuccess()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        price(r);
+        return repository.addIfValidAsync(r, snapshot -> validateSchedule(snapshot, r, false))
+                .whenComplete((errors, ex) -> releaseStays(List.of(r)))
+                .handle((errors, ex) -> settle(result, r, errors, ex));
+    }
+
+    /**
+     * Adds many Reservation, each if it meets the validation criteria of add. The
+     * Reservation are grouped by Host and the groups are submitted to the I/O pool of the
+     * repository; each group is validated against one read of its Host, including against
+     * the Reservation of the group accepted before it, and written with one write of the
+     * Host file. With the guest overlap check enabled, the Reservation of the import
+     * accepted at any Host stay claimed for their Guest until the import completes, so
+     * they are checked against each other before the repository learns of them.
+     *
+     * @param reservations - Reservation to be added
+     * @return a Result<Reservation> for each Reservation, in iteration order of reservations
+     */
+    public List<Result<Reservation>> addAll(Collection<Reservation> reservations) {
+        ArrayList<Reservation> items = new ArrayList<>(reservations);
+        ArrayList<Result<Reservation>> results = new ArrayList<>(items.size());
+        LinkedHashMap<String, List<Integer>> byHost = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Result<Reservation> result = validate(items.get(i));
+            results.add(result);
+            if (result.isSuccess()) {
+                price(items.get(i));
+                byHost.computeIfAbsent(items.get(i).getHost().getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        List<CompletableFuture<Void>> groups = new ArrayList<>(byHost.size());
+        for (List<Integer> positions : byHost.values()) {
+            List<Reservation> batch = positions.stream().map(items::get).toList();
+            groups.add(repository.addAllIfValidAsync(batch.get(0).getHost(), batch,
+                    (snapshot, r) -> validateSchedule(snapshot, r, false)).handle((errors, ex) -> {
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (!(cause instanceof DataException)) {
+                        throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(cause);
+                    }
+                    String error = cause instanceof ConflictException ? CONFLICT_ERROR : WRITE_FAILED_ERROR;
+                    positions.forEach(i -> results.get(i).addError(error));
+                    return null;
+                }
+                for (int j = 0; j < positions.size(); j++) {
+                    Result<Reservation> result = results.get(positions.get(j));
+                    errors.get(j).forEach(result::addError);
+                    if (result.isSuccess()) {
+                        result.setPayload(batch.get(j));
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            CompletableFuture.allOf(groups.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            releaseStays(items);
+        }
+        return results;
+    }
+
+    /**
+     * Claims the dates of a Reservation for its Guest while it is being written, unless
+     * another Reservation of the Guest being written, at any Host, overlaps it. A stay is
+     * only in the guest index of the repository once it is written, so without the claim
+     * two overlapping stays of a Guest written at different Host at once could both pass.
+     *
+     * @param r - Reservation that passed the checks against its Host; a Reservation
+     *          validated again, when its write is retried, does not overlap itself
+     * @return true if r is claimed, false if it overlaps a claimed stay of its Guest
+     */
+    private boolean claimStay(Reservation r) {
+        synchronized (pendingStays) {
+            List<Reservation> stays = pendingStays.computeIfAbsent(r.getGuest().getId(), id -> new ArrayList<>());
+            for (Reservation stay : stays) {
+                if (stay == r) {
+                    return true;
+                }
+                if (stay.getCheckIn().isBefore(r.getCheckOut()) && stay.getCheckOut().isAfter(r.getCheckIn())) {
+                    return false;
+                }
+            }
+            stays.add(r);
+            return true;
+        }
+    }
+
+    /**
+     * Releases the claims of Reservation whose write completed, successfully or not
+     *
+     * @param reservations - Reservation that may hold a claim
+     */
+    private void releaseStays(Collection<Reservation> reservations) {
+        synchronized (pendingStays) {
+            for (Reservation r : reservations) {
+                if (r == null || r.getGuest() == null) {
+                    continue;
+                }
+                List<Reservation> stays = pendingStays.get(r.getGuest().getId());
+                if (stays != null) {
+                    stays.remove(r);
+                    if (stays.isEmpty()) {
+                        pendingStays.remove(r.getGuest().getId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates a Reservation, if it exists and the provided updates pass validation. As
+     * with add, the Host is read and written once, and the Reservation is booked at the
+     * total quoted by the price calendar.
      *
      * @param r - Reservation to update
      * @return a Result<Reservation> indicating if the update was successful
@@ -93,15 +473,38 @@ public class ReservationService {
         if (!result.isSuccess()){
             return result;
         }
-        if (repository.update(r)) {
+        price(r);
+        try {
+            repository.updateIfValid(r, snapshot -> validateSchedule(snapshot, r, true)).forEach(result::addError);
+        } catch (ConflictException ex) {
+            result.addError(CONFLICT_ERROR);
+        } finally {
+            releaseStays(List.of(r));
+        }
+        if (result.isSuccess()) {
             result.setPayload(r);
-        } else {
-            result.addError(RESERVATION_NOT_FOUND_ERROR);
         }
-
         return result;
     }
 
+    /**
+     * Updates a Reservation as update does, without blocking on the Host file
+     *
+     * @param r - Reservation to update
+     * @return a handle completed with the Result of update, or exceptionally with the
+     *         DataException update would throw
+     */
+    public CompletableFuture<Result<Reservation>> updateAsync(Reservation r) {
+        Result<Reservation> result = validate(r);
+        if (!result.isSuccess()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        price(r);
+        return repository.updateIfValidAsync(r, snapshot -> validateSchedule(snapshot, r, true))
+                .whenComplete((errors, ex) -> releaseStays(List.of(r)))
+                .handle((errors, ex) -> settle(result, r, errors, ex));
+    }
+
     /**
      * Deletes a Reservation, if it exists.
      *
@@ -110,14 +513,130 @@ public class ReservationService {
      */
     public Result<Reservation> delete(Reservation r) throws DataException {
         Result<Reservation> result = new Result<>();
-        if (!repository.delete(r)) {
-            result.addError(RESERVATION_NOT_FOUND_ERROR);
+        try {
+            if (!repository.delete(r)) {
+                result.addError(RESERVATION_NOT_FOUND_ERROR);
+            }
+        } catch (ConflictException ex) {
+            result.addError(CONFLICT_ERROR);
         }
         return result;
     }
 
     /**
-     * Validates that a Reservation can be added
+     * Resolves the Guest and Host of the stored values of a Host, reusing the list resolved
+     * last time if neither the values nor the Host changed since; the lists of the most
+     * recently resolved Host are kept, up to MAX_RESOLVED_HOSTS
+     *
+     * @param h - Host the values belong to
+     * @param stored - values of the Host as stored by the repository
+     * @return the resolved values, in the order of stored
+     */
+    private List<ReservationValue> resolveStays(Host h, List<ReservationValue> stored) {
+        HostValue host = new HostValue(h);
+        ResolvedStays resolved = resolvedStays.get(h.getId());
+        if (resolved != null && resolved.stored == stored && resolved.host.equals(host)) {
+            return resolved.stays;
+        }
+        List<ReservationValue> stays = stored.stream()
+                .map(stay -> stay.withHost(host)
+                        .withGuest(guestValues.getOrDefault(stay.getGuest().getId(), stay.getGuest())))
+                .toList();
+        resolvedStays.put(h.getId(), new ResolvedStays(stored, host, stays));
+        return stays;
+    }
+
+    /**
+     * Builds the Reservation of a Host from its stored values, with the full Guest
+     *
+     * @param h - Host the values belong to
+     * @param stored - values of the Host as stored by the repository
+     * @return new Reservation, in the order of stored
+     */
+    private List<Reservation> toReservations(Host h, List<ReservationValue> stored) {
+        List<Reservation> result = new ArrayList<>();
+        for (ReservationValue stay : stored) {
+            Reservation r = new Reservation(stay.getId(), stay.getCheckIn(), stay.getCheckOut(), h,
+                    guestMap.get(stay.getGuest().getId()));
+            r.setTotalCents(stay.isPriced() ? stay.getTotalCents() : Reservation.UNPRICED);
+            result.add(r);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes a Reservation as delete does, without blocking on the Host file
+     *
+     * @param r - Reservation to be deleted
+     * @return a handle completed with the Result of delete, or exceptionally with the
+     *         DataException delete would throw
+     */
+    public CompletableFuture<Result<Reservation>> deleteAsync(Reservation r) {
+        return repository.deleteAsync(r)
+                .handle((deleted, ex) -> settle(new Result<>(), null,
+                        Boolean.FALSE.equals(deleted) ? List.of(RESERVATION_NOT_FOUND_ERROR) : List.of(), ex));
+    }
+
+    /**
+     * Completes the Result of an async mutation: a conflict becomes CONFLICT_ERROR as in
+     * the blocking methods, and any other failure is passed on to the caller
+     *
+     * @param result - Result of the checks made before the mutation
+     * @param payload - Reservation to return if the mutation succeeded, or null
+     * @param errors - errors of the mutation, if it completed
+     * @param ex - failure of the mutation, or null
+     * @return the completed Result
+     */
+    private static Result<Reservation> settle(Result<Reservation> result, Reservation payload,
+                                              List<String> errors, Throwable ex) {
+        if (ex != null) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (!(cause instanceof ConflictException)) {
+                throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(cause);
+            }
+            result.addError(CONFLICT_ERROR);
+        } else {
+            errors.forEach(result::addError);
+        }
+        if (result.isSuccess() && payload != null) {
+            result.setPayload(payload);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the Reservation of the cross Host queries of the repository, which hold a
+     * Guest and Host with only their ids, again with the full Guest and Host. Only the
+     * Host the Reservation refer to are looked up.
+     *
+     * @param reservations - Reservation to resolve
+     * @return new Reservation, in the order of reservations
+     */
+    private List<Reservation> resolve(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return reservations;
+        }
+        HashMap<String, Host> hosts = new HashMap<>();
+        for (Reservation r : reservations) {
+            hosts.computeIfAbsent(r.getHost().getId(), id -> {
+                Host found = hostRepository.findById(id);
+                return found == null ? r.getHost() : found;
+            });
+        }
+        return reservations.stream()
+                .map(r -> {
+                    Reservation resolved = new Reservation(r.getId(), r.getCheckIn(), r.getCheckOut(),
+                            hosts.get(r.getHost().getId()),
+                            guestMap.getOrDefault(r.getGuest().getId(), r.getGuest()));
+                    resolved.setTotalCents(r.isPriced() ? r.getTotalCents() : Reservation.UNPRICED);
+                    return resolved;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validates a Reservation without its Host data, cheapest checks first: nulls, then
+     * the dates, then that the Guest and Host exist
      *
      * @param r - Reservation to be validated
      * @return a Result<Reservation> containing any errors
@@ -164,8 +683,7 @@ public class ReservationService {
     }
 
     /**
-     * Checks that the Reservation check-in is before the check-out and ensures that
-     * there are no overlapping reservations.
+     * Checks that the Reservation check-in is before the check-out and not in the past
      *
      * @param r - Reservation to be validated
      * @return any errors that indicate failure
@@ -178,9 +696,6 @@ public class ReservationService {
         if (r.getCheckIn().compareTo(LocalDate.now()) < 0) {
             errors.add(CHECKIN_IN_PAST_ERROR);
         }
-        if (overlappingReservation(r)){
-            errors.add(OVERLAPPING_RESERVATION_ERROR);
-        }
         return errors;
     }
 
@@ -192,30 +707,63 @@ public class ReservationService {
      */
     private List<String> validateChildren(Reservation r){
         ArrayList<String> errors = new ArrayList<>();
-        if (hostRepository.findByEmail(r.getHost().getEmail()) == null) {
-            errors.add(HOST_NOT_FOUND_ERROR);
-        }
         if (guestMap.get(r.getGuest().getId()) == null) {
             errors.add(GUEST_NOT_FOUND_ERROR);
         }
+        if (hostRepository.findByEmail(r.getHost().getEmail()) == null) {
+            errors.add(HOST_NOT_FOUND_ERROR);
+        }
         return errors;
     }
 
     /**
-     * Checks if the Reservation overlaps an existing Reservation
+     * Checks the Reservation against the state of its Host it is written from: that it
+     * exists when it is updated, then that it overlaps no other Reservation of the Host
+     * and, with the guest overlap check enabled, no other stay of its Guest, written or
+     * being written; a Reservation that passes is claimed until its write completes
      *
+     * @param snapshot - the Reservation of the Host
      * @param r - Reservation to be validated
-     * @return true if the Reservation overlaps an existing
-     */
-    private boolean overlappingReservation(Reservation r) {
-        List<Reservation> reservations = findByHost(r.getHost());
-        for (Reservation reservation : reservations) {
-           if(!(reservation.getCheckIn().compareTo(r.getCheckOut()) >= 0
-           || reservation.getCheckOut().compareTo(r.getCheckIn()) <= 0)
-           && reservation.getId() != r.getId()) {
-               return true;
-           }
-        }
-        return false;
+     * @param existing - true if r is an update of a Reservation of the Host
+     * @return any errors that indicate failure
+     */
+    private List<String> validateSchedule(HostSnapshot snapshot, Reservation r, boolean existing) {
+        ArrayList<String> errors = new ArrayList<>();
+        if (existing && !snapshot.contains(r.getId())) {
+            errors.add(RESERVATION_NOT_FOUND_ERROR);
+            return errors;
+        }
+        int excludeId = existing ? r.getId() : 0;
+        if (snapshot.hasOverlap(r.getCheckIn(), r.getCheckOut(), excludeId)) {
+            errors.add(OVERLAPPING_RESERVATION_ERROR);
+        }
+        if (guestOverlapCheck && errors.isEmpty() && (!claimStay(r)
+                || repository.hasGuestOverlap(r.getGuest(), r.getCheckIn(), r.getCheckOut(), r.getHost(), excludeId))) {
+            releaseStays(List.of(r));
+            errors.add(GUEST_OVERLAPPING_RESERVATION_ERROR);
+        }
+        return errors;
+    }
+
+    /**
+     * The resolved values of a Host, and the repository list and Host they were built from
+     */
+    private static final class ResolvedStays {
+
+        /*
+        FIELDS
+         */
+        private final List<ReservationValue> stored;
+        private final HostValue host;
+        private final List<ReservationValue> stays;
+
+        /*
+        CONSTRUCTOR
+         */
+        ResolvedStays(List<ReservationValue> stored, HostValue host, List<ReservationValue> stays) {
+            this.stored = stored;
+            this.host = host;
+            this.stays = stays;
+        }
     }
 }
@@ -0,0 +1,47 @@
+package michaelarn0ld.mastery.models;
+
+import java.time.LocalDate;
+
+/**
+ * A stay of consecutive nights, from the night of check-in up to, but not including,
+ * the day of check-out.
+ */
+public class DateRange {
+
+    /*
+    FIELDS
+     */
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+
+    /*
+    CONSTRUCTOR
+     */
+    public DateRange(LocalDate checkIn, LocalDate checkOut) {
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+
+    /*
+    GETTERS
+     */
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * @return the number of nights of the stay, or 0 if check-out is not after check-in
+     */
+    public long getNights() {
+        return Math.max(0, checkOut.toEpochDay() - checkIn.toEpochDay());
+    }
+
+    @Override
+    public String toString() {
+        return "[" + checkIn + ", " + checkOut + ")";
+    }
+}
@@ -0,0 +1,91 @@
+package michaelarn0ld.mastery.models;
+
+import java.util.Objects;
+
+/**
+ * Immutable copy of a Guest; it can be shared between threads and held by caches
+ * without defensive copies.
+ */
+public final class GuestValue {
+
+    /*
+    FIELDS
+     */
+    private final int id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final String phoneNumber;
+    private final State state;
+
+    /*
+    CONSTRUCTOR
+     */
+    public GuestValue(Guest g) {
+        this.id = g.getId();
+        this.firstName = g.getFirstName();
+        this.lastName = g.getLastName();
+        this.email = g.getEmail();
+        this.phoneNumber = g.getPhoneNumber();
+        this.state = g.getState();
+    }
+
+    /*
+    GETTERS
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return a new mutable Guest with the same data
+     */
+    public Guest toGuest() {
+        Guest g = new Guest(id);
+        g.setFirstName(firstName);
+        g.setLastName(lastName);
+        g.setEmail(email);
+        g.setPhoneNumber(phoneNumber);
+        g.setState(state);
+        return g;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GuestValue)) {
+            return false;
+        }
+        GuestValue other = (GuestValue) o;
+        return id == other.id && Objects.equals(firstName, other.firstName)
+                && Objects.equals(lastName, other.lastName) && Objects.equals(email, other.email)
+                && Objects.equals(phoneNumber, other.phoneNumber) && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, firstName, lastName, email, phoneNumber, state);
+    }
+}
@@ -11,8 +11,8 @@ public class Host extends Client {
     private String streetAddress;
     private String city;
     private String postalCode;
-    private BigDecimal standardRate;
-    private BigDecimal weekendRate;
+    private long standardRateCents;
+    private long weekendRateCents;
 
     /*
     CONSTRUCTORS
@@ -58,19 +58,38 @@ public class Host extends Client {
         this.postalCode = postalCode;
     }
 
+    public long getStandardRateCents() {
+        return standardRateCents;
+    }
+
+    public void setStandardRateCents(long standardRateCents) {
+        this.standardRateCents = standardRateCents;
+    }
+
+    public long getWeekendRateCents() {
+        return weekendRateCents;
+    }
+
+    public void setWeekendRateCents(long weekendRateCents) {
+        this.weekendRateCents = weekendRateCents;
+    }
+
+    /*
+    DECIMAL ADAPTERS; rates are held in cents, rounded half up
+     */
     public BigDecimal getStandardRate() {
-        return standardRate;
+        return Money.toDecimal(standardRateCents);
     }
 
     public void setStandardRate(BigDecimal standardRate) {
-        this.standardRate = standardRate;
+        this.standardRateCents = standardRate == null ? 0 : Money.ofDecimal(standardRate);
     }
 
     public BigDecimal getWeekendRate() {
-        return weekendRate;
+        return Money.toDecimal(weekendRateCents);
     }
 
     public void setWeekendRate(BigDecimal weekendRate) {
-        this.weekendRate = weekendRate;
+        this.weekendRateCents = weekendRate == null ? 0 : Money.ofDecimal(weekendRate);
     }
 }
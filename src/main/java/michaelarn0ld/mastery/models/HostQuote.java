@@ -0,0 +1,32 @@
+package michaelarn0ld.mastery.models;
+
+/**
+ * The price quoted by a Host for a stay
+ */
+public class HostQuote {
+
+    /*
+    FIELDS
+     */
+    private final Host host;
+    private final long totalCents;
+
+    /*
+    CONSTRUCTOR
+     */
+    public HostQuote(Host host, long totalCents) {
+        this.host = host;
+        this.totalCents = totalCents;
+    }
+
+    /*
+    GETTERS
+     */
+    public Host getHost() {
+        return host;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+}
@@ -0,0 +1,122 @@
+package michaelarn0ld.mastery.models;
+
+import java.util.Objects;
+
+/**
+ * Immutable copy of a Host; it can be shared between threads and held by caches
+ * without defensive copies.
+ */
+public final class HostValue {
+
+    /*
+    FIELDS
+     */
+    private final String id;
+    private final String lastName;
+    private final String email;
+    private final String phoneNumber;
+    private final State state;
+    private final String streetAddress;
+    private final String city;
+    private final String postalCode;
+    private final long standardRateCents;
+    private final long weekendRateCents;
+
+    /*
+    CONSTRUCTOR
+     */
+    public HostValue(Host h) {
+        this.id = h.getId();
+        this.lastName = h.getLastName();
+        this.email = h.getEmail();
+        this.phoneNumber = h.getPhoneNumber();
+        this.state = h.getState();
+        this.streetAddress = h.getStreetAddress();
+        this.city = h.getCity();
+        this.postalCode = h.getPostalCode();
+        this.standardRateCents = h.getStandardRateCents();
+        this.weekendRateCents = h.getWeekendRateCents();
+    }
+
+    /*
+    GETTERS
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getStreetAddress() {
+        return streetAddress;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    public long getStandardRateCents() {
+        return standardRateCents;
+    }
+
+    public long getWeekendRateCents() {
+        return weekendRateCents;
+    }
+
+    /**
+     * @return a new mutable Host with the same data
+     */
+    public Host toHost() {
+        Host h = new Host(id);
+        h.setLastName(lastName);
+        h.setEmail(email);
+        h.setPhoneNumber(phoneNumber);
+        h.setState(state);
+        h.setStreetAddress(streetAddress);
+        h.setCity(city);
+        h.setPostalCode(postalCode);
+        h.setStandardRateCents(standardRateCents);
+        h.setWeekendRateCents(weekendRateCents);
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HostValue)) {
+            return false;
+        }
+        HostValue other = (HostValue) o;
+        return standardRateCents == other.standardRateCents && weekendRateCents == other.weekendRateCents
+                && Objects.equals(id, other.id) && Objects.equals(lastName, other.lastName)
+                && Objects.equals(email, other.email) && Objects.equals(phoneNumber, other.phoneNumber)
+                && state == other.state && Objects.equals(streetAddress, other.streetAddress)
+                && Objects.equals(city, other.city) && Objects.equals(postalCode, other.postalCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, lastName, email, phoneNumber, state, streetAddress, city, postalCode,
+                standardRateCents, weekendRateCents);
+    }
+}
@@ -0,0 +1,77 @@
+package michaelarn0ld.mastery.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts of money are held as a primitive long of cents; this class converts them from
+ * and to BigDecimal, which is only used where amounts are entered or displayed, and does
+ * overflow-checked arithmetic on them.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount to cents, rounding half up to the nearest cent
+     *
+     * @param amount - amount in dollars
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount does not fit in a long of cents
+     */
+    public static long ofDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param cents - amount in cents
+     * @return the amount in dollars, with two decimals
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * @param cents - amount in cents, e.g. a nightly rate
+     * @param count - number of times the amount is charged
+     * @return the total in cents
+     * @throws ArithmeticException if the total overflows
+     */
+    public static long times(long cents, long count) {
+        return Math.multiplyExact(cents, count);
+    }
+
+    /**
+     * @return the sum in cents
+     * @throws ArithmeticException if the sum overflows
+     */
+    public static long plus(long cents, long otherCents) {
+        return Math.addExact(cents, otherCents);
+    }
+
+    /**
+     * Formats an amount the way its BigDecimal form prints, without creating one
+     *
+     * @param cents - amount in cents
+     * @return the amount in dollars with two decimals, e.g. "1653.31"
+     */
+    public static String format(long cents) {
+        if (cents == Long.MIN_VALUE) {
+            return toDecimal(cents).toString();
+        }
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        StringBuilder text = new StringBuilder(24);
+        if (cents < 0) {
+            text.append('-');
+        }
+        text.append(abs / 100).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+}
@@ -10,11 +10,27 @@ public class Reservation {
     /*
     FIELDS
      */
+    public static final long UNPRICED = -1;
+
     private int id;
     private LocalDate checkIn;
     private LocalDate checkOut;
     private Host host;
     private Guest guest;
+    private long totalCents = UNPRICED;
+
+    /*
+    CONSTRUCTORS
+     */
+    public Reservation() {}
+
+    public Reservation(int id, LocalDate checkIn, LocalDate checkOut, Host host, Guest guest) {
+        this.id = id;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.host = host;
+        this.guest = guest;
+    }
 
     /*
     GETTERS & SETTERS
@@ -60,21 +76,81 @@ public class Reservation {
     }
 
     /**
-     * Determine the total cost of a reservation, taking into consideration the
-     * differing rates between weekdays and weekends.
+     * Determine the total cost of a reservation: the total it was priced at when it was
+     * booked, or, if it was not priced, its cost at the differing rates between weekdays
+     * and weekends of its Host. The nights of each kind are counted arithmetically, so
+     * the cost does not depend on the length of the stay.
      *
-     * @return BigDecimal value representing the total cost of the guest's stay
+     * @return the total cost of the guest's stay in cents
      */
-    public BigDecimal getTotal() {
-        BigDecimal total = BigDecimal.ZERO;
-        LocalDate checkIn = this.checkIn;
-        while (checkIn.compareTo(checkOut) < 0) {
-            total = switch (checkIn.getDayOfWeek()) {
-                case SATURDAY, SUNDAY -> total.add(host.getWeekendRate());
-                default -> total.add(host.getStandardRate());
-            };
-            checkIn = checkIn.plusDays(1);
+    public long getTotalCents() {
+        if (totalCents != UNPRICED) {
+            return totalCents;
         }
-        return total;
+        return totalCents(checkIn, checkOut, host.getStandardRateCents(), host.getWeekendRateCents());
+    }
+
+    /**
+     * Sets the total the Reservation is booked at, e.g. as quoted from the price calendar
+     * with seasonal rates, or as stored in the Host file
+     *
+     * @param totalCents - total cost of the stay in cents, or UNPRICED to price it at the
+     *                   standard and weekend rates of its Host
+     */
+    public void setTotalCents(long totalCents) {
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * @return true if the Reservation holds the total it is booked at
+     */
+    public boolean isPriced() {
+        return totalCents != UNPRICED;
+    }
+
+    /**
+     * Determines the total cost of a stay from the rates of its Host
+     *
+     * @param checkIn - first night of the stay
+     * @param checkOut - day the stay ends
+     * @param standardRateCents - rate of a weekday night in cents
+     * @param weekendRateCents - rate of a weekend night in cents
+     * @return the total cost of the stay in cents
+     */
+    public static long totalCents(LocalDate checkIn, LocalDate checkOut, long standardRateCents,
+                                  long weekendRateCents) {
+        long nights = Math.max(0, checkOut.toEpochDay() - checkIn.toEpochDay());
+        long weekendNights = countWeekendNights(checkIn, nights);
+        return Money.plus(
+                Money.times(standardRateCents, nights - weekendNights),
+                Money.times(weekendRateCents, weekendNights));
+    }
+
+    /**
+     * @return BigDecimal value, with two decimals, representing the total cost of the
+     *         guest's stay
+     */
+    public BigDecimal getTotal() {
+        return Money.toDecimal(getTotalCents());
+    }
+
+    /**
+     * Counts the Saturday and Sunday nights of a stay
+     *
+     * @param checkIn - first night of the stay
+     * @param nights - length of the stay
+     * @return the number of nights that fall on a weekend
+     */
+    public static long countWeekendNights(LocalDate checkIn, long nights) {
+        long first = checkIn.getDayOfWeek().getValue() - 1; // Monday = 0 ... Sunday = 6
+        return weekendDaysBefore(first + nights) - weekendDaysBefore(first);
+    }
+
+    /**
+     * @param days - number of days counted from a Monday
+     * @return the number of Saturdays and Sundays among them
+     */
+    private static long weekendDaysBefore(long days) {
+        return 2 * (days / 7) + Math.max(0, days % 7 - 5);
     }
 }
@@ -0,0 +1,150 @@
+package michaelarn0ld.mastery.models;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Immutable variant of a Reservation, with its Host and Guest fixed when it is built.
+ * Changes are made with the with methods, which return a new value, so one instance can
+ * be handed to any number of threads and held by caches without defensive copies.
+ */
+public final class ReservationValue {
+
+    /*
+    FIELDS
+     */
+    private final int id;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final HostValue host;
+    private final GuestValue guest;
+    private final long totalCents;
+
+    /*
+    CONSTRUCTORS
+     */
+    public ReservationValue(int id, LocalDate checkIn, LocalDate checkOut, HostValue host, GuestValue guest) {
+        this(id, checkIn, checkOut, host, guest, Reservation.UNPRICED);
+    }
+
+    public ReservationValue(int id, LocalDate checkIn, LocalDate checkOut, HostValue host, GuestValue guest,
+                            long totalCents) {
+        this.id = id;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.host = host;
+        this.guest = guest;
+        this.totalCents = totalCents;
+    }
+
+    public ReservationValue(Reservation r) {
+        this(r.getId(), r.getCheckIn(), r.getCheckOut(),
+                r.getHost() == null ? null : new HostValue(r.getHost()),
+                r.getGuest() == null ? null : new GuestValue(r.getGuest()),
+                r.isPriced() ? r.getTotalCents() : Reservation.UNPRICED);
+    }
+
+    /*
+    GETTERS
+     */
+    public int getId() {
+        return id;
+    }
+
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    public HostValue getHost() {
+        return host;
+    }
+
+    public GuestValue getGuest() {
+        return guest;
+    }
+
+    /*
+    WITHERS
+     */
+    public ReservationValue withId(int id) {
+        return new ReservationValue(id, checkIn, checkOut, host, guest, totalCents);
+    }
+
+    /**
+     * @param checkIn - new first night of the stay
+     * @return the value with the new check-in and without a booked total, as the stay is
+     *         priced again when it is updated; likewise withCheckOut
+     */
+    public ReservationValue withCheckIn(LocalDate checkIn) {
+        return new ReservationValue(id, checkIn, checkOut, host, guest);
+    }
+
+    public ReservationValue withCheckOut(LocalDate checkOut) {
+        return new ReservationValue(id, checkIn, checkOut, host, guest);
+    }
+
+    public ReservationValue withHost(HostValue host) {
+        return new ReservationValue(id, checkIn, checkOut, host, guest, totalCents);
+    }
+
+    public ReservationValue withGuest(GuestValue guest) {
+        return new ReservationValue(id, checkIn, checkOut, host, guest, totalCents);
+    }
+
+    /**
+     * @return the total cost of the stay in cents: the total it is booked at, or, if it
+     *         was not priced, its cost at the rates of its Host
+     * @throws IllegalStateException if the value was not priced and has no Host yet, as
+     *         the values a repository stores until their Host is resolved
+     */
+    public long getTotalCents() {
+        if (totalCents != Reservation.UNPRICED) {
+            return totalCents;
+        }
+        if (host == null) {
+            throw new IllegalStateException("Reservation " + id + " has no Host to price it from");
+        }
+        return Reservation.totalCents(checkIn, checkOut, host.getStandardRateCents(), host.getWeekendRateCents());
+    }
+
+    /**
+     * @return true if the value holds the total it is booked at
+     */
+    public boolean isPriced() {
+        return totalCents != Reservation.UNPRICED;
+    }
+
+    /**
+     * @return a new mutable Reservation with the same data, e.g. to pass to an update
+     */
+    public Reservation toReservation() {
+        Reservation r = new Reservation(id, checkIn, checkOut,
+                host == null ? null : host.toHost(),
+                guest == null ? null : guest.toGuest());
+        r.setTotalCents(totalCents);
+        return r;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReservationValue)) {
+            return false;
+        }
+        ReservationValue other = (ReservationValue) o;
+        return id == other.id && Objects.equals(checkIn, other.checkIn) && Objects.equals(checkOut, other.checkOut)
+                && Objects.equals(host, other.host) && Objects.equals(guest, other.guest)
+                && totalCents == other.totalCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, checkIn, checkOut, host, guest, totalCents);
+    }
+}
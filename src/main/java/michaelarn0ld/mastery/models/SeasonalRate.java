@@ -0,0 +1,41 @@
+package michaelarn0ld.mastery.models;
+
+import java.time.LocalDate;
+
+/**
+ * A nightly rate that replaces the standard and weekend rates of a Host for every night
+ * from start up to, but not including, end; a holiday is a season of one night.
+ */
+public class SeasonalRate {
+
+    /*
+    FIELDS
+     */
+    private final LocalDate start;
+    private final LocalDate end;
+    private final long rateCents;
+
+    /*
+    CONSTRUCTOR
+     */
+    public SeasonalRate(LocalDate start, LocalDate end, long rateCents) {
+        this.start = start;
+        this.end = end;
+        this.rateCents = rateCents;
+    }
+
+    /*
+    GETTERS
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public long getRateCents() {
+        return rateCents;
+    }
+}
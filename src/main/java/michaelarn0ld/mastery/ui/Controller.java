@@ -1,5 +1,6 @@
 package michaelarn0ld.mastery.ui;
 
+import michaelarn0ld.mastery.data.ReservationWarmup;
 import michaelarn0ld.mastery.data.exceptions.DataException;
 import michaelarn0ld.mastery.domain.ClientService;
 import michaelarn0ld.mastery.domain.ReservationService;
@@ -8,22 +9,36 @@ import michaelarn0ld.mastery.models.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Controller {
 
+    private static final int CLIENT_PAGE_SIZE = 25;
+
     private final View view;
     private final ReservationService reservationService;
     private final ClientService<Guest> guestService;
     private final ClientService<Host> hostService;
+    private final ReservationWarmup warmup;
+    private boolean warmupReported;
 
     public Controller(View view,
                       ReservationService reservationService,
                       ClientService<Guest> guestService,
                       ClientService<Host> hostService) {
+        this(view, reservationService, guestService, hostService, null);
+    }
+
+    public Controller(View view,
+                      ReservationService reservationService,
+                      ClientService<Guest> guestService,
+                      ClientService<Host> hostService,
+                      ReservationWarmup warmup) {
         this.view = view;
         this.reservationService = reservationService;
         this.guestService = guestService;
         this.hostService = hostService;
+        this.warmup = warmup;
     }
 
     /**
@@ -42,6 +57,7 @@ public class Controller {
      * selects 0, runApp() ends which subsequently terminates run()
      */
     private void runApp() throws DataException {
+        showWarmupProgress();
         for (int option = view.chooseMenuOption(); option > 0; option = view.chooseMenuOption()) {
             switch (option) {
                 case 1:
@@ -56,7 +72,36 @@ public class Controller {
                 case 4:
                     deleteReservation();
                     break;
+                case 5:
+                    searchAvailableHosts();
+                    break;
+                case 6:
+                    showDailyManifest();
+                    break;
             }
+            showWarmupProgress();
+        }
+    }
+
+    /**
+     * Shows how far the background load of the reservation files has come, and its
+     * total load time, or what it failed on, once, when it is done
+     */
+    private void showWarmupProgress() {
+        if (warmup == null || !warmup.isStarted() || warmupReported) {
+            return;
+        }
+        if (warmup.isFailed()) {
+            view.displayMessage("\nLoading reservations failed after %d hosts: %s\n",
+                    warmup.getLoaded(), warmup.getFailure().getMessage());
+            warmupReported = true;
+        } else if (warmup.isDone()) {
+            view.displayMessage("\nLoaded reservations of %d hosts in %d ms\n",
+                    warmup.getLoaded(), warmup.getElapsedMillis());
+            warmupReported = true;
+        } else {
+            view.displayMessage("\nLoading reservations: %d/%s hosts\n",
+                    warmup.getLoaded(), warmup.getTotal() < 0 ? "?" : warmup.getTotal());
         }
     }
 
@@ -95,6 +140,7 @@ public class Controller {
         boolean confirmed;
         do {
             r = view.createReservation(h, g);
+            reservationService.price(r);
             confirmed = view.confirmReservation(r);
         } while (!confirmed);
         showResultMessage(reservationService.add(r), "create");
@@ -119,6 +165,7 @@ public class Controller {
                     boolean confirmed;
                     do {
                         r = view.updateReservation(r);
+                        reservationService.price(r);
                         confirmed = view.confirmReservation(r);
                     } while (!confirmed);
                     showResultMessage(reservationService.update(r), "update");
@@ -162,6 +209,29 @@ public class Controller {
         }
     }
 
+    /**
+     * Shows the Host of a State that are free for a whole stay, with the total each
+     * quotes for it
+     */
+    private void searchAvailableHosts() {
+        view.displayHeader("Search Available Hosts");
+        State s = view.getState("Enter a US state: ");
+        DateRange stay = view.getDateRange();
+        long start = System.nanoTime();
+        List<Host> hosts = hostService.findByState(s);
+        Result<List<HostQuote>> result = reservationService.findAvailable(hosts, stay.getCheckIn(), stay.getCheckOut());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!result.isSuccess()) {
+            view.displayErrors(result.getErrors());
+        } else if (result.getPayload().isEmpty()) {
+            view.displayMessage("\n[ERR]\nNO AVAILABLE HOSTS\n");
+        } else {
+            view.showHostQuotes(result.getPayload());
+            view.displayMessage("%d of %d hosts available, found in %d ms\n",
+                    result.getPayload().size(), hosts.size(), elapsedMillis);
+        }
+    }
+
     /**
      * Asks the users if they want to filter Reservation by Guest
      *
@@ -192,6 +262,25 @@ public class Controller {
         return reservations;
     }
 
+    /**
+     * Shows who checks in, checks out and stays over on a day, at every Host
+     */
+    private void showDailyManifest() {
+        view.displayHeader("Daily Manifest");
+        LocalDate date = view.getManifestDate();
+        long start = System.nanoTime();
+        List<Reservation> arrivals = reservationService.findArrivals(date);
+        List<Reservation> departures = reservationService.findDepartures(date);
+        List<Reservation> stayovers = reservationService.findActive(date, date.plusDays(1)).stream()
+                .filter(r -> r.getCheckIn().isBefore(date))
+                .toList();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        view.showStays("Arrivals " + date, arrivals);
+        view.showStays("Departures " + date, departures);
+        view.showStays("Staying Over " + date, stayovers);
+        view.displayMessage("\nManifest built in %d ms\n", elapsedMillis);
+    }
+
     /**
      * Displays the success or failure of a CRUD operation to the user.
      *
@@ -218,12 +307,30 @@ public class Controller {
     private <T extends Client> T getClient(ClientService<T> clientService, String client) {
         if (view.getFilterOnPrompt("Show " + client + " by State? ")) {
             State s = view.getState("Enter a US state: ");
-            view.showClients(clientService.findByState(s));
+            showClientsByState(clientService, s);
         }
         String email = view.getEmail("Enter " + client + " Email: ");
         return clientService.findByEmail(email);
     }
 
+    /**
+     * Shows the <T extends Client> from a State one page at a time, asking the user
+     * before fetching each following page.
+     *
+     * @param clientService - clientService used to fetch the pages
+     * @param s - State to match on
+     */
+    private <T extends Client> void showClientsByState(ClientService<T> clientService, State s) {
+        int offset = 0;
+        List<T> page = clientService.findByState(s, offset, CLIENT_PAGE_SIZE);
+        view.showClients(page);
+        while (page.size() == CLIENT_PAGE_SIZE && view.getFilterOnPrompt("Show more? ")) {
+            offset += CLIENT_PAGE_SIZE;
+            page = clientService.findByState(s, offset, CLIENT_PAGE_SIZE);
+            view.showClients(page);
+        }
+    }
+
     /**
      * Filters Reservation to remove those which occurred in the past.
      *
@@ -30,9 +30,11 @@ public class View {
         io.println("2. Add a Reservation");
         io.println("3. Update a Reservation");
         io.println("4. Delete a Reservation");
+        io.println("5. Search Available Hosts");
+        io.println("6. Daily Manifest");
         Integer result;
         do {
-            result = io.readInt("Choose [0-4]: ", 0, 4);
+            result = io.readInt("Choose [0-6]: ", 0, 6);
         } while (result == null);
         return result;
     }
@@ -73,23 +75,41 @@ public class View {
     }
 
     /**
-     * Updates the data of a Reservation
+     * Gets the dates of a stay from the user
+     *
+     * @return a DateRange of the dates entered, either of which may be null
+     */
+    public DateRange getDateRange() {
+        LocalDate checkIn = io.readDate("Check In (MM/dd/yyyy): ");
+        LocalDate checkOut = io.readDate("Check Out (MM/dd/yyyy): ");
+        return new DateRange(checkIn, checkOut);
+    }
+
+    /**
+     * Gets the day of a manifest from the user
+     *
+     * @return the date entered, or today if none is entered
+     */
+    public LocalDate getManifestDate() {
+        LocalDate date = io.readDate("Date (MM/dd/yyyy, blank for today): ");
+        return date == null ? LocalDate.now() : date;
+    }
+
+    /**
+     * Reads the updated data of a Reservation; r is left unchanged
      *
      * @param r - Reservation to be updated
-     * @return an updated Reservation
+     * @return a new Reservation with the updated data
      */
     public Reservation updateReservation(Reservation r) {
         LocalDate checkIn = io.readDate("Check In (" +
                 r.getCheckIn().format(DateTimeFormatter.ofPattern("MM/dd/yyyy")) + "): ");
-        if (checkIn != null) {
-            r.setCheckIn(checkIn);
-        }
         LocalDate checkOut = io.readDate("Check Out (" +
                 r.getCheckOut().format(DateTimeFormatter.ofPattern("MM/dd/yyyy")) + "): ");
-        if (checkOut != null) {
-            r.setCheckOut(checkOut);
-        }
-        return r;
+        return new Reservation(r.getId(),
+                checkIn == null ? r.getCheckIn() : checkIn,
+                checkOut == null ? r.getCheckOut() : checkOut,
+                r.getHost(), r.getGuest());
     }
 
     /**
@@ -149,7 +169,7 @@ public class View {
         io.printf("Start: %s\nEnd: %s\nTotal: $%s\n",
                 r.getCheckIn(),
                 r.getCheckOut(),
-                r.getTotal());
+                Money.toDecimal(r.getTotalCents()));
         return io.readBoolean("Is this ok? [y/n]: ");
     }
 
@@ -187,10 +207,66 @@ public class View {
                      r.getCheckIn(),
                      r.getCheckOut(),
                      r.getGuest().getId(),
-                     r.getTotal()
+                     Money.toDecimal(r.getTotalCents())
         ));
     }
 
+    /**
+     * Prints a formatted list of available Host with the total each quotes
+     *
+     * @param quotes - List<HostQuote> to print
+     */
+    public void showHostQuotes(List<HostQuote> quotes) {
+        displayHeader("LAST NAME               EMAIL                                 CITY                TOTAL");
+        quotes.forEach(
+                q -> io.printf("%-20s    %-34s    %-16s    %s\n",
+                        q.getHost().getLastName(),
+                        q.getHost().getEmail(),
+                        q.getHost().getCity(),
+                        Money.toDecimal(q.getTotalCents()))
+        );
+        io.println("");
+    }
+
+    /**
+     * Prints a titled, formatted list of stays across Host
+     *
+     * @param title - heading of the list
+     * @param reservations - List<Reservation> to print; a Guest or Host that could not
+     *                     be resolved is shown by its id
+     */
+    public void showStays(String title, List<Reservation> reservations) {
+        displayHeader(title + " (" + reservations.size() + ")");
+        if (reservations.isEmpty()) {
+            return;
+        }
+        io.println("HOST                    GUEST                   CHECK IN      CHECK OUT");
+        reservations.forEach(
+                r -> io.printf("%-20s    %-20s    %-10s    %-10s\n",
+                        hostName(r.getHost()),
+                        guestName(r.getGuest()),
+                        r.getCheckIn(),
+                        r.getCheckOut())
+        );
+    }
+
+    private static String hostName(Host host) {
+        if (host == null) {
+            return "?";
+        }
+        return host.getLastName() != null ? host.getLastName() : "Host " + host.getId();
+    }
+
+    private static String guestName(Guest guest) {
+        if (guest == null) {
+            return "?";
+        }
+        if (guest.getFirstName() == null || guest.getLastName() == null) {
+            return "Guest " + guest.getId();
+        }
+        return guest.getFirstName() + " " + guest.getLastName();
+    }
+
     /**
      * Prints a formatted list of <T extends Client> data
      *
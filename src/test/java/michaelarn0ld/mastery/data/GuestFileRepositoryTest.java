@@ -1,14 +1,23 @@
 package michaelarn0ld.mastery.data;
 
+import michaelarn0ld.mastery.data.abstractions.ReaderMode;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.snapshot.Fingerprint;
+import michaelarn0ld.mastery.data.snapshot.SnapshotFile;
 import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.State;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +36,11 @@ class GuestFileRepositoryTest {
         Files.copy(seedPath, testPath, StandardCopyOption.REPLACE_EXISTING);
     }
 
+    @AfterEach
+    void teardown() throws IOException {
+        setup();
+    }
+
     @Test
     void shouldFindAll() {
         List<Guest> all = repo.findAll();
@@ -44,4 +58,178 @@ class GuestFileRepositoryTest {
         Guest nobody = repo.findByEmail("Nobody@nobody.com");
         assertNull(nobody);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindByEmailIgnoringCase() {
+        Guest sullivanLomas = repo.findByEmail("SLomas0@MediaFire.com");
+        assertEquals(1, sullivanLomas.getId());
+    }
+
+    @Test
+    void shouldSeeChangesToFile() throws IOException {
+        assertNull(repo.findByEmail("new@guest.com"));
+        Files.writeString(Paths.get(TEST_PATH), "5,New,Guest,new@guest.com,(555) 5555555,TX\n",
+                StandardOpenOption.APPEND);
+        assertEquals(5, repo.findByEmail("new@guest.com").getId());
+        assertEquals(5, repo.findAll().size());
+    }
+
+    @Test
+    void shouldReadSameWithMappedReader() {
+        GuestFileRepository buffered = new GuestFileRepository("./data/guests.csv");
+        GuestFileRepository mapped = new GuestFileRepository("./data/guests.csv");
+        mapped.setReaderMode(ReaderMode.MAPPED);
+
+        List<Guest> expected = buffered.findAll();
+        List<Guest> actual = mapped.findAll();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getFirstName(), actual.get(i).getFirstName());
+            assertEquals(expected.get(i).getLastName(), actual.get(i).getLastName());
+            assertEquals(expected.get(i).getEmail(), actual.get(i).getEmail());
+            assertEquals(expected.get(i).getPhoneNumber(), actual.get(i).getPhoneNumber());
+            assertEquals(expected.get(i).getState(), actual.get(i).getState());
+        }
+    }
+
+    @Test
+    void shouldReadAnyLineEndingInEveryMode() throws IOException {
+        String longName = "L".repeat(20_000);
+        Files.writeString(Paths.get(TEST_PATH), "guest_id,first_name,last_name,email,phone,state\r\n"
+                + "1,Sullivan,Lomas,slomas0@mediafire.com,(702) 7768761,NV\r\n"
+                + "not,a,guest\n"
+                + "2," + longName + ",Gecks,ogecks1@dagondesign.com,(202) 2528316,DC\n"
+                + "3,Tremain,Carncross,tcarncross2@japanpost.jp,(313) 2245034,MI");
+
+        for (ReaderMode mode : ReaderMode.values()) {
+            GuestFileRepository reader = new GuestFileRepository(TEST_PATH);
+            reader.setReaderMode(mode);
+            List<Guest> all = reader.findAll();
+            assertEquals(3, all.size(), mode.name());
+            assertEquals(State.NV, all.get(0).getState(), mode.name());
+            assertEquals(longName, all.get(1).getFirstName(), mode.name());
+            assertEquals(State.MI, all.get(2).getState(), mode.name());
+        }
+    }
+
+    @Test
+    void shouldDecodeUtf8InEveryMode() throws IOException {
+        Files.writeString(Paths.get(TEST_PATH), "guest_id,first_name,last_name,email,phone,state\n"
+                + "1,Zo\u00eb,\u0141\u00f3pez-\u5c71\u7530,zoe@example.com,(702) 7768761,NV\n",
+                StandardCharsets.UTF_8);
+
+        for (ReaderMode mode : ReaderMode.values()) {
+            GuestFileRepository reader = new GuestFileRepository(TEST_PATH);
+            reader.setReaderMode(mode);
+            Guest guest = reader.findAll().get(0);
+            assertEquals("Zo\u00eb", guest.getFirstName(), mode.name());
+            assertEquals("\u0141\u00f3pez-\u5c71\u7530", guest.getLastName(), mode.name());
+            assertEquals(State.NV, guest.getState(), mode.name());
+        }
+    }
+
+    @Test
+    void shouldReadLargeFileInParallelRanges(@TempDir Path dir) throws IOException {
+        Path large = dir.resolve("guests.csv");
+        StringBuilder csv = new StringBuilder("guest_id,first_name,last_name,email,phone,state\n");
+        for (int i = 1; i <= 50_000; i++) {
+            csv.append(i).append(",First").append(i).append(",Last,guest").append(i)
+                    .append("@example.com,(555) 5555555,").append(State.values()[i % State.values().length])
+                    .append('\n');
+        }
+        Files.writeString(large, csv);
+
+        GuestFileRepository buffered = new GuestFileRepository(large.toString());
+        GuestFileRepository parallel = new GuestFileRepository(large.toString());
+        parallel.setReaderMode(ReaderMode.PARALLEL);
+        parallel.setParallelism(4);
+
+        List<Guest> expected = buffered.findAll();
+        List<Guest> actual = parallel.findAll();
+        assertEquals(50_000, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getEmail(), actual.get(i).getEmail());
+            assertEquals(expected.get(i).getState(), actual.get(i).getState());
+        }
+    }
+
+    @Test
+    void shouldFailParallelReadOnMalformedLine(@TempDir Path dir) throws IOException {
+        Path large = dir.resolve("guests.csv");
+        StringBuilder csv = new StringBuilder("guest_id,first_name,last_name,email,phone,state\n");
+        for (int i = 1; i <= 50_000; i++) {
+            csv.append(i == 3 ? "three" : String.valueOf(i)).append(",First").append(i).append(",Last,guest")
+                    .append(i).append("@example.com,(555) 5555555,TX\n");
+        }
+        Files.writeString(large, csv);
+
+        for (ReaderMode mode : ReaderMode.values()) {
+            GuestFileRepository malformed = new GuestFileRepository(large.toString());
+            malformed.setReaderMode(mode);
+            malformed.setParallelism(4);
+            IllegalStateException ex = assertThrows(IllegalStateException.class, malformed::findAll);
+            assertTrue(ex.getCause() instanceof DataException);
+            assertTrue(ex.getCause().getCause() instanceof NumberFormatException);
+        }
+    }
+
+    @Test
+    void shouldWriteSnapshotAndLoadSameGuests(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("guests.csv");
+        Files.copy(Paths.get(SEED_PATH), csv);
+        GuestFileRepository first = new GuestFileRepository(csv.toString());
+        first.setSnapshot(true);
+        List<Guest> expected = first.findAll();
+        assertTrue(Files.exists(first.getSnapshotPath()));
+
+        GuestFileRepository second = new GuestFileRepository(csv.toString());
+        second.setSnapshot(true);
+        List<Guest> actual = second.findAll();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getFirstName(), actual.get(i).getFirstName());
+            assertEquals(expected.get(i).getLastName(), actual.get(i).getLastName());
+            assertEquals(expected.get(i).getEmail(), actual.get(i).getEmail());
+            assertEquals(expected.get(i).getPhoneNumber(), actual.get(i).getPhoneNumber());
+            assertEquals(expected.get(i).getState(), actual.get(i).getState());
+        }
+    }
+
+    @Test
+    void shouldLoadSnapshotOnlyWhileFingerprintMatches(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("guests.csv");
+        Files.copy(Paths.get(SEED_PATH), csv);
+        GuestFileRepository snapshotRepo = snapshotRepository(csv);
+        Fingerprint fingerprint = Fingerprint.of(csv);
+        SnapshotFile.write(snapshotRepo.getSnapshotPath(), out -> {
+            fingerprint.write(out);
+            out.writeInt(1);
+            out.writeInt(99);
+            SnapshotFile.writeString(out, "Snap");
+            SnapshotFile.writeString(out, "Shot");
+            SnapshotFile.writeString(out, "snap@shot.com");
+            SnapshotFile.writeString(out, null);
+            SnapshotFile.writeEnum(out, State.MN);
+        });
+
+        List<Guest> fromSnapshot = snapshotRepository(csv).findAll();
+        assertEquals(1, fromSnapshot.size());
+        assertEquals("snap@shot.com", fromSnapshot.get(0).getEmail());
+        assertNull(fromSnapshot.get(0).getPhoneNumber());
+
+        Files.writeString(csv, "9,Extra,Guest,extra@guest.com,(555) 5555555,TX\n", StandardOpenOption.APPEND);
+        List<Guest> fromCsv = snapshotRepo.findAll();
+        assertEquals(new GuestFileRepository(csv.toString()).findAll().size(), fromCsv.size());
+        assertEquals("extra@guest.com", fromCsv.get(fromCsv.size() - 1).getEmail());
+        assertEquals(fromCsv.size(), snapshotRepository(csv).findAll().size());
+    }
+
+    private static GuestFileRepository snapshotRepository(Path csv) {
+        GuestFileRepository repository = new GuestFileRepository(csv.toString());
+        repository.setSnapshot(true);
+        return repository;
+    }
+}
@@ -52,6 +52,15 @@ public class GuestRepositoryDouble implements ClientRepository<Guest> {
                 .toList();
     }
 
+    @Override
+    public List<Guest> findByState(State s, int offset, int limit) {
+        return guests.stream()
+                .filter(g -> g.getState() == s)
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
     @Override
     public Guest findByEmail(String email) {
         return guests.stream()
@@ -1,16 +1,19 @@
 package michaelarn0ld.mastery.data;
 
 import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.data.abstractions.ReaderMode;
 import michaelarn0ld.mastery.models.Host;
 import michaelarn0ld.mastery.models.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +38,45 @@ class HostFileRepositoryTest {
         assertEquals(4, all.size());
     }
 
+    @Test
+    void shouldFindById() {
+        Host first = repo.findAll().get(0);
+        assertEquals(first.getEmail(), repo.findById(first.getId()).getEmail());
+        assertNull(repo.findById("no-such-host"));
+        assertNull(repo.findById(null));
+    }
+
+    @Test
+    void shouldNotShareFoundHosts() {
+        Host found = repo.findById(repo.findAll().get(0).getId());
+        long rate = found.getStandardRateCents();
+        found.setStandardRateCents(rate + 100);
+        repo.findAll().get(0).setLastName("Changed");
+
+        assertEquals(rate, repo.findById(found.getId()).getStandardRateCents());
+        assertEquals(rate, repo.findByEmail(found.getEmail()).getStandardRateCents());
+        assertNotEquals("Changed", repo.findAll().get(0).getLastName());
+        Host paged = repo.findByState(State.TX).get(0);
+        paged.setLastName("Paged");
+        assertNotSame(paged, repo.findByState(State.TX).get(0));
+        assertNotEquals("Paged", repo.findByState(State.TX).get(0).getLastName());
+    }
+
+    @Test
+    void shouldSeeSameSizeRewriteWithinModificationTime(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("hosts.csv");
+        Files.copy(Paths.get(SEED_PATH), file);
+        HostFileRepository rewritten = new HostFileRepository(file.toString());
+        Host first = rewritten.findAll().get(0);
+        String city = first.getCity();
+        String renamed = new StringBuilder(city).reverse().toString();
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace("," + city + ",", "," + renamed + ","));
+        Files.setLastModifiedTime(file, modified); // same size and modification time as the load
+
+        assertEquals(renamed, rewritten.findById(first.getId()).getCity());
+    }
+
     @Test
     void shouldFindByState() {
         List<Host> texans = repo.findByState(State.TX);
@@ -49,4 +91,82 @@ class HostFileRepositoryTest {
         List<Host> noneFromDC = repo.findByState(State.DC);
         assertEquals(0, noneFromDC.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindPageByState() {
+        List<Host> first = repo.findByState(State.TX, 0, 1);
+        assertEquals(1, first.size());
+        assertEquals("Yearnes", first.get(0).getLastName());
+
+        List<Host> second = repo.findByState(State.TX, 1, 1);
+        assertEquals(1, second.size());
+        assertEquals("Spellesy", second.get(0).getLastName());
+
+        assertEquals(0, repo.findByState(State.TX, 2, 1).size());
+    }
+
+    @Test
+    void shouldReadSameWithMappedReader() {
+        HostFileRepository buffered = new HostFileRepository("./data/hosts.csv");
+        HostFileRepository mapped = new HostFileRepository("./data/hosts.csv");
+        mapped.setReaderMode(ReaderMode.MAPPED);
+
+        List<Host> expected = buffered.findAll();
+        List<Host> actual = mapped.findAll();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getLastName(), actual.get(i).getLastName());
+            assertEquals(expected.get(i).getEmail(), actual.get(i).getEmail());
+            assertEquals(expected.get(i).getPhoneNumber(), actual.get(i).getPhoneNumber());
+            assertEquals(expected.get(i).getStreetAddress(), actual.get(i).getStreetAddress());
+            assertEquals(expected.get(i).getCity(), actual.get(i).getCity());
+            assertEquals(expected.get(i).getState(), actual.get(i).getState());
+            assertEquals(expected.get(i).getPostalCode(), actual.get(i).getPostalCode());
+            assertEquals(expected.get(i).getStandardRate(), actual.get(i).getStandardRate());
+            assertEquals(expected.get(i).getWeekendRate(), actual.get(i).getWeekendRate());
+        }
+    }
+
+    @Test
+    void shouldLoadSameHostsFromSnapshot(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("hosts.csv");
+        Files.copy(Paths.get(SEED_PATH), csv);
+        HostFileRepository first = new HostFileRepository(csv.toString());
+        first.setSnapshot(true);
+        List<Host> expected = first.findAll();
+
+        HostFileRepository second = new HostFileRepository(csv.toString());
+        second.setSnapshot(true);
+        List<Host> actual = second.findAll();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getStreetAddress(), actual.get(i).getStreetAddress());
+            assertEquals(expected.get(i).getState(), actual.get(i).getState());
+            assertEquals(expected.get(i).getPostalCode(), actual.get(i).getPostalCode());
+            assertEquals(expected.get(i).getStandardRate(), actual.get(i).getStandardRate());
+            assertEquals(expected.get(i).getWeekendRate(), actual.get(i).getWeekendRate());
+        }
+    }
+
+    @Test
+    void shouldUpdateRatesInPlace(@TempDir Path dir) throws IOException, DataException {
+        Path csv = dir.resolve("hosts.csv");
+        Files.copy(Paths.get(SEED_PATH), csv);
+        HostFileRepository repository = new HostFileRepository(csv.toString());
+        Host rhodes = repository.findByEmail("krhodes1@posterous.com");
+        rhodes.setStandardRateCents(31050);
+        rhodes.setWeekendRateCents(40000);
+
+        assertEquals(1, repository.updateRates(List.of(rhodes)));
+
+        Host updated = repository.findByEmail("krhodes1@posterous.com");
+        assertNotSame(rhodes, updated);
+        assertEquals(31050, updated.getStandardRateCents());
+        assertEquals(40000, updated.getWeekendRateCents());
+        assertEquals("Macon", updated.getCity());
+        assertEquals(34000, repository.findByEmail("eyearnes0@sfgate.com").getStandardRateCents());
+        assertEquals(5, Files.readAllLines(csv).size());
+    }
+}
@@ -1,6 +1,7 @@
 package michaelarn0ld.mastery.data;
 
-import michaelarn0ld.mastery.data.contracts.ClientRepository;
+import michaelarn0ld.mastery.data.contracts.HostRepository;
+import michaelarn0ld.mastery.data.exceptions.DataException;
 import michaelarn0ld.mastery.models.Host;
 import michaelarn0ld.mastery.models.State;
 
@@ -8,7 +9,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
-public class HostRepositoryDouble implements ClientRepository<Host> {
+public class HostRepositoryDouble implements HostRepository {
     private final ArrayList<Host> hosts = new ArrayList<>();
 
     public HostRepositoryDouble() {
@@ -52,6 +53,23 @@ public class HostRepositoryDouble implements ClientRepository<Host> {
                 .toList();
     }
 
+    @Override
+    public List<Host> findByState(State s, int offset, int limit) {
+        return hosts.stream()
+                .filter(h -> h.getState() == s)
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Host findById(String id) {
+        return hosts.stream()
+                .filter(h -> h.getId().equals(id))
+                .findFirst()
+                .orElse(null);
+    }
+
     @Override
     public Host findByEmail(String email) {
         return hosts.stream()
@@ -59,4 +77,19 @@ public class HostRepositoryDouble implements ClientRepository<Host> {
                 .findFirst()
                 .orElse(null);
     }
+
+    @Override
+    public int updateRates(List<Host> updated) throws DataException {
+        int count = 0;
+        for (Host u : updated) {
+            for (Host h : hosts) {
+                if (h.getId().equals(u.getId())) {
+                    h.setStandardRateCents(u.getStandardRateCents());
+                    h.setWeekendRateCents(u.getWeekendRateCents());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
 }
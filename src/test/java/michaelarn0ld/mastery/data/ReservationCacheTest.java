@@ -0,0 +1,76 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationCacheTest {
+
+    @Test
+    void shouldEvictLeastRecentlyUsedHost() {
+        ReservationCache cache = new ReservationCache(2, Long.MAX_VALUE);
+        cache.put("a", hostWith());
+        cache.put("b", hostWith());
+        cache.get("a");
+        cache.put("c", hostWith());
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void shouldStayWithinByteBudget() {
+        long oneReservation = ReservationCache.ENTRY_OVERHEAD_BYTES + ReservationCache.RESERVATION_BYTES;
+        ReservationCache cache = new ReservationCache(100, oneReservation * 2);
+        cache.put("a", hostWith(new Reservation()));
+        cache.put("b", hostWith(new Reservation()));
+        cache.put("c", hostWith(new Reservation()));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        ReservationCache cache = new ReservationCache(10, Long.MAX_VALUE);
+        cache.get("a");
+        cache.put("a", hostWith());
+        cache.get("a");
+        cache.get("a");
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void shouldPeekWithoutCountingOrTouching() {
+        ReservationCache cache = new ReservationCache(2, Long.MAX_VALUE);
+        cache.put("a", hostWith());
+        cache.put("b", hostWith());
+        assertNotNull(cache.peek("a"));
+        assertNull(cache.peek("c"));
+        cache.put("c", hostWith());
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertEquals(List.of("b", "c"), List.copyOf(cache.entries().keySet()));
+    }
+
+    @Test
+    void shouldCacheNothingWithZeroEntries() {
+        ReservationCache cache = new ReservationCache(0, Long.MAX_VALUE);
+        cache.put("a", hostWith());
+        assertNull(cache.get("a"));
+    }
+
+    private static HostReservations hostWith(Reservation... reservations) {
+        return new HostReservations(List.of(reservations), reservations.length + 1, reservations.length);
+    }
+}
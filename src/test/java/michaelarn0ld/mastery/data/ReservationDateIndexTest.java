@@ -0,0 +1,89 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationDateIndexTest {
+
+    static final LocalDate START = LocalDate.of(2030, 1, 1);
+    static final String HOST_ID = "host";
+
+    @Test
+    void shouldFindArrivalsDeparturesAndActiveStays() {
+        ReservationDateIndex index = new ReservationDateIndex();
+        index.add(HOST_ID, reservation(1, 0, 5));
+        index.add(HOST_ID, reservation(2, 5, 7));
+        index.add("other-host", reservation(1, 3, 20));
+
+        assertEquals(Set.of(2), ids(index.arrivals(START.plusDays(5).toEpochDay())));
+        assertEquals(1, index.departures(START.plusDays(5).toEpochDay()).size());
+        assertEquals(2, index.active(day(4), day(5)).size());
+        assertEquals(2, index.active(day(5), day(6)).size());
+        assertEquals(3, index.active(day(0), day(7)).size());
+        assertEquals(1, index.active(day(10), day(17)).size());
+        assertTrue(index.active(day(20), day(27)).isEmpty());
+    }
+
+    @Test
+    void shouldMatchLinearScanAfterMutations() {
+        Random random = new Random(11);
+        ArrayList<Reservation> reservations = new ArrayList<>();
+        ReservationDateIndex index = new ReservationDateIndex();
+        for (int step = 0; step < 500; step++) {
+            int id = 1 + random.nextInt(50);
+            Reservation previous = reservations.stream().filter(r -> r.getId() == id).findFirst().orElse(null);
+            if (previous != null) {
+                reservations.remove(previous);
+                index.remove(HOST_ID, previous);
+            }
+            if (random.nextInt(4) != 0) {
+                int checkIn = random.nextInt(365);
+                Reservation r = reservation(id, checkIn, checkIn + 1 + random.nextInt(21));
+                reservations.add(r);
+                index.add(HOST_ID, r);
+            }
+            int from = random.nextInt(380);
+            int to = from + 1 + random.nextInt(7);
+            assertEquals(linearActive(reservations, day(from), day(to)), ids(index.active(day(from), day(to))));
+            assertEquals(reservations.stream()
+                            .filter(r -> r.getCheckIn().toEpochDay() == day(from))
+                            .map(Reservation::getId)
+                            .collect(Collectors.toSet()),
+                    ids(index.arrivals(day(from))));
+        }
+    }
+
+    private static Set<Integer> linearActive(List<Reservation> reservations, long from, long to) {
+        return reservations.stream()
+                .filter(r -> r.getCheckIn().toEpochDay() < to && r.getCheckOut().toEpochDay() > from)
+                .map(Reservation::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Integer> ids(List<ReservationRef> refs) {
+        return refs.stream().map(ReservationRef::getReservationId).collect(Collectors.toSet());
+    }
+
+    private static Reservation reservation(int id, int checkIn, int checkOut) {
+        Reservation r = new Reservation();
+        r.setId(id);
+        r.setGuest(new Guest(id));
+        r.setCheckIn(START.plusDays(checkIn));
+        r.setCheckOut(START.plusDays(checkOut));
+        return r;
+    }
+
+    private static long day(int offset) {
+        return START.plusDays(offset).toEpochDay();
+    }
+}
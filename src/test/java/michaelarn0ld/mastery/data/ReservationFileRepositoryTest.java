@@ -1,11 +1,18 @@
 package michaelarn0ld.mastery.data;
 
+import michaelarn0ld.mastery.data.abstractions.ReaderMode;
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
+import michaelarn0ld.mastery.data.exceptions.ConflictException;
 import michaelarn0ld.mastery.data.exceptions.DataException;
 import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Money;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -14,7 +21,18 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,6 +59,11 @@ class ReservationFileRepositoryTest {
         g = guestRepo.findByEmail(GUEST_EMAIL);
     }
 
+    @AfterEach
+    void teardown() throws IOException {
+        Files.copy(Paths.get(SEED_PATH), Paths.get(TEST_PATH), StandardCopyOption.REPLACE_EXISTING);
+    }
+
     @Test
     void shouldFindByHost() {
         List<Reservation> all = repo.findByHost(h);
@@ -114,6 +137,232 @@ class ReservationFileRepositoryTest {
         assertEquals(12, repo.findByHost(h).size());
     }
 
+    @Test
+    void shouldKeepOverlapIndexCurrent() throws DataException {
+        Reservation seven = repo.findById(h, 7);
+        assertTrue(repo.hasOverlap(h, seven.getCheckIn(), seven.getCheckOut(), 0));
+        assertFalse(repo.hasOverlap(h, seven.getCheckIn(), seven.getCheckOut(), 7));
+
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(LocalDate.of(2031, 3, 1));
+        r.setCheckOut(LocalDate.of(2031, 3, 5));
+        assertFalse(repo.hasOverlap(h, LocalDate.of(2031, 3, 4), LocalDate.of(2031, 3, 6), 0));
+        repo.add(r);
+        assertTrue(repo.hasOverlap(h, LocalDate.of(2031, 3, 4), LocalDate.of(2031, 3, 6), 0));
+        assertFalse(repo.hasOverlap(h, LocalDate.of(2031, 3, 5), LocalDate.of(2031, 3, 6), 0));
+
+        r.setCheckIn(LocalDate.of(2031, 4, 1));
+        r.setCheckOut(LocalDate.of(2031, 4, 3));
+        repo.update(r);
+        assertFalse(repo.hasOverlap(h, LocalDate.of(2031, 3, 4), LocalDate.of(2031, 3, 6), 0));
+        assertTrue(repo.hasOverlap(h, LocalDate.of(2031, 4, 2), LocalDate.of(2031, 4, 6), 0));
+
+        repo.delete(r);
+        assertFalse(repo.hasOverlap(h, LocalDate.of(2031, 4, 2), LocalDate.of(2031, 4, 6), 0));
+    }
+
+    @Test
+    void shouldKeepAvailabilityCurrent() throws DataException {
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        Host other = new Host("no-reservations-host");
+        assertEquals(List.of(h, other), repo.findAvailable(List.of(h, other), checkIn, checkIn.plusDays(4)));
+
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(checkIn.plusDays(3));
+        r.setCheckOut(checkIn.plusDays(6));
+        repo.add(r);
+        assertEquals(List.of(other), repo.findAvailable(List.of(h, other), checkIn, checkIn.plusDays(4)));
+        assertEquals(List.of(h, other), repo.findAvailable(List.of(h, other), checkIn, checkIn.plusDays(3)));
+
+        r.setCheckIn(checkIn.plusDays(10));
+        r.setCheckOut(checkIn.plusDays(12));
+        repo.update(r);
+        assertEquals(List.of(h, other), repo.findAvailable(List.of(h, other), checkIn, checkIn.plusDays(4)));
+        assertEquals(List.of(other), repo.findAvailable(List.of(h, other), checkIn.plusDays(11), checkIn.plusDays(20)));
+
+        repo.delete(r);
+        assertEquals(List.of(h, other), repo.findAvailable(List.of(h, other), checkIn.plusDays(11), checkIn.plusDays(20)));
+    }
+
+    @Test
+    void shouldSearchMoreHostsThanCacheHoldsWithoutEvicting(@TempDir Path dir) throws IOException {
+        ArrayList<Host> hosts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Host host = new Host("search-host-" + i);
+            Files.copy(Paths.get(TEST_PATH), dir.resolve(host.getId() + ".csv"));
+            hosts.add(host);
+        }
+        ReservationFileRepository small = new ReservationFileRepository(dir.toString());
+        small.setCacheMaxEntries(2);
+        small.findByHost(hosts.get(0));
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+
+        assertEquals(hosts, small.findAvailable(hosts, checkIn, checkIn.plusDays(2)));
+        assertEquals(1, small.getCache().size());
+        assertEquals(0, small.getCache().getEvictions());
+        long misses = small.getCache().getMisses();
+        small.findByHost(hosts.get(0));
+        assertEquals(misses, small.getCache().getMisses());
+        small.close();
+    }
+
+    @Test
+    void shouldKeepGuestIndexCurrent() throws DataException {
+        int before = repo.findByGuest(g).size();
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkIn.plusDays(3));
+        repo.add(r);
+        assertEquals(before + 1, repo.findByGuest(g).size());
+        assertTrue(repo.hasGuestOverlap(g, checkIn.plusDays(2), checkIn.plusDays(5), new Host("other-host"), 0));
+        assertFalse(repo.hasGuestOverlap(g, checkIn.plusDays(2), checkIn.plusDays(5), h, r.getId()));
+
+        r.setCheckIn(checkIn.plusDays(10));
+        r.setCheckOut(checkIn.plusDays(12));
+        repo.update(r);
+        assertEquals(before + 1, repo.findByGuest(g).size());
+        assertFalse(repo.hasGuestOverlap(g, checkIn, checkIn.plusDays(3), new Host("other-host"), 0));
+        assertTrue(repo.hasGuestOverlap(g, checkIn.plusDays(11), checkIn.plusDays(20), new Host("other-host"), 0));
+
+        repo.delete(r);
+        assertEquals(before, repo.findByGuest(g).size());
+        assertFalse(repo.hasGuestOverlap(g, checkIn.plusDays(11), checkIn.plusDays(20), new Host("other-host"), 0));
+    }
+
+    @Test
+    void shouldKeepDateIndexCurrent() throws DataException {
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        int arrivals = repo.findArrivals(checkIn).size();
+        int active = repo.findActive(checkIn, checkIn.plusDays(7)).size();
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkIn.plusDays(3));
+        repo.add(r);
+        assertEquals(arrivals + 1, repo.findArrivals(checkIn).size());
+        assertTrue(repo.findDepartures(checkIn.plusDays(3)).stream()
+                .anyMatch(found -> found.getId() == r.getId() && found.getGuest().getId() == g.getId()));
+        assertEquals(active + 1, repo.findActive(checkIn, checkIn.plusDays(7)).size());
+
+        r.setCheckIn(checkIn.plusDays(10));
+        r.setCheckOut(checkIn.plusDays(12));
+        repo.update(r);
+        assertEquals(arrivals, repo.findArrivals(checkIn).size());
+        assertEquals(active, repo.findActive(checkIn, checkIn.plusDays(7)).size());
+        assertTrue(repo.findArrivals(checkIn.plusDays(10)).stream().anyMatch(found -> found.getId() == r.getId()));
+
+        repo.delete(r);
+        assertFalse(repo.findArrivals(checkIn.plusDays(10)).stream().anyMatch(found -> found.getId() == r.getId()
+                && found.getHost().getId().equals(h.getId())));
+    }
+
+    @Test
+    void shouldCheckAvailabilityBeyondOccupancyHorizon() throws DataException {
+        repo.setOccupancyHorizonDays(7);
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(LocalDate.now().plusDays(5));
+        r.setCheckOut(LocalDate.now().plusDays(10));
+        repo.add(r);
+
+        assertTrue(repo.findAvailable(List.of(h), LocalDate.now().plusDays(8), LocalDate.now().plusDays(9)).isEmpty());
+        assertTrue(repo.findAvailable(List.of(h), LocalDate.now().plusDays(6), LocalDate.now().plusDays(7)).isEmpty());
+        assertEquals(1, repo.findAvailable(List.of(h), LocalDate.now().plusDays(10), LocalDate.now().plusDays(15)).size());
+    }
+
+    @Test
+    void shouldValidateAndAddFromOneRead() throws DataException {
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkIn.plusDays(3));
+
+        List<String> errors = repo.addIfValid(r, snapshot -> snapshot.hasOverlap(r.getCheckIn(), r.getCheckOut(), 0)
+                ? List.of("overlap")
+                : List.of());
+
+        assertTrue(errors.isEmpty());
+        assertEquals(14, r.getId());
+        assertEquals(1, repo.getCache().getMisses());
+        assertEquals(0, repo.getCache().getHits());
+        assertEquals(14, new ReservationFileRepository(DIR).findByHost(h).size());
+    }
+
+    @Test
+    void shouldNotWriteWhenValidationFails() throws DataException {
+        Reservation r = repo.findById(h, 9);
+        r.setCheckOut(r.getCheckOut().plusDays(1));
+
+        List<String> errors = repo.updateIfValid(r, snapshot -> snapshot.contains(r.getId())
+                ? List.of("rejected")
+                : List.of());
+
+        assertEquals(List.of("rejected"), errors);
+        assertNotEquals(r.getCheckOut(), new ReservationFileRepository(DIR).findById(h, 9).getCheckOut());
+    }
+
+    @Test
+    void shouldAddBatchWithoutOverlapsInOneWrite() throws DataException {
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        List<Reservation> batch = List.of(
+                stay(checkIn.plusDays(5), checkIn.plusDays(8)),
+                stay(checkIn, checkIn.plusDays(3)),
+                stay(checkIn.plusDays(2), checkIn.plusDays(6)),
+                stay(checkIn.plusDays(8), checkIn.plusDays(9)));
+
+        List<List<String>> errors = repo.addAllIfValid(h, batch,
+                (snapshot, r) -> snapshot.hasOverlap(r.getCheckIn(), r.getCheckOut(), 0)
+                        ? List.of("overlap")
+                        : List.of());
+
+        assertEquals(List.of(List.of(), List.of(), List.of("overlap"), List.of()), errors);
+        assertEquals(14, batch.get(1).getId());
+        assertEquals(15, batch.get(0).getId());
+        assertEquals(16, batch.get(3).getId());
+        assertEquals(1, repo.getCache().getMisses());
+        assertEquals(16, new ReservationFileRepository(DIR).findByHost(h).size());
+        assertTrue(repo.hasOverlap(h, checkIn.plusDays(8), checkIn.plusDays(9), 0));
+    }
+
+    @Test
+    void shouldRepriceFutureReservations() throws DataException, IOException {
+        Reservation future = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        repo.add(future);
+        List<String> before = Files.readAllLines(Paths.get(TEST_PATH));
+        h.setStandardRateCents(h.getStandardRateCents() + 1000);
+        h.setWeekendRateCents(h.getWeekendRateCents() + 1000);
+
+        assertEquals(1, repo.reprice(List.of(h), LocalDate.now()));
+
+        List<String> after = Files.readAllLines(Paths.get(TEST_PATH));
+        assertEquals(before.size(), after.size());
+        assertEquals(before.subList(0, before.size() - 1), after.subList(0, after.size() - 1));
+        assertTrue(after.get(after.size() - 1).endsWith("," + Money.format(future.getTotalCents())));
+        assertEquals(future.getTotalCents(), repo.findById(h, future.getId()).getTotalCents());
+        assertEquals(0, repo.reprice(List.of(h), LocalDate.now()));
+    }
+
+    @Test
+    void shouldReadBookedTotalFromFile() throws DataException {
+        Reservation r = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        r.setTotalCents(12345);
+        repo.add(r);
+
+        assertEquals(12345, repo.findById(h, r.getId()).getTotalCents());
+        assertEquals(12345, new ReservationFileRepository(DIR).findById(h, r.getId()).getTotalCents());
+    }
+
     @Test
     void shouldNotDelete() throws DataException {
         Reservation r = new Reservation();
@@ -123,4 +372,457 @@ class ReservationFileRepositoryTest {
         assertFalse(actual);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldReadHostFileOnceWhileCached() {
+        repo.findByHost(h);
+        repo.findById(h, 7);
+        repo.findByHost(h);
+        assertEquals(1, repo.getCache().getMisses());
+        assertEquals(2, repo.getCache().getHits());
+    }
+
+    @Test
+    void shouldNotShareCachedInstances() {
+        Reservation seven = repo.findById(h, 7);
+        seven.setCheckIn(LocalDate.parse("2030-01-01"));
+        assertNotEquals(LocalDate.parse("2030-01-01"), repo.findById(h, 7).getCheckIn());
+    }
+
+    @Test
+    void shouldWriteThroughCache() throws DataException {
+        Reservation r = repo.findById(h, 9);
+        repo.delete(r);
+        assertEquals(12, repo.findByHost(h).size());
+        assertEquals(12, new ReservationFileRepository(DIR).findByHost(h).size());
+    }
+
+    @Test
+    void shouldAppendMutationsInAppendOnlyMode() throws DataException, IOException {
+        repo.setAppendOnly(true);
+        repo.setCompactionThreshold(2.0);
+
+        Reservation nine = repo.findById(h, 9);
+        nine.setCheckIn(LocalDate.parse("2030-12-31"));
+        nine.setCheckOut(LocalDate.parse("2031-01-02"));
+        assertTrue(repo.update(nine));
+        assertTrue(repo.delete(repo.findById(h, 3)));
+        Reservation r = new Reservation();
+        r.setCheckIn(LocalDate.parse("2031-10-10"));
+        r.setCheckOut(LocalDate.parse("2031-10-17"));
+        r.setHost(h);
+        r.setGuest(g);
+        assertEquals(14, repo.add(r).getId());
+
+        // header, 13 seeded records and 3 appended records
+        assertEquals(17, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        ReservationFileRepository reader = new ReservationFileRepository(DIR);
+        assertEquals(13, reader.findByHost(h).size());
+        assertNull(reader.findById(h, 3));
+        assertEquals(LocalDate.parse("2030-12-31"), reader.findById(h, 9).getCheckIn());
+    }
+
+    @Test
+    void shouldCompactAppendOnlyFile() throws DataException, IOException {
+        repo.setAppendOnly(true);
+        repo.setCompactionThreshold(2.0);
+        assertTrue(repo.delete(repo.findById(h, 3)));
+        assertEquals(15, Files.readAllLines(Paths.get(TEST_PATH)).size());
+
+        repo.compact(h);
+        assertEquals(13, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        assertEquals(12, new ReservationFileRepository(DIR).findByHost(h).size());
+    }
+
+    @Test
+    void shouldNotReuseIdOfDeletedHighestReservation() throws DataException, IOException {
+        assertTrue(repo.delete(repo.findById(h, 13)));
+        assertEquals(14, new ReservationFileRepository(DIR).add(stay(LocalDate.parse("2031-10-10"),
+                LocalDate.parse("2031-10-12"))).getId());
+
+        repo = new ReservationFileRepository(DIR);
+        repo.setAppendOnly(true);
+        repo.setCompactionThreshold(2.0);
+        assertTrue(repo.delete(repo.findById(h, 14)));
+        repo.compact(h);
+        // header, 12 live records and the tombstone of id 14
+        assertEquals(14, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        repo.compact(h);
+        assertEquals(14, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        assertEquals(15, new ReservationFileRepository(DIR).add(stay(LocalDate.parse("2031-11-10"),
+                LocalDate.parse("2031-11-12"))).getId());
+    }
+
+    @Test
+    void shouldBatchWritesWithGroupCommit() throws Exception {
+        repo.setGroupCommit(true);
+        repo.setGroupCommitWindowMillis(60_000);
+        repo.setGroupCommitMaxBatch(2);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Reservation> first = pool.submit(() -> repo.add(stay(LocalDate.parse("2031-10-10"),
+                LocalDate.parse("2031-10-12"))));
+        while (repo.findByHost(h).size() < 14) {
+            Thread.sleep(1);
+        }
+        assertFalse(first.isDone()); // waits for its batch to be written
+        assertEquals(14, Files.readAllLines(Paths.get(TEST_PATH)).size());
+
+        repo.add(stay(LocalDate.parse("2031-10-17"), LocalDate.parse("2031-10-19")));
+        assertEquals(14, first.get(5, TimeUnit.SECONDS).getId());
+        pool.shutdown();
+        assertEquals(16, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        assertEquals(15, new ReservationFileRepository(DIR).findByHost(h).size());
+        repo.close();
+    }
+
+    @Test
+    void shouldFailMutationWhenBatchedWriteFails(@TempDir Path dir) throws IOException {
+        ReservationFileRepository batched = new ReservationFileRepository(dir.toString());
+        batched.setGroupCommit(true);
+        batched.setGroupCommitWindowMillis(1);
+        Files.createDirectory(dir.resolve(h.getId() + ".csv.tmp")); // the file cannot be replaced
+
+        assertThrows(DataException.class, () -> batched.add(stay(LocalDate.parse("2031-10-10"),
+                LocalDate.parse("2031-10-12"))));
+        assertEquals(0, batched.findByHost(h).size());
+        assertTrue(batched.findByGuest(g).isEmpty());
+        batched.close();
+    }
+
+    @Test
+    void shouldCompleteGroupCommitWithinWindow() throws Exception {
+        repo.setGroupCommit(true);
+        repo.setGroupCommitWindowMillis(1);
+        repo.setAppendOnly(true);
+        repo.setCompactionThreshold(2.0);
+        assertTrue(repo.delete(repo.findById(h, 3)));
+
+        repo.whenWritten(h).get(5, TimeUnit.SECONDS);
+        assertEquals(15, Files.readAllLines(Paths.get(TEST_PATH)).size());
+        repo.close();
+    }
+
+    @Test
+    void shouldReadSameWithMappedReader() {
+        ReservationFileRepository mapped = new ReservationFileRepository(DIR);
+        mapped.setReaderMode(ReaderMode.MAPPED);
+
+        List<Reservation> expected = repo.findByHost(h);
+        List<Reservation> actual = mapped.findByHost(h);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getCheckIn(), actual.get(i).getCheckIn());
+            assertEquals(expected.get(i).getCheckOut(), actual.get(i).getCheckOut());
+            assertEquals(expected.get(i).getGuest().getId(), actual.get(i).getGuest().getId());
+            assertEquals(expected.get(i).getTotalCents(), actual.get(i).getTotalCents());
+        }
+    }
+
+    @Test
+    void shouldRestoreUnchangedHostsFromSnapshot(@TempDir Path dir) throws DataException, IOException {
+        Files.copy(Paths.get(TEST_PATH), dir.resolve(h.getId() + ".csv"));
+        ReservationFileRepository first = new ReservationFileRepository(dir.toString());
+        first.setSnapshot(true);
+        List<Reservation> expected = first.findByHost(h);
+        first.close();
+        assertTrue(Files.exists(first.getSnapshotPath()));
+
+        ReservationFileRepository second = new ReservationFileRepository(dir.toString());
+        second.setSnapshot(true);
+        assertEquals(1, second.loadSnapshot());
+        List<Reservation> actual = second.findByHost(h);
+        assertEquals(0, second.getCache().getMisses());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getCheckIn(), actual.get(i).getCheckIn());
+            assertEquals(expected.get(i).getCheckOut(), actual.get(i).getCheckOut());
+            assertEquals(expected.get(i).getGuest().getId(), actual.get(i).getGuest().getId());
+        }
+
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(LocalDate.of(2031, 1, 1));
+        r.setCheckOut(LocalDate.of(2031, 1, 3));
+        new ReservationFileRepository(dir.toString()).add(r);
+
+        ReservationFileRepository third = new ReservationFileRepository(dir.toString());
+        third.setSnapshot(true);
+        assertEquals(0, third.loadSnapshot());
+        assertEquals(expected.size() + 1, third.findByHost(h).size());
+    }
+
+    @Test
+    void shouldShareValuesUntilHostChanges() throws DataException {
+        List<ReservationValue> values = repo.findValuesByHost(h);
+        assertEquals(13, values.size());
+        assertSame(values, repo.findValuesByHost(h));
+        assertNull(values.get(0).getHost());
+        assertEquals(390, values.stream().filter(v -> v.getId() == 7).findFirst().orElseThrow().getGuest().getId());
+
+        repo.add(stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33)));
+
+        List<ReservationValue> after = repo.findValuesByHost(h);
+        assertNotSame(values, after);
+        assertEquals(13, values.size());
+        assertEquals(14, after.size());
+    }
+
+    @Test
+    void shouldReadPublishedVersionWhileHostIsBeingWritten() throws DataException {
+        repo.findByHost(h);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Reservation r = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+
+        List<String> errors = repo.addIfValid(r, snapshot -> {
+            try { // the write lock of the Host is held here
+                assertEquals(13, reader.submit(() -> repo.findByHost(h)).get(5, TimeUnit.SECONDS).size());
+                assertNotNull(reader.submit(() -> repo.findById(h, 7)).get(5, TimeUnit.SECONDS));
+            } catch (Exception ex) {
+                fail(ex);
+            }
+            return List.of();
+        });
+        reader.shutdown();
+
+        assertTrue(errors.isEmpty());
+        assertEquals(14, repo.findByHost(h).size());
+    }
+
+    @Test
+    void shouldSeeWritesOfAnotherProcess(@TempDir Path dir) throws DataException, IOException {
+        Files.copy(Paths.get(TEST_PATH), dir.resolve(h.getId() + ".csv"));
+        ReservationFileRepository first = new ReservationFileRepository(dir.toString());
+        ReservationFileRepository second = new ReservationFileRepository(dir.toString());
+        first.setFileLocking(true);
+        second.setFileLocking(true);
+        assertEquals(13, first.findByHost(h).size());
+        assertEquals(13, second.findByHost(h).size());
+
+        Reservation theirs = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        second.add(theirs);
+        Reservation ours = stay(LocalDate.now().plusDays(31), LocalDate.now().plusDays(32));
+        List<String> errors = first.addIfValid(ours, snapshot -> snapshot.hasOverlap(ours.getCheckIn(),
+                ours.getCheckOut(), 0) ? List.of("overlap") : List.of());
+
+        assertEquals(List.of("overlap"), errors);
+        assertEquals(14, first.findByHost(h).size());
+        long misses = first.getCache().getMisses();
+        assertEquals(14, first.findByHost(h).size());
+        assertEquals(misses, first.getCache().getMisses());
+
+        Reservation later = stay(LocalDate.now().plusDays(40), LocalDate.now().plusDays(41));
+        first.add(later);
+        assertEquals(15, later.getId());
+        assertEquals(15, second.findByHost(h).size());
+    }
+
+    @Test
+    void shouldConflictInsteadOfLosingUpdate(@TempDir Path dir) throws DataException, IOException {
+        Path file = dir.resolve(h.getId() + ".csv");
+        Files.copy(Paths.get(TEST_PATH), file);
+        ReservationFileRepository locking = new ReservationFileRepository(dir.toString());
+        locking.setFileLocking(true);
+        List<String> before = Files.readAllLines(file);
+        AtomicInteger attempts = new AtomicInteger();
+        Reservation r = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+
+        assertThrows(ConflictException.class, () -> locking.addIfValid(r, snapshot -> {
+            try { // another writer changes the file after it was read
+                HostFileLock.writeVersion(file.toString(), 100 + attempts.incrementAndGet());
+            } catch (DataException ex) {
+                fail(ex);
+            }
+            return List.of();
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(before, Files.readAllLines(file));
+    }
+
+    @Test
+    void shouldRetryMutationOnceAnotherProcessWroteTheFile(@TempDir Path dir) throws DataException, IOException {
+        Files.copy(Paths.get(TEST_PATH), dir.resolve(h.getId() + ".csv"));
+        ReservationFileRepository first = new ReservationFileRepository(dir.toString());
+        ReservationFileRepository second = new ReservationFileRepository(dir.toString());
+        first.setFileLocking(true);
+        second.setFileLocking(true);
+        AtomicInteger attempts = new AtomicInteger();
+        Reservation theirs = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        Reservation ours = stay(LocalDate.now().plusDays(40), LocalDate.now().plusDays(42));
+
+        List<String> errors = first.addIfValid(ours, snapshot -> {
+            if (attempts.incrementAndGet() == 1) { // another process writes after the state was read
+                try {
+                    second.add(theirs);
+                } catch (DataException ex) {
+                    fail(ex);
+                }
+            }
+            return List.of();
+        });
+
+        assertTrue(errors.isEmpty());
+        assertEquals(2, attempts.get());
+        assertEquals(15, ours.getId());
+        assertEquals(15, new ReservationFileRepository(dir.toString()).findByHost(h).size());
+    }
+
+    @Test
+    void shouldPatchIndexesWithHostsChangedByAnotherProcess(@TempDir Path dir) throws DataException, IOException {
+        Files.copy(Paths.get(TEST_PATH), dir.resolve(h.getId() + ".csv"));
+        ReservationFileRepository first = new ReservationFileRepository(dir.toString());
+        ReservationFileRepository second = new ReservationFileRepository(dir.toString());
+        first.setFileLocking(true);
+        second.setFileLocking(true);
+        first.setIndexRefreshMillis(0);
+        int before = first.findByGuest(g).size();
+        Host other = new Host("other-host");
+        Reservation elsewhere = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        elsewhere.setHost(other);
+        second.add(elsewhere);
+        second.add(stay(LocalDate.now().plusDays(40), LocalDate.now().plusDays(42)));
+
+        assertEquals(before + 2, first.findByGuest(g).size());
+        assertTrue(first.hasGuestOverlap(g, LocalDate.now().plusDays(31), LocalDate.now().plusDays(32), h, 0));
+        assertEquals(1, first.findArrivals(LocalDate.now().plusDays(30)).size());
+        assertFalse(first.getCache().contains(other.getId()));
+    }
+
+    @Test
+    void shouldSweepForNewHostsOnlyOncePerRefreshInterval(@TempDir Path dir) throws DataException, IOException {
+        Files.copy(Paths.get(TEST_PATH), dir.resolve(h.getId() + ".csv"));
+        ReservationFileRepository first = new ReservationFileRepository(dir.toString());
+        ReservationFileRepository second = new ReservationFileRepository(dir.toString());
+        first.setFileLocking(true);
+        second.setFileLocking(true);
+        first.setIndexRefreshMillis(TimeUnit.HOURS.toMillis(1));
+        first.add(stay(LocalDate.now().plusDays(20), LocalDate.now().plusDays(22)));
+        int before = first.findByGuest(g).size();
+        Host other = new Host("other-host");
+        Reservation elsewhere = stay(LocalDate.now().plusDays(30), LocalDate.now().plusDays(33));
+        elsewhere.setHost(other);
+        second.add(elsewhere);
+        second.add(stay(LocalDate.now().plusDays(40), LocalDate.now().plusDays(42)));
+
+        // the Host of stays already found is checked on every query
+        assertEquals(before + 1, first.findByGuest(g).size());
+        assertTrue(first.findArrivals(LocalDate.now().plusDays(30)).isEmpty());
+
+        first.setIndexRefreshMillis(0);
+        assertEquals(before + 2, first.findByGuest(g).size());
+        assertEquals(1, first.findArrivals(LocalDate.now().plusDays(30)).size());
+    }
+
+    @Test
+    void shouldNotDoubleBookUnderConcurrentWriters(@TempDir Path dir) throws Exception {
+        ReservationFileRepository shared = new ReservationFileRepository(dir.toString());
+        List<Host> hosts = hostRepo.findAll().subList(0, 3);
+        LocalDate start = LocalDate.now().plusDays(30);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger added = new AtomicInteger();
+        ArrayList<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < 300; i++) {
+                    Host host = hosts.get(random.nextInt(hosts.size()));
+                    LocalDate checkIn = start.plusDays(random.nextInt(120));
+                    Reservation r = new Reservation();
+                    r.setHost(host);
+                    r.setGuest(new Guest(1 + random.nextInt(500)));
+                    r.setCheckIn(checkIn);
+                    r.setCheckOut(checkIn.plusDays(1 + random.nextInt(5)));
+                    List<Reservation> current = shared.findByHost(host);
+                    if (random.nextBoolean() || current.isEmpty()) {
+                        if (shared.addIfValid(r, snapshot -> schedule(shared, snapshot, r)).isEmpty()) {
+                            added.incrementAndGet();
+                        }
+                    } else {
+                        r.setId(current.get(random.nextInt(current.size())).getId());
+                        shared.updateIfValid(r, snapshot -> schedule(shared, snapshot, r));
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int stored = 0;
+        for (Host host : hosts) {
+            List<Reservation> onDisk = new ReservationFileRepository(dir.toString()).findByHost(host);
+            onDisk.sort(Comparator.comparing(Reservation::getCheckIn));
+            for (int i = 1; i < onDisk.size(); i++) {
+                assertFalse(onDisk.get(i).getCheckIn().isBefore(onDisk.get(i - 1).getCheckOut()));
+            }
+            assertEquals(onDisk.size(), onDisk.stream().map(Reservation::getId).distinct().count());
+            assertEquals(onDisk.size(), shared.findByHost(host).size());
+            stored += onDisk.size();
+        }
+        assertTrue(stored > 0);
+        assertEquals(added.get(), stored);
+    }
+
+    @Test
+    void shouldFanOutAsyncCallsAcrossHosts(@TempDir Path dir) {
+        ReservationFileRepository async = new ReservationFileRepository(dir.toString());
+        async.setIoThreads(4);
+        List<Host> hosts = hostRepo.findAll().subList(0, 40);
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        List<CompletableFuture<Reservation>> adds = new ArrayList<>();
+        for (Host host : hosts) {
+            Reservation r = new Reservation();
+            r.setHost(host);
+            r.setGuest(g);
+            r.setCheckIn(checkIn);
+            r.setCheckOut(checkIn.plusDays(2));
+            adds.add(async.addAsync(r));
+        }
+        CompletableFuture.allOf(adds.toArray(CompletableFuture[]::new)).join();
+
+        for (CompletableFuture<Reservation> add : adds) {
+            assertEquals(1, add.join().getId());
+        }
+        List<CompletableFuture<List<Reservation>>> reads = hosts.stream().map(async::findByHostAsync).toList();
+        for (CompletableFuture<List<Reservation>> read : reads) {
+            assertEquals(1, read.join().size());
+        }
+        assertEquals(List.of(), async.findAvailableAsync(hosts, checkIn.plusDays(1), checkIn.plusDays(3)).join());
+        assertTrue(async.hasOverlapAsync(hosts.get(0), checkIn, checkIn.plusDays(1), 0).join());
+
+        async.close();
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> async.findByHostAsync(hosts.get(0)).join());
+        assertTrue(rejected.getCause() instanceof DataException);
+        assertEquals(1, async.findByHost(hosts.get(0)).size());
+    }
+
+    private static List<String> schedule(ReservationFileRepository repo, HostSnapshot snapshot, Reservation r) {
+        int excludeId = r.getId();
+        if (excludeId != 0 && !snapshot.contains(excludeId)) {
+            return List.of("not found");
+        }
+        if (snapshot.hasOverlap(r.getCheckIn(), r.getCheckOut(), excludeId)
+                || repo.hasGuestOverlap(r.getGuest(), r.getCheckIn(), r.getCheckOut(), r.getHost(), excludeId)) {
+            return List.of("overlap");
+        }
+        return List.of();
+    }
+
+    private Reservation stay(LocalDate checkIn, LocalDate checkOut) {
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(g);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkOut);
+        return r;
+    }
+}
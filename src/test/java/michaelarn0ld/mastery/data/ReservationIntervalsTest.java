@@ -0,0 +1,91 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIntervalsTest {
+
+    static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void shouldFindOverlapsExceptExcludedId() {
+        ReservationIntervals intervals = ReservationIntervals.of(List.of(
+                reservation(1, 10, 15),
+                reservation(2, 0, 5)));
+
+        assertTrue(intervals.overlaps(day(4), day(6), 0));
+        assertTrue(intervals.overlaps(day(12), day(13), 0));
+        assertFalse(intervals.overlaps(day(5), day(10), 0));
+        assertFalse(intervals.overlaps(day(15), day(20), 0));
+        assertFalse(intervals.overlaps(day(11), day(12), 1));
+        assertTrue(intervals.overlaps(day(3), day(12), 1));
+    }
+
+    @Test
+    void shouldMatchLinearScan() {
+        Random random = new Random(42);
+        ArrayList<Reservation> reservations = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            int checkIn = random.nextInt(1000);
+            reservations.add(reservation(id, checkIn, checkIn + 1 + random.nextInt(30)));
+        }
+        ReservationIntervals intervals = ReservationIntervals.of(reservations);
+
+        for (int i = 0; i < 5000; i++) {
+            int checkIn = random.nextInt(1040) - 20;
+            LocalDate in = day(checkIn);
+            LocalDate out = day(checkIn + 1 + random.nextInt(30));
+            int excludeId = random.nextInt(210);
+            assertEquals(linearOverlap(reservations, in, out, excludeId), intervals.overlaps(in, out, excludeId));
+        }
+    }
+
+    @Test
+    void shouldStayCurrentAfterMutations() {
+        Random random = new Random(7);
+        ArrayList<Reservation> reservations = new ArrayList<>();
+        ReservationIntervals intervals = ReservationIntervals.EMPTY;
+        for (int step = 0; step < 500; step++) {
+            int id = 1 + random.nextInt(50);
+            reservations.removeIf(r -> r.getId() == id);
+            if (random.nextInt(4) == 0) {
+                intervals = intervals.without(id);
+            } else {
+                int checkIn = random.nextInt(365);
+                Reservation r = reservation(id, checkIn, checkIn + 1 + random.nextInt(14));
+                reservations.add(r);
+                intervals = intervals.with(r);
+            }
+            assertEquals(reservations.size(), intervals.size());
+            int checkIn = random.nextInt(380);
+            LocalDate in = day(checkIn);
+            LocalDate out = day(checkIn + 1 + random.nextInt(14));
+            assertEquals(linearOverlap(reservations, in, out, id), intervals.overlaps(in, out, id));
+            assertEquals(linearOverlap(reservations, in, out, 0), intervals.overlaps(in, out, 0));
+        }
+    }
+
+    private static boolean linearOverlap(List<Reservation> reservations, LocalDate in, LocalDate out, int excludeId) {
+        return reservations.stream()
+                .anyMatch(r -> r.getId() != excludeId && r.getCheckIn().isBefore(out) && r.getCheckOut().isAfter(in));
+    }
+
+    private static Reservation reservation(int id, int checkIn, int checkOut) {
+        Reservation r = new Reservation();
+        r.setId(id);
+        r.setCheckIn(day(checkIn));
+        r.setCheckOut(day(checkOut));
+        return r;
+    }
+
+    private static LocalDate day(int offset) {
+        return START.plusDays(offset);
+    }
+}
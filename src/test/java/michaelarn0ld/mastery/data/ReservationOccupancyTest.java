@@ -0,0 +1,62 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationOccupancyTest {
+
+    static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void shouldCoverOnlyHorizon() {
+        ReservationOccupancy occupancy = ReservationOccupancy.of(List.of(), BASE.toEpochDay(), 10);
+
+        assertTrue(occupancy.covers(day(0), day(10)));
+        assertFalse(occupancy.covers(day(-1), day(3)));
+        assertFalse(occupancy.covers(day(5), day(11)));
+    }
+
+    @Test
+    void shouldMatchLinearScanAfterMutations() {
+        Random random = new Random(5);
+        ArrayList<Reservation> live = new ArrayList<>();
+        ReservationOccupancy occupancy = ReservationOccupancy.of(live, BASE.toEpochDay(), 120);
+        for (int step = 0; step < 1000; step++) {
+            int id = 1 + random.nextInt(30);
+            Reservation previous = live.stream().filter(r -> r.getId() == id).findFirst().orElse(null);
+            live.remove(previous);
+            Reservation changed = null;
+            if (random.nextInt(3) > 0) {
+                int checkIn = random.nextInt(140) - 10;
+                changed = reservation(id, checkIn, checkIn + 1 + random.nextInt(10));
+                live.add(changed);
+            }
+            occupancy = occupancy.apply(previous, changed, live);
+
+            int from = random.nextInt(115);
+            int to = from + 1 + random.nextInt(120 - from);
+            boolean free = live.stream()
+                    .noneMatch(r -> r.getCheckIn().toEpochDay() < day(to) && r.getCheckOut().toEpochDay() > day(from));
+            assertEquals(free, occupancy.isFree(day(from), day(to)));
+        }
+    }
+
+    private static Reservation reservation(int id, int checkIn, int checkOut) {
+        Reservation r = new Reservation();
+        r.setId(id);
+        r.setCheckIn(BASE.plusDays(checkIn));
+        r.setCheckOut(BASE.plusDays(checkOut));
+        return r;
+    }
+
+    private static long day(int offset) {
+        return BASE.toEpochDay() + offset;
+    }
+}
@@ -1,20 +1,27 @@
 package michaelarn0ld.mastery.data;
 
+import michaelarn0ld.mastery.data.contracts.HostSnapshot;
 import michaelarn0ld.mastery.data.contracts.ReservationRepository;
 import michaelarn0ld.mastery.data.exceptions.DataException;
 import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.Host;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
 import michaelarn0ld.mastery.models.State;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 public class ReservationRepositoryDouble implements ReservationRepository {
 
     private final ArrayList<Reservation> reservations = new ArrayList<>();
+    private final HashMap<String, List<ReservationValue>> values = new HashMap<>();
 
     public ReservationRepositoryDouble() {
         // set up host
@@ -73,20 +80,143 @@ public class ReservationRepositoryDouble implements ReservationRepository {
                 .orElse(null);
     }
 
+    @Override
+    public List<ReservationValue> findValuesByHost(Host h) {
+        List<ReservationValue> current = findByHost(h).stream()
+                .map(ReservationValue::new)
+                .toList();
+        List<ReservationValue> previous = values.get(h.getId());
+        if (current.equals(previous)) {
+            return previous; // the same list until the Host changes, as the file repository does
+        }
+        values.put(h.getId(), current);
+        return current;
+    }
+
+    @Override
+    public boolean hasOverlap(Host h, LocalDate checkIn, LocalDate checkOut, int excludeId) {
+        return findByHost(h).stream()
+                .anyMatch(r -> r.getId() != excludeId
+                        && r.getCheckIn().isBefore(checkOut)
+                        && r.getCheckOut().isAfter(checkIn));
+    }
+
+    @Override
+    public List<Host> findAvailable(List<Host> hosts, LocalDate checkIn, LocalDate checkOut) {
+        return hosts.stream()
+                .filter(h -> !hasOverlap(h, checkIn, checkOut, 0))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findByGuest(Guest g) {
+        return reservations.stream()
+                .filter(r -> r.getGuest().getId() == g.getId())
+                .toList();
+    }
+
+    @Override
+    public boolean hasGuestOverlap(Guest g, LocalDate checkIn, LocalDate checkOut, Host excludeHost, int excludeId) {
+        return findByGuest(g).stream()
+                .anyMatch(r -> !(r.getId() == excludeId && r.getHost().getId().equals(excludeHost.getId()))
+                        && r.getCheckIn().isBefore(checkOut)
+                        && r.getCheckOut().isAfter(checkIn));
+    }
+
+    @Override
+    public List<Reservation> findArrivals(LocalDate date) {
+        return reservations.stream()
+                .filter(r -> r.getCheckIn().equals(date))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findDepartures(LocalDate date) {
+        return reservations.stream()
+                .filter(r -> r.getCheckOut().equals(date))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findActive(LocalDate from, LocalDate to) {
+        return reservations.stream()
+                .filter(r -> r.getCheckIn().isBefore(to) && r.getCheckOut().isAfter(from))
+                .toList();
+    }
+
     @Override
     public Reservation add(Reservation r) throws DataException {
+        r.setId(reservations.stream().mapToInt(Reservation::getId).max().orElse(0) + 1);
+        reservations.add(r);
         return r;
     }
 
+    @Override
+    public List<String> addIfValid(Reservation r, Function<HostSnapshot, List<String>> validation)
+            throws DataException {
+        List<String> errors = validation.apply(snapshot(r.getHost()));
+        if (errors.isEmpty()) {
+            add(r);
+        }
+        return errors;
+    }
+
+    @Override
+    public List<List<String>> addAllIfValid(Host h, List<Reservation> batch,
+                                            BiFunction<HostSnapshot, Reservation, List<String>> validation)
+            throws DataException {
+        ArrayList<List<String>> errors = new ArrayList<>();
+        for (Reservation r : batch) {
+            List<String> rejected = validation.apply(snapshot(h), r);
+            if (rejected.isEmpty()) {
+                add(r);
+            }
+            errors.add(rejected);
+        }
+        return errors;
+    }
+
     @Override
     public boolean update(Reservation r) throws DataException {
         return findByHost(r.getHost()).stream()
                 .anyMatch(res -> res.getId() == r.getId());
     }
 
+    @Override
+    public List<String> updateIfValid(Reservation r, Function<HostSnapshot, List<String>> validation)
+            throws DataException {
+        List<String> errors = validation.apply(snapshot(r.getHost()));
+        if (errors.isEmpty() && !update(r)) {
+            throw new DataException("Reservation not found");
+        }
+        return errors;
+    }
+
     @Override
     public boolean delete(Reservation r) throws DataException {
         return findByHost(r.getHost()).stream()
                 .anyMatch(res -> res.getId() == r.getId());
     }
+
+    @Override
+    public int reprice(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing) throws DataException {
+        return (int) reservations.stream()
+                .filter(r -> !r.getCheckIn().isBefore(from))
+                .filter(r -> hosts.stream().anyMatch(h -> h.getId().equals(r.getHost().getId())))
+                .count();
+    }
+
+    private HostSnapshot snapshot(Host h) {
+        return new HostSnapshot() {
+            @Override
+            public boolean contains(int id) {
+                return findById(h, id) != null;
+            }
+
+            @Override
+            public boolean hasOverlap(LocalDate checkIn, LocalDate checkOut, int excludeId) {
+                return ReservationRepositoryDouble.this.hasOverlap(h, checkIn, checkOut, excludeId);
+            }
+        };
+    }
 }
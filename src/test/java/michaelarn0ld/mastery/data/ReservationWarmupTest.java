@@ -0,0 +1,94 @@
+package michaelarn0ld.mastery.data;
+
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.Guest;
+import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationWarmupTest {
+
+    static final String DIR = "./data/reservations";
+    static final String HOST_ID = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+
+    ReservationFileRepository repo = new ReservationFileRepository(DIR);
+
+    @Test
+    void shouldLoadEveryHostFileIntoCache() throws Exception {
+        ReservationWarmup warmup = new ReservationWarmup(repo, 4);
+        warmup.start().get(10, TimeUnit.SECONDS);
+
+        assertTrue(warmup.isDone());
+        assertFalse(warmup.isFailed());
+        assertNull(warmup.getFailure());
+        assertEquals(repo.findHostIds().size(), warmup.getTotal());
+        assertEquals(warmup.getTotal(), warmup.getLoaded());
+        assertEquals(warmup.getTotal(), repo.getCache().size());
+
+        repo.findByHost(new Host(HOST_ID));
+        assertEquals(0, repo.getCache().getMisses());
+    }
+
+    @Test
+    void shouldNotLoadMoreThanCacheHolds() throws Exception {
+        repo.setCacheMaxEntries(3);
+        ReservationWarmup warmup = new ReservationWarmup(repo, 2);
+        warmup.start().get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, warmup.getLoaded());
+        assertEquals(0, repo.getCache().getEvictions());
+    }
+
+    @Test
+    void shouldReportFailedLoad(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve(HOST_ID + ".csv"), "id,start_date,end_date,guest_id,total\n"
+                + "1,2021-10-12,not a date,663,400\n");
+        ReservationWarmup warmup = new ReservationWarmup(new ReservationFileRepository(dir.toString()), 1);
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> warmup.start().get(10, TimeUnit.SECONDS));
+
+        assertTrue(warmup.isDone());
+        assertTrue(warmup.isFailed());
+        assertSame(ex.getCause(), warmup.getFailure());
+        assertTrue(warmup.getFailure().getCause() instanceof DataException);
+        assertEquals(0, warmup.getLoaded());
+    }
+
+    @Test
+    void shouldPreloadAgainOnlyOnceAnotherProcessChangedTheFile(@TempDir Path dir)
+            throws IOException, DataException {
+        Files.copy(Paths.get(DIR, HOST_ID + ".csv"), dir.resolve(HOST_ID + ".csv"));
+        ReservationFileRepository warmed = new ReservationFileRepository(dir.toString());
+        ReservationFileRepository other = new ReservationFileRepository(dir.toString());
+        warmed.setFileLocking(true);
+        other.setFileLocking(true);
+        Host h = new Host(HOST_ID);
+        assertTrue(warmed.preload(HOST_ID));
+        assertFalse(warmed.preload(HOST_ID));
+        int before = warmed.findByHost(h).size();
+
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setGuest(new Guest(1));
+        r.setCheckIn(LocalDate.parse("2031-10-10"));
+        r.setCheckOut(LocalDate.parse("2031-10-12"));
+        other.add(r);
+
+        assertTrue(warmed.preload(HOST_ID));
+        long misses = warmed.getCache().getMisses();
+        assertEquals(before + 1, warmed.findByHost(h).size());
+        assertEquals(misses, warmed.getCache().getMisses());
+    }
+}
@@ -0,0 +1,38 @@
+package michaelarn0ld.mastery.data.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharCsvRecordTest {
+
+    @Test
+    void shouldTokenizeRangeOfBuffer() {
+        char[] buffer = "header\n7,2022-01-26,2022-02-01,933,2210.50\n".toCharArray();
+        CharCsvRecord record = new CharCsvRecord();
+        record.setLine(buffer, 7, buffer.length - 1);
+
+        assertEquals(5, record.size());
+        assertEquals(7, record.getInt(0));
+        assertEquals(LocalDate.of(2022, 1, 26), record.getDate(1));
+        assertEquals(LocalDate.of(2022, 2, 1), record.getDate(2));
+        assertEquals(933, record.getInt(3));
+        assertEquals(new BigDecimal("2210.50"), record.getDecimal(4));
+    }
+
+    @Test
+    void shouldReuseRecordForManyFields() {
+        char[] buffer = ",".repeat(40).toCharArray();
+        CharCsvRecord record = new CharCsvRecord();
+        record.setLine(buffer, 0, buffer.length);
+        assertEquals(41, record.size());
+
+        buffer = "a,b".toCharArray();
+        record.setLine(buffer, 0, buffer.length);
+        assertEquals(2, record.size());
+        assertEquals("b", record.get(1));
+    }
+}
@@ -0,0 +1,64 @@
+package michaelarn0ld.mastery.data.csv;
+
+import michaelarn0ld.mastery.models.Money;
+import michaelarn0ld.mastery.models.State;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvRecordTest {
+
+    private static MappedCsvRecord record(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        MappedCsvRecord record = new MappedCsvRecord(ByteBuffer.wrap(bytes));
+        record.setLine(0, bytes.length);
+        return record;
+    }
+
+    @Test
+    void shouldSplitFields() {
+        MappedCsvRecord record = record("1,,Zo\u00eb,TX");
+        assertEquals(4, record.size());
+        assertTrue(record.isEmpty(1));
+        assertEquals("Zo\u00eb", record.get(2));
+        assertEquals(State.TX, record.getEnum(3, State.class));
+    }
+
+    @Test
+    void shouldParseLikeTheJdk() {
+        MappedCsvRecord record = record("-42,2147483647,368.75,340,+0.50,2021-12-31");
+        assertEquals(-42, record.getInt(0));
+        assertEquals(Integer.MAX_VALUE, record.getInt(1));
+        assertEquals(new BigDecimal("368.75"), record.getDecimal(2));
+        assertEquals(new BigDecimal("340"), record.getDecimal(3));
+        assertEquals(new BigDecimal("+0.50"), record.getDecimal(4));
+        assertEquals(LocalDate.parse("2021-12-31"), record.getDate(5));
+    }
+
+    @Test
+    void shouldFailLikeTheJdk() {
+        MappedCsvRecord record = record("2147483648,12a,2021-02-30,1e3,XX");
+        assertThrows(NumberFormatException.class, () -> record.getInt(0));
+        assertThrows(NumberFormatException.class, () -> record.getInt(1));
+        assertThrows(DateTimeParseException.class, () -> record.getDate(2));
+        assertEquals(new BigDecimal("1e3"), record.getDecimal(3));
+        assertThrows(IllegalArgumentException.class, () -> record.getEnum(4, State.class));
+    }
+
+    @Test
+    void shouldParseCentsLikeMoneyOfDecimal() {
+        MappedCsvRecord record = record("368.75,340,-0.5,+.07,12.,1e3,0.005,99999999999999.99");
+        for (int i = 0; i < record.size(); i++) {
+            assertEquals(Money.ofDecimal(record.getDecimal(i)), record.getCents(i));
+        }
+        assertEquals(36875, record.getCents(0));
+        assertEquals(1, record.getCents(6));
+        assertThrows(NumberFormatException.class, () -> record("1.2.3").getCents(0));
+    }
+}
@@ -0,0 +1,44 @@
+package michaelarn0ld.mastery.data.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintTest {
+
+    @Test
+    void shouldMatchSettledFileByAttributes(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("hosts.csv");
+        Files.writeString(file, "id\n1\n");
+        FileTime settled = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+        Files.setLastModifiedTime(file, settled);
+        Fingerprint fingerprint = Fingerprint.of(file);
+
+        assertTrue(fingerprint.matches(Fingerprint.of(file), file));
+
+        Files.setLastModifiedTime(file, FileTime.from(settled.toInstant().plusSeconds(1)));
+        assertFalse(fingerprint.matches(Fingerprint.of(file), file));
+        assertFalse(fingerprint.matches(null, file));
+    }
+
+    @Test
+    void shouldCompareContentOfRacyFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("hosts.csv");
+        Files.writeString(file, "id\n1\n");
+        FileTime modified = Files.getLastModifiedTime(file);
+        Fingerprint fingerprint = Fingerprint.of(file);
+        assertTrue(fingerprint.matches(Fingerprint.of(file), file));
+
+        Files.writeString(file, "id\n2\n"); // same size, within the same tick
+        Files.setLastModifiedTime(file, modified);
+        assertFalse(fingerprint.matches(Fingerprint.of(file), file));
+    }
+}
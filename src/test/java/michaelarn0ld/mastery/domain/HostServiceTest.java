@@ -0,0 +1,99 @@
+package michaelarn0ld.mastery.domain;
+
+import michaelarn0ld.mastery.data.HostRepositoryDouble;
+import michaelarn0ld.mastery.data.ReservationRepositoryDouble;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostServiceTest {
+
+    HostService service = new HostService(new HostRepositoryDouble(), new ReservationRepositoryDouble());
+
+    @Test
+    void shouldUpdateRates() throws DataException {
+        Host h = new Host("test-id-1");
+        h.setStandardRateCents(15000);
+        h.setWeekendRateCents(20000);
+
+        Result<Host> result = service.updateRates(h);
+
+        assertTrue(result.isSuccess());
+        assertEquals(15000, service.findByEmail("ebastrop@wework.io").getStandardRateCents());
+        assertEquals(20000, service.findByEmail("ebastrop@wework.io").getWeekendRateCents());
+    }
+
+    @Test
+    void shouldNotUpdateUnknownHost() throws DataException {
+        Result<Host> result = service.updateRates(new Host("no-such-host"));
+
+        assertFalse(result.isSuccess());
+        assertEquals(ReservationService.HOST_NOT_FOUND_ERROR, result.getErrors().get(0));
+    }
+
+    @Test
+    void shouldNotUpdateAnyHostWithNegativeRate() throws DataException {
+        Host valid = new Host("test-id-1");
+        valid.setStandardRateCents(15000);
+        Host invalid = new Host("test-id-2");
+        invalid.setWeekendRateCents(-1);
+
+        Result<List<Host>> result = service.updateRates(List.of(valid, invalid));
+
+        assertFalse(result.isSuccess());
+        assertEquals(HostService.RATE_NEGATIVE_ERROR, result.getErrors().get(0));
+        assertNotEquals(15000, service.findByEmail("ebastrop@wework.io").getStandardRateCents());
+    }
+
+    @Test
+    void shouldKeepRatesWhenRepricingFails() {
+        HostService failing = new HostService(new HostRepositoryDouble(), new ReservationRepositoryDouble() {
+            @Override
+            public int reprice(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing)
+                    throws DataException {
+                throw new DataException("disk full");
+            }
+        });
+        Host h = new Host("test-id-1");
+        h.setStandardRateCents(15000);
+
+        assertThrows(DataException.class, () -> failing.updateRates(h));
+        assertNotEquals(15000, failing.findByEmail("ebastrop@wework.io").getStandardRateCents());
+    }
+
+    @Test
+    void shouldRepriceBackAtPreviousRatesWhenRatesFailToBeWritten() {
+        ArrayList<List<Host>> repriced = new ArrayList<>();
+        HostService failing = new HostService(new HostRepositoryDouble() {
+            @Override
+            public int updateRates(List<Host> updated) throws DataException {
+                super.updateRates(updated); // changes the instances findAll returned
+                throw new DataException("disk full");
+            }
+        }, new ReservationRepositoryDouble() {
+            @Override
+            public int reprice(List<Host> hosts, LocalDate from, ToLongFunction<Reservation> pricing) {
+                repriced.add(hosts);
+                return 0;
+            }
+        });
+        Host h = new Host("test-id-1");
+        h.setStandardRateCents(15000);
+        h.setWeekendRateCents(20000);
+
+        assertThrows(DataException.class, () -> failing.updateRates(h));
+        assertEquals(2, repriced.size());
+        Host rollback = repriced.get(1).get(0);
+        assertEquals("test-id-1", rollback.getId());
+        assertEquals(12099, rollback.getStandardRateCents());
+        assertEquals(18995, rollback.getWeekendRateCents());
+    }
+}
@@ -0,0 +1,161 @@
+package michaelarn0ld.mastery.domain;
+
+import michaelarn0ld.mastery.data.SeasonalRateFileRepository;
+import michaelarn0ld.mastery.data.exceptions.DataException;
+import michaelarn0ld.mastery.models.DateRange;
+import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.SeasonalRate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceCalendarTest {
+
+    static final LocalDate TODAY = LocalDate.of(2030, 6, 3);
+
+    TestClock clock = new TestClock(TODAY);
+    PriceCalendar calendar = new PriceCalendar(60, clock);
+    Host host = host(10000, 15000);
+
+    @Test
+    void shouldQuoteLikeReservationTotalWithoutSeasons() {
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            LocalDate checkIn = TODAY.plusDays(random.nextInt(200) - 50);
+            LocalDate checkOut = checkIn.plusDays(random.nextInt(100) - 2);
+            assertEquals(total(host, checkIn, checkOut), calendar.quote(host, checkIn, checkOut));
+        }
+    }
+
+    @Test
+    void shouldApplyLatestSeasonalRate() throws DataException {
+        calendar.addSeasonalRate(host.getId(), new SeasonalRate(TODAY.plusDays(2), TODAY.plusDays(9), 20000));
+        calendar.addSeasonalRate(host.getId(), new SeasonalRate(TODAY.plusDays(4), TODAY.plusDays(5), 50000));
+
+        // 2030-06-03 is a Monday: two standard nights, two seasonal, one holiday, one seasonal
+        assertEquals(2 * 10000 + 2 * 20000 + 50000 + 20000, calendar.quote(host, TODAY, TODAY.plusDays(6)));
+        assertEquals(20000, calendar.quote(host, TODAY.plusDays(8), TODAY.plusDays(9)));
+        assertEquals(10000, calendar.quote(host, TODAY.plusDays(9), TODAY.plusDays(10)));
+    }
+
+    @Test
+    void shouldMatchNightByNightPricingAfterRateChanges() throws DataException {
+        Random random = new Random(11);
+        ArrayList<SeasonalRate> seasons = new ArrayList<>();
+        for (int step = 0; step < 40; step++) {
+            LocalDate start = TODAY.plusDays(random.nextInt(150) - 30);
+            SeasonalRate season = new SeasonalRate(start, start.plusDays(1 + random.nextInt(20)), random.nextInt(90000));
+            if (random.nextInt(5) == 0) {
+                seasons.clear();
+                seasons.add(season);
+                calendar.setSeasonalRates(host.getId(), seasons);
+            } else {
+                seasons.add(season);
+                calendar.addSeasonalRate(host.getId(), season);
+            }
+            if (random.nextInt(4) == 0) {
+                clock.today = clock.today.plusDays(random.nextInt(70));
+            }
+            if (random.nextInt(10) == 0) {
+                host.setStandardRateCents(random.nextInt(30000));
+            }
+            ArrayList<DateRange> ranges = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                LocalDate checkIn = clock.today.plusDays(random.nextInt(120) - 20);
+                ranges.add(new DateRange(checkIn, checkIn.plusDays(random.nextInt(30))));
+            }
+            long[] quotes = calendar.quote(host, ranges);
+            for (int i = 0; i < ranges.size(); i++) {
+                assertEquals(nightByNight(host, seasons, ranges.get(i)), quotes[i], ranges.get(i).toString());
+            }
+        }
+    }
+
+    @Test
+    void shouldForgetSeasonsWhenCleared() throws DataException {
+        calendar.addSeasonalRate(host.getId(), new SeasonalRate(TODAY, TODAY.plusDays(30), 1));
+        calendar.setSeasonalRates(host.getId(), List.of());
+
+        assertTrue(calendar.getSeasonalRates(host.getId()).isEmpty());
+        assertEquals(total(host, TODAY, TODAY.plusDays(30)), calendar.quote(host, TODAY, TODAY.plusDays(30)));
+    }
+
+    @Test
+    void shouldKeepSeasonalRatesInRepository(@TempDir Path dir) throws DataException {
+        String path = dir.resolve("seasonal-rates.csv").toString();
+        calendar.setRepository(new SeasonalRateFileRepository(path));
+        calendar.addSeasonalRate(host.getId(), new SeasonalRate(TODAY.plusDays(2), TODAY.plusDays(9), 20000));
+        calendar.addSeasonalRate("other-host", new SeasonalRate(TODAY, TODAY.plusDays(1), 1));
+
+        PriceCalendar restarted = new PriceCalendar(60, clock);
+        restarted.setRepository(new SeasonalRateFileRepository(path));
+
+        assertEquals(calendar.quote(host, TODAY, TODAY.plusDays(12)), restarted.quote(host, TODAY, TODAY.plusDays(12)));
+        assertEquals(1, restarted.getSeasonalRates("other-host").size());
+        assertEquals(20000, restarted.getSeasonalRates(host.getId()).get(0).getRateCents());
+    }
+
+    private static long total(Host h, LocalDate checkIn, LocalDate checkOut) {
+        Reservation r = new Reservation();
+        r.setHost(h);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkOut);
+        return r.getTotalCents();
+    }
+
+    private static long nightByNight(Host h, List<SeasonalRate> seasons, DateRange range) {
+        long total = 0;
+        for (LocalDate night = range.getCheckIn(); night.isBefore(range.getCheckOut()); night = night.plusDays(1)) {
+            long price = night.getDayOfWeek().getValue() >= 6 ? h.getWeekendRateCents() : h.getStandardRateCents();
+            for (SeasonalRate season : seasons) {
+                if (!night.isBefore(season.getStart()) && night.isBefore(season.getEnd())) {
+                    price = season.getRateCents();
+                }
+            }
+            total += price;
+        }
+        return total;
+    }
+
+    private static Host host(long standardCents, long weekendCents) {
+        Host h = new Host("calendar-host");
+        h.setStandardRateCents(standardCents);
+        h.setWeekendRateCents(weekendCents);
+        return h;
+    }
+
+    static class TestClock extends Clock {
+        LocalDate today;
+
+        TestClock(LocalDate today) {
+            this.today = today;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return today.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+    }
+}
@@ -4,14 +4,28 @@ import michaelarn0ld.mastery.data.*;
 import michaelarn0ld.mastery.data.exceptions.DataException;
 import michaelarn0ld.mastery.models.Guest;
 import michaelarn0ld.mastery.models.Host;
+import michaelarn0ld.mastery.models.HostQuote;
 import michaelarn0ld.mastery.models.Reservation;
+import michaelarn0ld.mastery.models.ReservationValue;
+import michaelarn0ld.mastery.models.SeasonalRate;
 import michaelarn0ld.mastery.models.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -58,6 +72,22 @@ class ReservationServiceTest {
         assertEquals("Adi", actual.get(1).getGuest().getFirstName());
     }
 
+    @Test
+    void shouldShareResolvedStaysUntilHostChanges() throws DataException {
+        List<ReservationValue> first = service.findStaysByHost(h);
+        assertEquals("Bob", first.get(0).getGuest().getFirstName());
+        assertEquals("Bastrop", first.get(0).getHost().getLastName());
+        assertSame(first, service.findStaysByHost(h));
+
+        service.findByHost(h).get(0).setGuest(new Guest(99));
+        assertEquals("Bob", service.findByHost(h).get(0).getGuest().getFirstName());
+
+        h.setStandardRate(BigDecimal.valueOf(99.99));
+        List<ReservationValue> repriced = service.findStaysByHost(h);
+        assertNotSame(first, repriced);
+        assertNotEquals(first.get(0).getTotalCents(), repriced.get(0).getTotalCents());
+    }
+
     @Test
     void shouldFindRightId() {
         Reservation actual = service.findById(h, 2);
@@ -198,6 +228,26 @@ class ReservationServiceTest {
         assertEquals(0, result.getErrors().size());
     }
 
+    @Test
+    void shouldBookAtQuotedTotal() throws DataException {
+        LocalDate checkIn = LocalDate.now().plusDays(40);
+        service.getPriceCalendar().addSeasonalRate(h.getId(), new SeasonalRate(checkIn, checkIn.plusDays(2), 50000));
+        Reservation r = new Reservation();
+        r.setGuest(new Guest(1));
+        r.setHost(h);
+        r.setCheckIn(checkIn);
+        r.setCheckOut(checkIn.plusDays(3));
+
+        service.price(r);
+        long quoted = r.getTotalCents();
+        Result<Reservation> result = service.add(r);
+
+        assertTrue(result.isSuccess());
+        assertEquals(service.getPriceCalendar().quote(h, checkIn, checkIn.plusDays(3)), quoted);
+        assertEquals(quoted, result.getPayload().getTotalCents());
+        assertTrue(quoted >= 2 * 50000);
+    }
+
     @Test
     void shouldNotUpdateInvalidId() throws DataException {
         Reservation r = new Reservation();
@@ -239,4 +289,220 @@ class ReservationServiceTest {
         assertEquals(0, actual.getErrors().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldFindAvailableHostsWithQuotes() {
+        Host other = new Host("test-id-2");
+        other.setStandardRate(BigDecimal.valueOf(100));
+        other.setWeekendRate(BigDecimal.valueOf(100));
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+
+        Result<List<HostQuote>> result = service.findAvailable(List.of(h, other), checkIn, checkIn.plusDays(3));
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getPayload().size());
+        assertEquals(30000, result.getPayload().get(1).getTotalCents());
+    }
+
+    @Test
+    void shouldNotSearchAvailabilityForBadStay() {
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+
+        Result<List<HostQuote>> result = service.findAvailable(List.of(h), checkIn, checkIn);
+
+        assertFalse(result.isSuccess());
+        assertEquals(ReservationService.CHECKIN_AFTER_CHECKOUT_ERROR, result.getErrors().get(0));
+    }
+
+    @Test
+    void shouldComposeAsyncCallsLikeBlockingOnes() {
+        Host other = new Host("test-id-2");
+        other.setStandardRate(BigDecimal.valueOf(100));
+        other.setWeekendRate(BigDecimal.valueOf(100));
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+
+        List<List<ReservationValue>> stays = service.findStaysByHostsAsync(List.of(h, other)).join();
+        Result<List<HostQuote>> available = service.findAvailableAsync(List.of(h, other), checkIn,
+                checkIn.plusDays(3)).join();
+        Reservation missing = new Reservation();
+        missing.setId(11);
+        missing.setHost(h);
+        Result<Reservation> deleted = service.deleteAsync(missing).join();
+
+        assertSame(service.findStaysByHost(h), stays.get(0));
+        assertEquals(0, stays.get(1).size());
+        assertEquals(30000, available.getPayload().get(1).getTotalCents());
+        assertEquals(List.of(ReservationService.RESERVATION_NOT_FOUND_ERROR), deleted.getErrors());
+        assertFalse(service.findAvailableAsync(List.of(h), checkIn, checkIn).join().isSuccess());
+    }
+
+    @Test
+    void shouldFindByGuestWithHostsResolved() {
+        Guest g = new Guest();
+        g.setId(2);
+
+        List<Reservation> actual = service.findByGuest(g);
+
+        assertEquals(1, actual.size());
+        assertEquals("Adi", actual.get(0).getGuest().getFirstName());
+        assertEquals("Bastrop", actual.get(0).getHost().getLastName());
+    }
+
+    @Test
+    void shouldNotAddGuestOverlappingReservationAtAnotherHost() throws DataException {
+        Guest g = new Guest();
+        g.setId(1);
+        Host other = new Host();
+        other.setId("test-id-2");
+        other.setEmail("barballon@gmail.com");
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        Reservation first = new Reservation();
+        first.setGuest(g);
+        first.setHost(h);
+        first.setCheckIn(checkIn);
+        first.setCheckOut(checkIn.plusDays(3));
+        assertTrue(service.add(first).isSuccess());
+
+        Reservation second = new Reservation();
+        second.setGuest(g);
+        second.setHost(other);
+        second.setCheckIn(checkIn.plusDays(2));
+        second.setCheckOut(checkIn.plusDays(5));
+        service.setGuestOverlapCheck(true);
+        Result<Reservation> result = service.add(second);
+        assertFalse(result.isSuccess());
+        assertEquals(ReservationService.GUEST_OVERLAPPING_RESERVATION_ERROR, result.getErrors().get(0));
+    }
+
+    @Test
+    void shouldFindArrivalsAndActiveStaysWithGuestsResolved() {
+        List<Reservation> arrivals = service.findArrivals(LocalDate.of(2021, 11, 18));
+        List<Reservation> active = service.findActive(LocalDate.of(2022, 10, 20), LocalDate.of(2022, 10, 27));
+
+        assertEquals(1, arrivals.size());
+        assertEquals("Adi", arrivals.get(0).getGuest().getFirstName());
+        assertEquals(1, active.size());
+        assertEquals("Bob", active.get(0).getGuest().getFirstName());
+        assertEquals(0, service.findDepartures(LocalDate.of(2022, 10, 24)).size());
+    }
+
+    @Test
+    void shouldAddAllWithResultPerReservation() {
+        Guest g = new Guest();
+        g.setId(1);
+        Host other = new Host();
+        other.setId("test-id-2");
+        other.setEmail("barballon@gmail.com");
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        List<Reservation> batch = new ArrayList<>();
+        for (Host host : List.of(h, other, h, h)) {
+            Reservation r = new Reservation();
+            r.setGuest(g);
+            r.setHost(host);
+            r.setCheckIn(checkIn.plusDays(batch.size()));
+            r.setCheckOut(checkIn.plusDays(batch.size() + 3));
+            batch.add(r);
+        }
+        batch.get(3).setCheckOut(batch.get(3).getCheckIn());
+
+        List<Result<Reservation>> results = service.addAll(batch);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(ReservationService.OVERLAPPING_RESERVATION_ERROR, results.get(2).getErrors().get(0));
+        assertEquals(ReservationService.CHECKIN_AFTER_CHECKOUT_ERROR, results.get(3).getErrors().get(0));
+        assertEquals(3, service.findByHost(h).size());
+    }
+
+    @Test
+    void shouldNotAddAllGuestOverlappingReservationsAtDifferentHosts() {
+        Guest g = new Guest();
+        g.setId(1);
+        Host other = new Host();
+        other.setId("test-id-2");
+        other.setEmail("barballon@gmail.com");
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        List<Reservation> batch = new ArrayList<>();
+        for (Host host : List.of(h, other)) {
+            Reservation r = new Reservation();
+            r.setGuest(g);
+            r.setHost(host);
+            r.setCheckIn(checkIn.plusDays(batch.size()));
+            r.setCheckOut(checkIn.plusDays(batch.size() + 3));
+            batch.add(r);
+        }
+        service.setGuestOverlapCheck(true);
+
+        List<Result<Reservation>> results = service.addAll(batch);
+
+        assertEquals(1, results.stream().filter(Result::isSuccess).count());
+        Result<Reservation> rejected = results.get(0).isSuccess() ? results.get(1) : results.get(0);
+        assertEquals(List.of(ReservationService.GUEST_OVERLAPPING_RESERVATION_ERROR), rejected.getErrors());
+    }
+
+    @Test
+    void shouldNotDoubleBookHostOrGuestUnderConcurrentRequests(@TempDir Path dir) throws Exception {
+        HostRepositoryDouble hostRepository = new HostRepositoryDouble();
+        ReservationService shared = new ReservationService(
+                new ReservationFileRepository(dir.toString()), new GuestRepositoryDouble(), hostRepository);
+        shared.setGuestOverlapCheck(true);
+        List<Host> hosts = hostRepository.findAll();
+        LocalDate start = LocalDate.now().plusDays(30);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger added = new AtomicInteger();
+        ArrayList<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < 200; i++) {
+                    Host host = hosts.get(random.nextInt(hosts.size()));
+                    LocalDate checkIn = start.plusDays(random.nextInt(60));
+                    Reservation r = new Reservation();
+                    r.setHost(host);
+                    r.setGuest(new Guest(1 + random.nextInt(3)));
+                    r.setCheckIn(checkIn);
+                    r.setCheckOut(checkIn.plusDays(1 + random.nextInt(4)));
+                    List<Reservation> current = shared.findByHost(host);
+                    if (random.nextBoolean() || current.isEmpty()) {
+                        if (shared.add(r).isSuccess()) {
+                            added.incrementAndGet();
+                        }
+                    } else {
+                        r.setId(current.get(random.nextInt(current.size())).getId());
+                        shared.update(r);
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        ArrayList<Reservation> stored = new ArrayList<>();
+        for (Host host : hosts) {
+            List<Reservation> onDisk = new ReservationFileRepository(dir.toString()).findByHost(host);
+            assertNoOverlap(onDisk);
+            stored.addAll(onDisk);
+        }
+        for (int guestId = 1; guestId <= 3; guestId++) {
+            int id = guestId;
+            assertNoOverlap(stored.stream().filter(r -> r.getGuest().getId() == id).toList());
+        }
+        assertTrue(stored.size() > 0);
+        assertEquals(added.get(), stored.size());
+    }
+
+    private static void assertNoOverlap(List<Reservation> reservations) {
+        List<Reservation> sorted = new ArrayList<>(reservations);
+        sorted.sort(Comparator.comparing(Reservation::getCheckIn));
+        for (int i = 1; i < sorted.size(); i++) {
+            assertFalse(sorted.get(i).getCheckIn().isBefore(sorted.get(i - 1).getCheckOut()));
+        }
+    }
+}
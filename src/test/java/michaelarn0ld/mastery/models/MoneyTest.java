@@ -0,0 +1,33 @@
+package michaelarn0ld.mastery.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void shouldRoundDecimalsHalfUpToCents() {
+        assertEquals(12099, Money.ofDecimal(new BigDecimal("120.99")));
+        assertEquals(30000, Money.ofDecimal(new BigDecimal("300")));
+        assertEquals(1, Money.ofDecimal(new BigDecimal("0.005")));
+        assertEquals(-1, Money.ofDecimal(new BigDecimal("-0.005")));
+        assertThrows(ArithmeticException.class, () -> Money.ofDecimal(new BigDecimal("1E+30")));
+    }
+
+    @Test
+    void shouldFormatLikeDecimal() {
+        long[] amounts = {0, 5, 50, 12099, -7, -12345, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long cents : amounts) {
+            assertEquals(Money.toDecimal(cents).toString(), Money.format(cents));
+        }
+    }
+
+    @Test
+    void shouldFailOnOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+    }
+}
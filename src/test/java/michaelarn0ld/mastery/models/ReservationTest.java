@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,4 +63,53 @@ class ReservationTest {
          */
         assertEquals(new BigDecimal("1653.31"), reservation.getTotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldMatchNightByNightTotal() {
+        Random random = new Random(2021);
+        String[] rates = {"0", "5.5", "15.82", "120.99", "89.950", "1E+2", "0.01"};
+        for (int i = 0; i < 20_000; i++) {
+            Host host = new Host();
+            host.setStandardRate(new BigDecimal(rates[random.nextInt(rates.length)]));
+            host.setWeekendRate(new BigDecimal(rates[random.nextInt(rates.length)]));
+
+            Reservation reservation = new Reservation();
+            reservation.setCheckIn(LocalDate.of(2020, 1, 1).plusDays(random.nextInt(3000)));
+            reservation.setCheckOut(reservation.getCheckIn().plusDays(random.nextInt(400) - 3));
+            reservation.setHost(host);
+
+            BigDecimal expected = nightByNightTotal(reservation);
+            assertEquals(0, expected.compareTo(reservation.getTotal()));
+            assertEquals(Money.ofDecimal(expected), reservation.getTotalCents());
+        }
+    }
+
+    @Test
+    void shouldCountWeekendNightsFromEveryWeekday() {
+        for (int start = 0; start < 7; start++) {
+            LocalDate checkIn = LocalDate.of(2021, 12, 6).plusDays(start);
+            for (int nights = 0; nights < 30; nights++) {
+                long expected = checkIn.datesUntil(checkIn.plusDays(nights))
+                        .filter(d -> d.getDayOfWeek().getValue() >= 6)
+                        .count();
+                assertEquals(expected, Reservation.countWeekendNights(checkIn, nights));
+            }
+        }
+    }
+
+    /**
+     * Prices a stay one night at a time, the way getTotal used to
+     */
+    static BigDecimal nightByNightTotal(Reservation reservation) {
+        BigDecimal total = BigDecimal.ZERO;
+        LocalDate checkIn = reservation.getCheckIn();
+        while (checkIn.compareTo(reservation.getCheckOut()) < 0) {
+            total = switch (checkIn.getDayOfWeek()) {
+                case SATURDAY, SUNDAY -> total.add(reservation.getHost().getWeekendRate());
+                default -> total.add(reservation.getHost().getStandardRate());
+            };
+            checkIn = checkIn.plusDays(1);
+        }
+        return total;
+    }
+}
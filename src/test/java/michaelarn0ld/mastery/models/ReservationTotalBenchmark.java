@@ -0,0 +1,75 @@
+package michaelarn0ld.mastery.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Compares Reservation.getTotal and getTotalCents with pricing a stay one night at a
+ * time. Run the main
+ * method from the test classpath; the first argument, if any, is the longest stay in
+ * nights. Its name matches none of the surefire test patterns, so the build does not
+ * run it.
+ */
+public class ReservationTotalBenchmark {
+
+    private static final int RESERVATIONS = 10_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int maxNights = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        List<Reservation> reservations = reservations(maxNights);
+        for (int round = 1; round <= ROUNDS; round++) {
+            long loop = time(reservations, ReservationTest::nightByNightTotal);
+            long closedForm = time(reservations, Reservation::getTotal);
+            long cents = timeCents(reservations);
+            System.out.printf("round %2d: night by night %6d us, closed form %6d us, cents %6d us%n",
+                    round, loop / 1000, closedForm / 1000, cents / 1000);
+        }
+    }
+
+    private static long time(List<Reservation> reservations, Function<Reservation, BigDecimal> total) {
+        long start = System.nanoTime();
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Reservation r : reservations) {
+            sum = sum.add(total.apply(r));
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sum.signum() < 0) {
+            throw new IllegalStateException(); // keeps the sum live
+        }
+        return elapsed;
+    }
+
+    private static long timeCents(List<Reservation> reservations) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (Reservation r : reservations) {
+            sum += r.getTotalCents();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sum < 0) {
+            throw new IllegalStateException(); // keeps the sum live
+        }
+        return elapsed;
+    }
+
+    private static List<Reservation> reservations(int maxNights) {
+        Random random = new Random(1);
+        Host host = new Host();
+        host.setStandardRate(new BigDecimal("89.95"));
+        host.setWeekendRate(new BigDecimal("120.99"));
+        ArrayList<Reservation> reservations = new ArrayList<>(RESERVATIONS);
+        for (int i = 0; i < RESERVATIONS; i++) {
+            Reservation r = new Reservation();
+            r.setHost(host);
+            r.setCheckIn(LocalDate.of(2022, 1, 1).plusDays(random.nextInt(365)));
+            r.setCheckOut(r.getCheckIn().plusDays(1 + random.nextInt(maxNights)));
+            reservations.add(r);
+        }
+        return reservations;
+    }
+}
@@ -0,0 +1,60 @@
+package michaelarn0ld.mastery.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationValueTest {
+
+    @Test
+    void shouldCopyWithoutSharingMutableState() {
+        Reservation reservation = reservation();
+        ReservationValue value = new ReservationValue(reservation);
+
+        reservation.setCheckOut(LocalDate.of(2021, 12, 20));
+        reservation.getHost().setWeekendRate(new BigDecimal("1.00"));
+        reservation.getGuest().setFirstName("Changed");
+
+        assertEquals(LocalDate.of(2021, 12, 12), value.getCheckOut());
+        assertEquals(new BigDecimal("59.14"), Money.toDecimal(value.getTotalCents()));
+        assertEquals("Bob", value.getGuest().getFirstName());
+    }
+
+    @Test
+    void shouldReturnNewValueFromWithers() {
+        ReservationValue value = new ReservationValue(reservation());
+        ReservationValue moved = value.withCheckIn(LocalDate.of(2021, 12, 6)).withCheckOut(LocalDate.of(2021, 12, 11));
+
+        assertEquals(LocalDate.of(2021, 12, 5), value.getCheckIn());
+        assertEquals(LocalDate.of(2021, 12, 6), moved.getCheckIn());
+        assertEquals(new BigDecimal("27.50"), Money.toDecimal(moved.getTotalCents()));
+        assertEquals(value, value.withId(7));
+        assertNotEquals(value, moved);
+
+        Reservation copy = moved.toReservation();
+        assertEquals(moved.getTotalCents(), copy.getTotalCents());
+        assertEquals("Bob", copy.getGuest().getFirstName());
+    }
+
+    @Test
+    void shouldNotPriceUnpricedValueWithoutHost() {
+        ReservationValue stored = new ReservationValue(7, LocalDate.of(2021, 12, 5), LocalDate.of(2021, 12, 12),
+                null, new GuestValue(new Guest(7)));
+
+        assertThrows(IllegalStateException.class, stored::getTotalCents);
+        assertEquals(new BigDecimal("59.14"),
+                Money.toDecimal(stored.withHost(new HostValue(reservation().getHost())).getTotalCents()));
+    }
+
+    private static Reservation reservation() {
+        Host host = new Host("host");
+        host.setStandardRate(new BigDecimal("5.50"));
+        host.setWeekendRate(new BigDecimal("15.82"));
+        Guest guest = new Guest(7);
+        guest.setFirstName("Bob");
+        return new Reservation(7, LocalDate.of(2021, 12, 5), LocalDate.of(2021, 12, 12), host, guest);
+    }
+}